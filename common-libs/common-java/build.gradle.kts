@@ -1,5 +1,6 @@
 plugins {
     `java-library`
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.polyshop"
@@ -20,10 +21,36 @@ dependencies {
     api("org.springframework.boot:spring-boot-starter-validation:3.5.7")
     api("org.springframework.boot:spring-boot-starter-security:3.5.7")
     implementation("com.fasterxml.jackson.core:jackson-databind:2.19.2")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile:2.19.2")
     implementation("org.slf4j:slf4j-api:2.0.17")
-    implementation("org.projectlombok:lombok:1.18.38")
+    implementation("io.jsonwebtoken:jjwt-api:0.12.6")
+    runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.6")
+    runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.6")
+    compileOnly("org.springframework.boot:spring-boot-starter-jdbc:3.5.7")
+    compileOnly("org.springframework.kafka:spring-kafka:3.3.10")
+    compileOnly("org.postgresql:postgresql:42.7.8")
+    compileOnly("io.micrometer:micrometer-core:1.15.5")
+    compileOnly("org.projectlombok:lombok:1.18.38")
+    annotationProcessor("org.projectlombok:lombok:1.18.38")
+    testImplementation("org.springframework.boot:spring-boot-starter-test:3.5.7")
+    testImplementation("org.springframework.boot:spring-boot-starter-jdbc:3.5.7")
+    testImplementation("io.zonky.test:embedded-postgres:2.1.0")
+    testImplementation("org.postgresql:postgresql:42.7.8")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.12.2")
+    jmh("org.springframework.boot:spring-boot-starter-jdbc:3.5.7")
+    jmh("com.h2database:h2:2.3.232")
+    jmh("org.springframework.kafka:spring-kafka:3.3.10")
+    jmh("org.springframework.kafka:spring-kafka-test:3.3.10")
+    jmh("io.zonky.test:embedded-postgres:2.1.0")
+    jmh("org.postgresql:postgresql:42.7.8")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+jmh {
+    warmupIterations = 2
+    iterations = 3
+    fork = 1
+}
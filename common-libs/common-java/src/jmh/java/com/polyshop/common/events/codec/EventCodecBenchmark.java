@@ -0,0 +1,88 @@
+package com.polyshop.common.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.polyshop.common.events.EventEnvelope;
+import com.polyshop.common.events.OrderEvents;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of an order.created envelope with {@code items} line items. The
+ * {@code bytes} aux counter is the encoded size of one message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class EventCodecBenchmark {
+
+    @Param({"json", "binary"})
+    public String codec;
+
+    @Param({"3"})
+    public int items;
+
+    private EventCodec eventCodec;
+    private EventEnvelope<OrderEvents.OrderCreatedPayload> envelope;
+    private byte[] encoded;
+    private Path schemas;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        schemas = Files.createTempFile("event-schemas", ".json");
+        Files.delete(schemas);
+        eventCodec = codec.equals("json") ? new JsonEventCodec(json) : new BinaryEventCodec(new FileSchemaRegistry(schemas), json);
+        envelope = orderCreated(items);
+        encoded = eventCodec.encode(envelope);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(schemas);
+        Files.deleteIfExists(schemas.resolveSibling(schemas.getFileName() + ".lock"));
+    }
+
+    @Benchmark
+    public byte[] encode(Size size) {
+        byte[] bytes = eventCodec.encode(envelope);
+        size.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public EventEnvelope<OrderEvents.OrderCreatedPayload> decode() {
+        return eventCodec.decode(encoded, OrderEvents.OrderCreatedPayload.class);
+    }
+
+    static EventEnvelope<OrderEvents.OrderCreatedPayload> orderCreated(int items) {
+        List<OrderEvents.OrderItem> lines = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            lines.add(new OrderEvents.OrderItem(UUID.randomUUID(), UUID.randomUUID(), i + 1, new BigDecimal("19.99")));
+        }
+        UUID orderId = UUID.randomUUID();
+        OrderEvents.OrderCreatedPayload payload = new OrderEvents.OrderCreatedPayload(
+                orderId, UUID.randomUUID(), lines, new BigDecimal("119.94"), "USD", Instant.now());
+        EventEnvelope<OrderEvents.OrderCreatedPayload> env = EventEnvelope.of(OrderEvents.ORDER_CREATED, "order", orderId.toString(), payload);
+        env.setCorrelationId(UUID.randomUUID().toString());
+        env.setMetadata(Map.of("source", "order-service", "version", 1));
+        return env;
+    }
+}
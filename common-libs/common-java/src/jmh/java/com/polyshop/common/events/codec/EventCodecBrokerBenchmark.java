@@ -0,0 +1,81 @@
+package com.polyshop.common.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.polyshop.common.events.EventEnvelope;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to produce {@code messages} order.created envelopes to a single-node embedded Kafka
+ * broker and have every one acknowledged, with each codec. Producer batching and compression
+ * are left at their defaults, so smaller records mean fuller batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class EventCodecBrokerBenchmark {
+
+    private static final String TOPIC = "order.order.created.v1";
+
+    @Param({"json", "binary"})
+    public String codec;
+
+    @Param({"50000"})
+    public int messages;
+
+    private EmbeddedKafkaKraftBroker kafka;
+    private DefaultKafkaProducerFactory<String, EventEnvelope<?>> producerFactory;
+    private KafkaTemplate<String, EventEnvelope<?>> kafkaTemplate;
+    private List<EventEnvelope<?>> envelopes;
+    private Path schemas;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        kafka = new EmbeddedKafkaKraftBroker(1, 4, TOPIC);
+        kafka.afterPropertiesSet();
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        schemas = Files.createTempFile("event-schemas", ".json");
+        Files.delete(schemas);
+        EventCodec eventCodec = codec.equals("json") ? new JsonEventCodec(json) : new BinaryEventCodec(new FileSchemaRegistry(schemas), json);
+        producerFactory = new DefaultKafkaProducerFactory<>(
+                Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBrokersAsString()),
+                new StringSerializer(), new EventCodecSerializer(eventCodec));
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        envelopes = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) envelopes.add(EventCodecBenchmark.orderCreated(3));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        producerFactory.destroy();
+        kafka.destroy();
+        Files.deleteIfExists(schemas);
+        Files.deleteIfExists(schemas.resolveSibling(schemas.getFileName() + ".lock"));
+    }
+
+    @Benchmark
+    public int produce() {
+        List<CompletableFuture<?>> sends = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            EventEnvelope<?> env = envelopes.get(i % envelopes.size());
+            sends.add(kafkaTemplate.send(TOPIC, env.getAggregateId(), env));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        return sends.size();
+    }
+}
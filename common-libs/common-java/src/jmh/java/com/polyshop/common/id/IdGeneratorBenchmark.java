@@ -0,0 +1,44 @@
+package com.polyshop.common.id;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids per second from 8 threads: UUID.randomUUID (SecureRandom behind a shared lock) against
+ * TimeOrderedIds, as a UUID and as the strings the call sites put in headers and envelopes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(8)
+public class IdGeneratorBenchmark {
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public String randomUuidString() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return TimeOrderedIds.next();
+    }
+
+    @Benchmark
+    public String timeOrderedString() {
+        return TimeOrderedIds.nextString();
+    }
+
+    @Benchmark
+    public String timeOrderedBase32() {
+        return TimeOrderedIds.toBase32(TimeOrderedIds.next());
+    }
+}
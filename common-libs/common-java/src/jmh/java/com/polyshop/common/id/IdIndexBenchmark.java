@@ -0,0 +1,93 @@
+package com.polyshop.common.id;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to insert {@code rows} rows, 1000 per batch, into a table whose primary key is a uuid,
+ * on top of {@code preload} existing rows. Random keys touch a random leaf of the index per
+ * row; time-ordered keys append to the rightmost leaf. The {@code indexPages} aux counter is
+ * the primary key's size afterwards, which shows the page splits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class IdIndexBenchmark {
+
+    @Param({"random", "time-ordered"})
+    public String ids;
+
+    @Param({"1000000"})
+    public int preload;
+
+    @Param({"200000"})
+    public int rows;
+
+    private EmbeddedPostgres pg;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Index {
+        public long indexPages;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(pg.getPostgresDatabase());
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        dataSource.close();
+        pg.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        jdbc.execute("drop table if exists events");
+        jdbc.execute("create table events (id uuid primary key, payload varchar(64) not null)");
+        insert(preload);
+        jdbc.execute("vacuum analyze events");
+    }
+
+    @Benchmark
+    public int insert(Index index) {
+        insert(rows);
+        Long pages = jdbc.queryForObject("select pg_relation_size('events_pkey') / current_setting('block_size')::int", Long.class);
+        index.indexPages = pages == null ? 0 : pages;
+        return rows;
+    }
+
+    private void insert(int count) {
+        List<Object[]> batch = new ArrayList<>(1000);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[] {id(), "order.created"});
+            if (batch.size() == 1000) {
+                jdbc.batchUpdate("insert into events (id, payload) values (?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) jdbc.batchUpdate("insert into events (id, payload) values (?, ?)", batch);
+    }
+
+    private UUID id() {
+        return ids.equals("random") ? UUID.randomUUID() : TimeOrderedIds.next();
+    }
+}
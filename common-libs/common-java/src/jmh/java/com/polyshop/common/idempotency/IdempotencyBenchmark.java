@@ -0,0 +1,105 @@
+package com.polyshop.common.idempotency;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Messages per second through a consumer whose handler inserts one row, with {@code dupRate}
+ * of deliveries being redeliveries of a recent event. none runs the handler with no
+ * deduplication (the baseline, and wrong), lookup is the design doc's algorithm (select from
+ * processed_events, handle, insert), guard is IdempotencyGuard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+public class IdempotencyBenchmark {
+
+    private static final int RECENT = 4096;
+
+    @Param({"none", "lookup", "guard"})
+    public String mode;
+
+    @Param({"0.1"})
+    public double dupRate;
+
+    private EmbeddedPostgres pg;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private IdempotencyGuard guard;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicReferenceArray<String> recent = new AtomicReferenceArray<>(RECENT);
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(pg.getPostgresDatabase());
+        config.setMaximumPoolSize(8);
+        dataSource = new HikariDataSource(config);
+        new ResourceDatabasePopulator(new ClassPathResource("db/idempotency/processed-events-postgresql.sql")).execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table stock_movements (event_id varchar(64), quantity int)");
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(tm);
+        guard = new IdempotencyGuard(new ProcessedEventStore(jdbc), tm, new IdempotencyGuard.GuardSettings(
+                "bench", Duration.ofHours(1), Duration.ofMinutes(10), 200_000, 5_000_000, 0.01, Duration.ofHours(1), 5000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        dataSource.close();
+        pg.close();
+    }
+
+    @Benchmark
+    public boolean consume() {
+        String eventId = next();
+        Runnable handler = () -> jdbc.update("insert into stock_movements (event_id, quantity) values (?, 1)", eventId);
+        return switch (mode) {
+            case "none" -> {
+                tx.executeWithoutResult(s -> handler.run());
+                yield true;
+            }
+            case "lookup" -> Boolean.TRUE.equals(tx.execute(s -> {
+                Boolean exists = jdbc.queryForObject(
+                        "select exists(select 1 from processed_events where consumer = 'bench' and event_id = ?)", Boolean.class, eventId);
+                if (Boolean.TRUE.equals(exists)) return false;
+                handler.run();
+                jdbc.update("insert into processed_events (consumer, event_id) values ('bench', ?) on conflict do nothing", eventId);
+                return true;
+            }));
+            default -> guard.handle(eventId, "inventory.stock.reserved.v1", handler);
+        };
+    }
+
+    private String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long n = delivered.getAndIncrement();
+        if (n > RECENT && random.nextDouble() < dupRate) {
+            String again = recent.get(random.nextInt(RECENT));
+            if (again != null) return again;
+        }
+        String id = UUID.randomUUID().toString();
+        recent.set((int) (n % RECENT), id);
+        return id;
+    }
+}
@@ -0,0 +1,159 @@
+package com.polyshop.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.polyshop.common.events.EventEnvelope;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to drain {@code events} outbox rows spread over 500 aggregates into a single-node embedded
+ * Kafka broker (8 partitions). per-row is the loop from the messaging design doc: select a page,
+ * then send and mark each row one at a time. batched is OutboxPublisher with {@code workers}
+ * threads claiming with SKIP LOCKED.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class OutboxBenchmark {
+
+    private static final String TOPIC = "bench.event.v1";
+
+    @Param({"per-row", "batched"})
+    public String mode;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    @Param({"20000"})
+    public int events;
+
+    private EmbeddedPostgres pg;
+    private EmbeddedKafkaKraftBroker kafka;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+    private OutboxWriter writer;
+    private OutboxPublisher publisher;
+    private ExecutorService pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(pg.getPostgresDatabase());
+        config.setMaximumPoolSize(8);
+        dataSource = new HikariDataSource(config);
+        new ResourceDatabasePopulator(new ClassPathResource("db/outbox/outbox-postgresql.sql")).execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(tm);
+
+        kafka = new EmbeddedKafkaKraftBroker(1, 8, TOPIC);
+        kafka.afterPropertiesSet();
+        producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                // per-row waits for every ack, so lingering would only add latency to it
+                ProducerConfig.LINGER_MS_CONFIG, mode.equals("per-row") ? 0 : 5));
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        writer = new OutboxWriter(jdbc, mapper);
+        publisher = new OutboxPublisher(jdbc, tm, new KafkaOutboxSender(kafkaTemplate), mapper, new OutboxPublisher.OutboxSettings(
+                "bench", 500, workers, Duration.ofMillis(100), Duration.ofSeconds(30), Duration.ofSeconds(1), 10, Duration.ofHours(1), Duration.ofHours(1)));
+        pool = Executors.newFixedThreadPool(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+        producerFactory.destroy();
+        kafka.destroy();
+        dataSource.close();
+        pg.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        jdbc.execute("truncate outbox_events");
+        tx.executeWithoutResult(s -> {
+            List<EventEnvelope<?>> batch = new ArrayList<>(1000);
+            for (int i = 0; i < events; i++) {
+                batch.add(EventEnvelope.of(TOPIC, "order", "order-" + (i % 500), Map.of("n", i, "status", "PLACED")));
+                if (batch.size() == 1000) {
+                    writer.appendAll(batch);
+                    batch.clear();
+                }
+            }
+            writer.appendAll(batch);
+        });
+    }
+
+    @Benchmark
+    public int drain() throws Exception {
+        if (mode.equals("per-row")) return perRow();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            futures.add(pool.submit(() -> {
+                int n = 0;
+                while (true) {
+                    int published = publisher.publishBatch();
+                    n += published;
+                    if (published == 0 && pending() == 0) return n;
+                }
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> f : futures) total += f.get();
+        if (total != events) throw new IllegalStateException("published " + total + " of " + events);
+        return total;
+    }
+
+    private int perRow() throws Exception {
+        int n = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbc.queryForList(
+                    "select id, aggregate_id, event_type, payload::text as payload from outbox_events where not processed order by created_at limit 100");
+            if (rows.isEmpty()) return n;
+            for (Map<String, Object> row : rows) {
+                kafkaTemplate.send((String) row.get("event_type"), (String) row.get("aggregate_id"), (String) row.get("payload")).get();
+                jdbc.update("update outbox_events set processed = true, processed_at = now() where id = ?", (UUID) row.get("id"));
+                n++;
+            }
+        }
+    }
+
+    private int pending() {
+        Integer count = jdbc.queryForObject("select count(*) from outbox_events where not processed", Integer.class);
+        return count == null ? 0 : count;
+    }
+}
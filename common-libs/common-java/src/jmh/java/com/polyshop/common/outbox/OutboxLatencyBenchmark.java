@@ -0,0 +1,149 @@
+package com.polyshop.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One op commits a single outbox event and waits until the publisher has handed it to the
+ * sender, so the sample-time histogram is the end-to-end publish latency. The sender acks
+ * immediately, isolating the wake-up path from broker latency. poll-N is the fixed-interval
+ * publisher, notify is LISTEN/NOTIFY with the fallback poll at {@code fallbackMs}. The
+ * {@code claims} counter is the publisher's claim queries, most of which are idle polls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class OutboxLatencyBenchmark {
+
+    @Param({"poll-500", "poll-50", "notify"})
+    public String mode;
+
+    @Param({"30000"})
+    public int fallbackMs;
+
+    private EmbeddedPostgres pg;
+    private HikariDataSource dataSource;
+    private TransactionTemplate tx;
+    private OutboxWriter writer;
+    private OutboxPublisher publisher;
+    private PgNotifyOutboxTrigger trigger;
+
+    private final Map<String, CompletableFuture<Void>> waiting = new ConcurrentHashMap<>();
+    private final LongAdder claimQueries = new LongAdder();
+    private final AtomicLong aggregates = new AtomicLong();
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Claims {
+        public long claims;
+        long start;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pg = start();
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(pg.getPostgresDatabase());
+        config.setMaximumPoolSize(4);
+        dataSource = new HikariDataSource(config);
+        new ResourceDatabasePopulator(new ClassPathResource("db/outbox/outbox-postgresql.sql")).execute(dataSource);
+        JdbcTemplate jdbc = new CountingJdbcTemplate(dataSource, claimQueries);
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(tm);
+
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        writer = new OutboxWriter(jdbc, mapper);
+        Duration poll = Duration.ofMillis(50);
+        if (mode.equals("poll-500")) poll = Duration.ofMillis(500);
+        if (mode.equals("notify")) {
+            ResourceDatabasePopulator notify = new ResourceDatabasePopulator(new ClassPathResource("db/outbox/outbox-notify-postgresql.sql"));
+            notify.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+            notify.execute(dataSource);
+            trigger = new PgNotifyOutboxTrigger(dataSource, Duration.ofSeconds(1));
+            poll = Duration.ofMillis(fallbackMs);
+        }
+        OutboxSender sender = (topic, key, value) -> {
+            CompletableFuture<Void> f = waiting.remove(key);
+            if (f != null) f.complete(null);
+            return CompletableFuture.completedFuture(null);
+        };
+        publisher = new OutboxPublisher(jdbc, tm, sender, mapper, new OutboxPublisher.OutboxSettings(
+                "bench", 500, 1, poll, Duration.ofSeconds(10), Duration.ofSeconds(1), 10, Duration.ofHours(1), Duration.ofHours(1)),
+                trigger);
+        if (trigger != null) trigger.start();
+        publisher.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        publisher.stop();
+        if (trigger != null) trigger.close();
+        dataSource.close();
+        pg.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetClaims(Claims claims) {
+        claims.start = claimQueries.sum();
+        claims.claims = 0;
+    }
+
+    @Benchmark
+    public void publishOne(Claims claims) throws Exception {
+        String aggregateId = "order-" + aggregates.incrementAndGet();
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        waiting.put(aggregateId, published);
+        tx.executeWithoutResult(s -> writer.append("bench.event.v1", "order", aggregateId, Map.of("status", "PLACED")));
+        published.get(30, TimeUnit.SECONDS);
+        claims.claims = claimQueries.sum() - claims.start;
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // the publisher's only query(String, RowMapper, Object...) call is its claim
+    private static final class CountingJdbcTemplate extends JdbcTemplate {
+
+        private final LongAdder count;
+
+        CountingJdbcTemplate(DataSource dataSource, LongAdder count) {
+            super(dataSource);
+            this.count = count;
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            count.increment();
+            return super.query(sql, rowMapper, args);
+        }
+    }
+}
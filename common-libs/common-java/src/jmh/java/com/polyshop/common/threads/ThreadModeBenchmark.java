@@ -0,0 +1,94 @@
+package com.polyshop.common.threads;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One op is a burst of {@code requests} concurrent request handlers, each making a blocking
+ * remote call ({@code ioMs}) and then a short query holding a pooled connection ({@code dbMs}).
+ * platform runs them on a 200-thread pool (Tomcat's default), virtual on a thread per request;
+ * virtual-pinned makes the remote call inside {@code synchronized}, as a pinning library would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ThreadModeBenchmark {
+
+    @Param({"platform", "virtual", "virtual-gated", "virtual-pinned"})
+    public String mode;
+
+    @Param({"1000"})
+    public int requests;
+
+    @Param({"10"})
+    public int ioMs;
+
+    @Param({"1"})
+    public int dbMs;
+
+    @Param({"20"})
+    public int poolSize;
+
+    private HikariDataSource pool;
+    private DataSource dataSource;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:threads;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(60_000);
+        pool = new HikariDataSource(config);
+        dataSource = mode.equals("virtual-gated") ? new PermitGatedDataSource(pool, poolSize, Duration.ofSeconds(60)) : pool;
+        executor = mode.equals("platform") ? Executors.newFixedThreadPool(200) : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        pool.close();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Future<Integer>> futures = new ArrayList<>(requests);
+        boolean pinned = mode.equals("virtual-pinned");
+        for (int i = 0; i < requests; i++) futures.add(executor.submit(() -> handle(pinned)));
+        int sum = 0;
+        for (Future<Integer> f : futures) sum += f.get();
+        return sum;
+    }
+
+    private int handle(boolean pinned) throws Exception {
+        if (pinned) {
+            Object monitor = new Object();
+            synchronized (monitor) {
+                Thread.sleep(ioMs);
+            }
+        } else {
+            Thread.sleep(ioMs);
+        }
+        try (Connection c = dataSource.getConnection(); Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SELECT 1")) {
+            rs.next();
+            Thread.sleep(dbMs);
+            return rs.getInt(1);
+        }
+    }
+}
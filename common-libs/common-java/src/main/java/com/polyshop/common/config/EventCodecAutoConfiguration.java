@@ -0,0 +1,47 @@
+package com.polyshop.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.common.events.codec.BinaryEventCodec;
+import com.polyshop.common.events.codec.EventCodec;
+import com.polyshop.common.events.codec.FileSchemaRegistry;
+import com.polyshop.common.events.codec.JsonEventCodec;
+import com.polyshop.common.events.codec.SchemaRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.nio.file.Path;
+
+/**
+ * The {@link EventCodec} services encode events with. JSON unless
+ * {@code polyshop.events.codec=binary}; the binary codec still reads JSON, so consumers can
+ * switch first.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration")
+public class EventCodecAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "polyshop.events.codec", havingValue = "binary")
+    public SchemaRegistry eventSchemaRegistry(
+            @Value("${polyshop.events.schema-registry.file:event-schemas.json}") String file
+    ) {
+        return new FileSchemaRegistry(Path.of(file));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "polyshop.events.codec", havingValue = "binary")
+    public EventCodec binaryEventCodec(SchemaRegistry registry, ObjectMapper objectMapper) {
+        return new BinaryEventCodec(registry, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "polyshop.events.codec", havingValue = "json", matchIfMissing = true)
+    public EventCodec jsonEventCodec(ObjectMapper objectMapper) {
+        return new JsonEventCodec(objectMapper);
+    }
+}
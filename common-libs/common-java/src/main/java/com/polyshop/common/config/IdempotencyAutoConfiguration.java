@@ -0,0 +1,89 @@
+package com.polyshop.common.config;
+
+import com.polyshop.common.idempotency.IdempotencyGuard;
+import com.polyshop.common.idempotency.ProcessedEventStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Consumer-side deduplication for services that set {@code polyshop.idempotency.enabled=true}.
+ * The {@code processed_events} table is created on startup unless
+ * {@code polyshop.idempotency.initialize-schema=false}.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration",
+        "org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration"})
+@ConditionalOnClass(JdbcTemplate.class)
+@ConditionalOnProperty(name = "polyshop.idempotency.enabled", havingValue = "true")
+public class IdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "polyshop.idempotency.initialize-schema", havingValue = "true", matchIfMissing = true)
+    public DataSourceScriptDatabaseInitializer processedEventsSchemaInitializer(DataSource dataSource) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of("classpath:db/idempotency/processed-events-postgresql.sql"));
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ProcessedEventStore processedEventStore(JdbcTemplate jdbcTemplate) {
+        return new ProcessedEventStore(jdbcTemplate);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public IdempotencyGuard idempotencyGuard(
+            ProcessedEventStore store,
+            PlatformTransactionManager transactionManager,
+            @Value("${polyshop.idempotency.consumer:${spring.application.name:unknown}}") String consumer,
+            @Value("${polyshop.idempotency.ttl-hours:168}") long ttlHours,
+            @Value("${polyshop.idempotency.recent.window-ms:600000}") long recentWindowMs,
+            @Value("${polyshop.idempotency.recent.max-entries:200000}") int recentMaxEntries,
+            @Value("${polyshop.idempotency.bloom.expected-per-ttl:5000000}") int expectedPerTtl,
+            @Value("${polyshop.idempotency.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${polyshop.idempotency.purge-interval-ms:600000}") long purgeIntervalMs,
+            @Value("${polyshop.idempotency.purge-batch-size:5000}") int purgeBatchSize
+    ) {
+        return new IdempotencyGuard(store, transactionManager, new IdempotencyGuard.GuardSettings(
+                consumer, Duration.ofHours(ttlHours), Duration.ofMillis(recentWindowMs), recentMaxEntries,
+                expectedPerTtl, falsePositiveRate, Duration.ofMillis(purgeIntervalMs), purgeBatchSize));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class Metrics {
+
+        @Bean
+        public MeterBinder idempotencyMetrics(ObjectProvider<IdempotencyGuard> guard) {
+            return registry -> guard.ifAvailable(g -> {
+                FunctionCounter.builder("polyshop.idempotency.events", g, IdempotencyGuard::getProcessedCount).tag("result", "processed").register(registry);
+                FunctionCounter.builder("polyshop.idempotency.events", g, IdempotencyGuard::getMemoryDuplicateCount).tag("result", "duplicate-memory").register(registry);
+                FunctionCounter.builder("polyshop.idempotency.events", g, IdempotencyGuard::getStoredDuplicateCount).tag("result", "duplicate-stored").register(registry);
+                FunctionCounter.builder("polyshop.idempotency.lookups", g, IdempotencyGuard::getLookupCount)
+                        .description("bloom hits confirmed against processed_events")
+                        .register(registry);
+                Gauge.builder("polyshop.idempotency.recent.size", g, IdempotencyGuard::getRecentSize).register(registry);
+            });
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.polyshop.common.config;
+
+import com.polyshop.common.security.IdentityHeaderAuthenticationFilter;
+import com.polyshop.common.security.IdentityHeaderVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@ConditionalOnProperty(name = "polyshop.security.identity.secret")
+public class IdentityHeaderAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdentityHeaderVerifier identityHeaderVerifier(@Value("${polyshop.security.identity.secret}") String secret) {
+        return new IdentityHeaderVerifier(secret);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdentityHeaderAuthenticationFilter identityHeaderAuthenticationFilter(IdentityHeaderVerifier verifier) {
+        return new IdentityHeaderAuthenticationFilter(verifier);
+    }
+
+    // services add the filter to their SecurityFilterChain, so keep it out of the servlet filter chain
+    @Bean
+    public FilterRegistrationBean<IdentityHeaderAuthenticationFilter> identityHeaderAuthenticationFilterRegistration(IdentityHeaderAuthenticationFilter filter) {
+        FilterRegistrationBean<IdentityHeaderAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
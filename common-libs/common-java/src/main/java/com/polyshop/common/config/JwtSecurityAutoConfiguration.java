@@ -0,0 +1,54 @@
+package com.polyshop.common.config;
+
+import com.polyshop.common.security.JwksClient;
+import com.polyshop.common.security.JwtAuthenticationFilter;
+import com.polyshop.common.security.JwtVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+import java.net.URI;
+import java.time.Duration;
+
+@AutoConfiguration
+@ConditionalOnProperty(name = "polyshop.security.jwt.jwks-uri")
+public class JwtSecurityAutoConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public JwksClient jwksClient(
+            @Value("${polyshop.security.jwt.jwks-uri}") String jwksUri,
+            @Value("${polyshop.security.jwt.refresh-interval-seconds:300}") long refreshSeconds,
+            @Value("${polyshop.security.jwt.min-refetch-interval-seconds:30}") long minRefetchSeconds,
+            @Value("${polyshop.security.jwt.timeout-ms:2000}") long timeoutMs
+    ) {
+        return new JwksClient(URI.create(jwksUri), Duration.ofSeconds(refreshSeconds), Duration.ofSeconds(minRefetchSeconds), Duration.ofMillis(timeoutMs));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtVerifier jwtVerifier(
+            JwksClient jwksClient,
+            @Value("${polyshop.security.jwt.issuer:polyshop-auth}") String issuer,
+            @Value("${polyshop.security.jwt.clock-skew-seconds:60}") long clockSkewSeconds
+    ) {
+        return new JwtVerifier(jwksClient, issuer, Duration.ofSeconds(clockSkewSeconds));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtVerifier jwtVerifier) {
+        return new JwtAuthenticationFilter(jwtVerifier);
+    }
+
+    // services add the filter to their SecurityFilterChain, so keep it out of the servlet filter chain
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
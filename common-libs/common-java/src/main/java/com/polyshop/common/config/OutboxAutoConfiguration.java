@@ -0,0 +1,152 @@
+package com.polyshop.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.common.outbox.KafkaOutboxSender;
+import com.polyshop.common.outbox.OutboxPublisher;
+import com.polyshop.common.outbox.OutboxSender;
+import com.polyshop.common.outbox.OutboxTrigger;
+import com.polyshop.common.outbox.OutboxWriter;
+import com.polyshop.common.outbox.PgNotifyOutboxTrigger;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for services that set {@code polyshop.outbox.enabled=true}. The
+ * {@code outbox_events} table is created on startup unless
+ * {@code polyshop.outbox.initialize-schema=false}. With
+ * {@code polyshop.outbox.publisher.notify.enabled=true} inserts also fire {@code pg_notify},
+ * and the publisher falls back to a slow poll.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration",
+        "org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration",
+        "org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration"})
+@ConditionalOnClass(JdbcTemplate.class)
+@ConditionalOnProperty(name = "polyshop.outbox.enabled", havingValue = "true")
+public class OutboxAutoConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "polyshop.outbox.initialize-schema", havingValue = "true", matchIfMissing = true)
+    public DataSourceScriptDatabaseInitializer outboxSchemaInitializer(DataSource dataSource) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of("classpath:db/outbox/outbox-postgresql.sql"));
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxWriter outboxWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        return new OutboxWriter(jdbcTemplate, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "polyshop.outbox.publisher.enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxPublisher outboxPublisher(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            OutboxSender outboxSender,
+            ObjectMapper objectMapper,
+            ObjectProvider<OutboxTrigger> outboxTrigger,
+            @Value("${polyshop.outbox.source:${spring.application.name:unknown}}") String source,
+            @Value("${polyshop.outbox.publisher.batch-size:500}") int batchSize,
+            @Value("${polyshop.outbox.publisher.workers:1}") int workers,
+            @Value("${polyshop.outbox.publisher.poll-interval-ms:500}") long pollIntervalMs,
+            @Value("${polyshop.outbox.publisher.notify.fallback-poll-ms:30000}") long fallbackPollMs,
+            @Value("${polyshop.outbox.publisher.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${polyshop.outbox.publisher.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${polyshop.outbox.publisher.max-attempts:10}") int maxAttempts,
+            @Value("${polyshop.outbox.retention-hours:24}") long retentionHours,
+            @Value("${polyshop.outbox.cleanup-interval-ms:300000}") long cleanupIntervalMs
+    ) {
+        OutboxTrigger trigger = outboxTrigger.getIfAvailable();
+        long pollMs = trigger == null ? pollIntervalMs : fallbackPollMs;
+        return new OutboxPublisher(jdbcTemplate, transactionManager, outboxSender, objectMapper, new OutboxPublisher.OutboxSettings(
+                source, batchSize, workers, Duration.ofMillis(pollMs), Duration.ofMillis(sendTimeoutMs),
+                Duration.ofMillis(retryBackoffMs), maxAttempts, Duration.ofHours(retentionHours), Duration.ofMillis(cleanupIntervalMs)),
+                trigger);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.postgresql.PGConnection")
+    @ConditionalOnProperty(name = "polyshop.outbox.publisher.notify.enabled", havingValue = "true")
+    static class Notify {
+
+        @Bean(initMethod = "start", destroyMethod = "close")
+        @ConditionalOnMissingBean(OutboxTrigger.class)
+        public PgNotifyOutboxTrigger outboxTrigger(
+                DataSource dataSource,
+                @Value("${polyshop.outbox.publisher.notify.reconnect-backoff-ms:5000}") long reconnectBackoffMs
+        ) {
+            return new PgNotifyOutboxTrigger(dataSource, Duration.ofMillis(reconnectBackoffMs));
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "polyshop.outbox.initialize-schema", havingValue = "true", matchIfMissing = true)
+        public DataSourceScriptDatabaseInitializer outboxNotifyInitializer(
+                DataSource dataSource,
+                // runs after the table exists
+                @Qualifier("outboxSchemaInitializer") DataSourceScriptDatabaseInitializer outboxSchemaInitializer
+        ) {
+            DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+            settings.setSchemaLocations(List.of("classpath:db/outbox/outbox-notify-postgresql.sql"));
+            // the trigger function body has its own semicolons
+            settings.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+            settings.setMode(DatabaseInitializationMode.ALWAYS);
+            return new DataSourceScriptDatabaseInitializer(dataSource, settings);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(KafkaTemplate.class)
+    static class Kafka {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public OutboxSender outboxSender(KafkaTemplate<String, String> kafkaTemplate) {
+            return new KafkaOutboxSender(kafkaTemplate);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class Metrics {
+
+        @Bean
+        public MeterBinder outboxMetrics(ObjectProvider<OutboxPublisher> publisher) {
+            return registry -> publisher.ifAvailable(p -> {
+                FunctionCounter.builder("polyshop.outbox.events", p, OutboxPublisher::getPublishedCount).tag("result", "published").register(registry);
+                FunctionCounter.builder("polyshop.outbox.events", p, OutboxPublisher::getFailedCount).tag("result", "failed").register(registry);
+                FunctionCounter.builder("polyshop.outbox.events", p, OutboxPublisher::getAbandonedCount).tag("result", "abandoned").register(registry);
+                Timer latency = Timer.builder("polyshop.outbox.publish.latency")
+                        .description("time from an outbox insert to the broker's acknowledgement")
+                        .publishPercentileHistogram()
+                        .register(registry);
+                p.setLatencyRecorder(nanos -> latency.record(nanos, TimeUnit.NANOSECONDS));
+            });
+        }
+    }
+}
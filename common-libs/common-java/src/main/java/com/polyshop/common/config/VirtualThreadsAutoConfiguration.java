@@ -0,0 +1,92 @@
+package com.polyshop.common.config;
+
+import com.polyshop.common.threads.PermitGatedDataSource;
+import com.polyshop.common.threads.VirtualThreadPinningMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Extras for services running with {@code spring.threads.virtual.enabled=true}, where Spring Boot
+ * already moves Tomcat request handling, {@code @Async} and {@code @Scheduled} onto virtual
+ * threads: pinning diagnostics, and a permit gate in front of every DataSource.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration")
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsAutoConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "polyshop.threads.pinning.enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${polyshop.threads.pinning.threshold-ms:20}") long thresholdMs,
+            @Value("${polyshop.threads.pinning.stack-depth:12}") int stackDepth
+    ) {
+        return new VirtualThreadPinningMonitor(Duration.ofMillis(thresholdMs), stackDepth);
+    }
+
+    @Bean
+    @ConditionalOnClass(name = "org.springframework.jdbc.datasource.DelegatingDataSource")
+    @ConditionalOnProperty(name = "polyshop.threads.db-permits.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor permitGatedDataSourcePostProcessor(Environment env) {
+        int maxPermits = env.getProperty("polyshop.threads.db-permits.max", Integer.class, 0);
+        long timeoutMs = env.getProperty("polyshop.threads.db-permits.timeout-ms", Long.class, 30000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof PermitGatedDataSource) return bean;
+                return new PermitGatedDataSource(ds, maxPermits > 0 ? maxPermits : poolSize(ds), Duration.ofMillis(timeoutMs));
+            }
+        };
+    }
+
+    private static final boolean HIKARI_PRESENT = ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource", null);
+
+    // one permit per pooled connection; 10 is Hikari's default pool size
+    private static int poolSize(DataSource ds) {
+        if (HIKARI_PRESENT && ds instanceof HikariDataSource hikari) return hikari.getMaximumPoolSize();
+        return 10;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class Metrics {
+
+        @Bean
+        public MeterBinder virtualThreadPinningMetrics(ObjectProvider<VirtualThreadPinningMonitor> monitor) {
+            return registry -> monitor.ifAvailable(m -> FunctionCounter.builder("jvm.threads.virtual.pinned", m, VirtualThreadPinningMonitor::getPinnedCount)
+                    .description("virtual threads that blocked while pinned to their carrier")
+                    .register(registry));
+        }
+
+        @Bean
+        @ConditionalOnClass(name = "org.springframework.jdbc.datasource.DelegatingDataSource")
+        public MeterBinder databasePermitMetrics(ObjectProvider<DataSource> dataSources) {
+            return registry -> dataSources.orderedStream()
+                    .filter(PermitGatedDataSource.class::isInstance)
+                    .map(PermitGatedDataSource.class::cast)
+                    .findFirst()
+                    .ifPresent(ds -> {
+                        Gauge.builder("db.permits.available", ds, PermitGatedDataSource::getAvailablePermits).register(registry);
+                        Gauge.builder("db.permits.waiting", ds, PermitGatedDataSource::getWaiting).register(registry);
+                    });
+        }
+    }
+}
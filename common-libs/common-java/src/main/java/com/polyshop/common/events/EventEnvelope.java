@@ -1,11 +1,11 @@
 package com.polyshop.common.events;
 
+import com.polyshop.common.id.TimeOrderedIds;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.Instant;
 import java.util.Map;
-import java.util.UUID;
 
 @Getter
 @Setter
@@ -22,7 +22,7 @@ public class EventEnvelope<T> {
     private Map<String, Object> metadata;
 
     public EventEnvelope() {
-        this.eventId = UUID.randomUUID().toString();
+        this.eventId = TimeOrderedIds.nextString();
         this.occurredAt = Instant.now();
     }
 
@@ -0,0 +1,214 @@
+package com.polyshop.common.events.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import com.polyshop.common.events.EventEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact framing for {@link EventEnvelope}: a zero byte, the schema id as a varint, then the
+ * envelope fields in a fixed order. Event and aggregate type are carried by the schema id, ids
+ * that are UUIDs take 16 bytes, and {@code occurredAt} is two varints. Metadata and payload are
+ * Smile, which writes {@code BigDecimal} and {@code UUID} values in binary and back-references
+ * repeated field names.
+ *
+ * <p>A message that does not start with the zero byte is decoded as JSON, so consumers can be
+ * switched before producers.
+ */
+public class BinaryEventCodec implements EventCodec {
+
+    static final byte MAGIC = 0;
+
+    private static final byte NULL = 0;
+    private static final byte UUID_BYTES = 1;
+    private static final byte UTF8 = 2;
+
+    private static final TypeReference<Map<String, Object>> METADATA = new TypeReference<>() {};
+
+    private final SchemaRegistry registry;
+    private final JsonEventCodec json;
+    private final ObjectMapper smile;
+
+    public BinaryEventCodec(SchemaRegistry registry, ObjectMapper jsonMapper) {
+        this.registry = registry;
+        this.json = new JsonEventCodec(jsonMapper);
+        SmileFactory factory = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build();
+        this.smile = new ObjectMapper(factory).findAndRegisterModules();
+    }
+
+    @Override
+    public String contentType() {
+        return "application/x-polyshop-event";
+    }
+
+    @Override
+    public byte[] encode(EventEnvelope<?> envelope) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            out.write(MAGIC);
+            writeVarint(out, registry.idFor(envelope.getEventType(), envelope.getAggregateType()));
+            writeId(out, envelope.getEventId());
+            writeId(out, envelope.getAggregateId());
+            writeId(out, envelope.getCorrelationId());
+            writeId(out, envelope.getCausationId());
+            Instant at = envelope.getOccurredAt();
+            if (at == null) {
+                out.write(NULL);
+            } else {
+                out.write(1);
+                writeVarint(out, zigzag(at.getEpochSecond()));
+                writeVarint(out, at.getNano());
+            }
+            Map<String, Object> metadata = envelope.getMetadata();
+            if (metadata == null) {
+                out.write(NULL);
+            } else {
+                byte[] encoded = smile.writeValueAsBytes(metadata);
+                writeVarint(out, encoded.length + 1L);
+                out.write(encoded);
+            }
+            smile.writeValue(out, envelope.getPayload());
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("cannot encode " + envelope.getEventType(), ex);
+        }
+    }
+
+    @Override
+    public <T> EventEnvelope<T> decode(byte[] data, Class<T> payloadType) {
+        if (data.length == 0 || data[0] != MAGIC) return json.decode(data, payloadType);
+        try {
+            Reader in = new Reader(data);
+            in.pos = 1;
+            EventSchema schema = registry.resolve((int) in.varint());
+            EventEnvelope<T> env = new EventEnvelope<>();
+            env.setEventType(schema.eventType());
+            env.setAggregateType(schema.aggregateType());
+            env.setEventId(in.id());
+            env.setAggregateId(in.id());
+            env.setCorrelationId(in.id());
+            env.setCausationId(in.id());
+            if (data[in.pos++] == NULL) {
+                env.setOccurredAt(null);
+            } else {
+                long seconds = unzigzag(in.varint());
+                env.setOccurredAt(Instant.ofEpochSecond(seconds, in.varint()));
+            }
+            int metadataLength = (int) in.varint();
+            if (metadataLength > 0) {
+                env.setMetadata(smile.readValue(data, in.pos, metadataLength - 1, METADATA));
+                in.pos += metadataLength - 1;
+            }
+            env.setPayload(smile.readValue(data, in.pos, data.length - in.pos, payloadType));
+            return env;
+        } catch (IOException | RuntimeException ex) {
+            throw new IllegalArgumentException("cannot decode event as " + payloadType.getSimpleName(), ex);
+        }
+    }
+
+    private static void writeId(ByteArrayOutputStream out, String id) {
+        if (id == null) {
+            out.write(NULL);
+            return;
+        }
+        UUID uuid = asUuid(id);
+        if (uuid != null) {
+            out.write(UUID_BYTES);
+            writeLong(out, uuid.getMostSignificantBits());
+            writeLong(out, uuid.getLeastSignificantBits());
+            return;
+        }
+        byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+        out.write(UTF8);
+        writeVarint(out, utf8.length);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    // only canonical lower-case UUIDs, so the string decodes back exactly as it was
+    private static UUID asUuid(String s) {
+        if (s.length() != 36 || s.charAt(8) != '-') return null;
+        try {
+            UUID uuid = UUID.fromString(s);
+            return uuid.toString().equals(s) ? uuid : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long v) {
+        for (int shift = 56; shift >= 0; shift -= 8) out.write((int) (v >>> shift));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IllegalArgumentException("malformed varint at " + pos);
+        }
+
+        String id() {
+            byte tag = data[pos++];
+            return switch (tag) {
+                case NULL -> null;
+                case UUID_BYTES -> {
+                    UUID uuid = new UUID(readLong(), readLong());
+                    yield uuid.toString();
+                }
+                case UTF8 -> {
+                    int length = (int) varint();
+                    String s = new String(data, pos, length, StandardCharsets.UTF_8);
+                    pos += length;
+                    yield s;
+                }
+                default -> throw new IllegalArgumentException("unknown id tag " + tag);
+            };
+        }
+
+        private long readLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | (data[pos++] & 0xFF);
+            return v;
+        }
+    }
+}
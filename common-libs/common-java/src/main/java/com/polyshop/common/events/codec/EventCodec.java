@@ -0,0 +1,18 @@
+package com.polyshop.common.events.codec;
+
+import com.polyshop.common.events.EventEnvelope;
+
+/**
+ * Turns an {@link EventEnvelope} into message bytes and back.
+ */
+public interface EventCodec {
+
+    /**
+     * Value for the {@code content-type} message header.
+     */
+    String contentType();
+
+    byte[] encode(EventEnvelope<?> envelope);
+
+    <T> EventEnvelope<T> decode(byte[] data, Class<T> payloadType);
+}
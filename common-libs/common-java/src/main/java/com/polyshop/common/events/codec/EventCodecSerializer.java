@@ -0,0 +1,35 @@
+package com.polyshop.common.events.codec;
+
+import com.polyshop.common.events.EventEnvelope;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka value serializer for {@code KafkaTemplate<String, EventEnvelope<?>>}. Tags each record
+ * with a {@code content-type} header so tools can tell the formats apart.
+ */
+public class EventCodecSerializer implements Serializer<EventEnvelope<?>> {
+
+    public static final String CONTENT_TYPE = "content-type";
+
+    private final EventCodec codec;
+    private final byte[] contentType;
+
+    public EventCodecSerializer(EventCodec codec) {
+        this.codec = codec;
+        this.contentType = codec.contentType().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] serialize(String topic, EventEnvelope<?> data) {
+        return data == null ? null : codec.encode(data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, EventEnvelope<?> data) {
+        if (data != null) headers.remove(CONTENT_TYPE).add(CONTENT_TYPE, contentType);
+        return serialize(topic, data);
+    }
+}
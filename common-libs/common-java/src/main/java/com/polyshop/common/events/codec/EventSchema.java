@@ -0,0 +1,6 @@
+package com.polyshop.common.events.codec;
+
+/**
+ * What a schema id stands for. The binary codec writes the id instead of these strings.
+ */
+public record EventSchema(int id, String eventType, String aggregateType) {}
@@ -0,0 +1,110 @@
+package com.polyshop.common.events.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stand-in for a schema registry service: ids live in one JSON file shared by every service on
+ * the host (or a mounted volume). Lookups are served from memory. A new event type, or an id
+ * this process has not seen, re-reads the file under an OS file lock; new ids are appended and
+ * the file is replaced atomically. Ids are never reused or renumbered.
+ */
+public class FileSchemaRegistry implements SchemaRegistry {
+
+    private static final TypeReference<List<EventSchema>> SCHEMAS = new TypeReference<>() {};
+
+    private final Path file;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<Integer, EventSchema> byId = new ConcurrentHashMap<>();
+    private final Map<String, EventSchema> byName = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public FileSchemaRegistry(Path file) {
+        this.file = file;
+        if (Files.exists(file)) load(read());
+    }
+
+    @Override
+    public int idFor(String eventType, String aggregateType) {
+        EventSchema schema = byName.get(key(eventType, aggregateType));
+        if (schema != null) return schema.id();
+        return register(eventType, aggregateType).id();
+    }
+
+    @Override
+    public EventSchema resolve(int id) {
+        EventSchema schema = byId.get(id);
+        if (schema != null) return schema;
+        lock.lock();
+        try {
+            if (Files.exists(file)) load(read());
+        } finally {
+            lock.unlock();
+        }
+        schema = byId.get(id);
+        if (schema == null) throw new IllegalStateException("unknown event schema id " + id + " in " + file);
+        return schema;
+    }
+
+    private EventSchema register(String eventType, String aggregateType) {
+        lock.lock();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                List<EventSchema> schemas = Files.exists(file) ? read() : new ArrayList<>();
+                load(schemas);
+                EventSchema existing = byName.get(key(eventType, aggregateType));
+                if (existing != null) return existing;
+                int next = schemas.stream().mapToInt(EventSchema::id).max().orElse(0) + 1;
+                EventSchema schema = new EventSchema(next, eventType, aggregateType);
+                schemas.add(schema);
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                objectMapper.writeValue(tmp.toFile(), schemas);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                load(List.of(schema));
+                return schema;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("cannot register event schema in " + file, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<EventSchema> read() {
+        try {
+            return new ArrayList<>(objectMapper.readValue(file.toFile(), SCHEMAS));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("cannot read event schemas from " + file, ex);
+        }
+    }
+
+    private void load(List<EventSchema> schemas) {
+        for (EventSchema s : schemas) {
+            byId.put(s.id(), s);
+            byName.put(key(s.eventType(), s.aggregateType()), s);
+        }
+    }
+
+    private static String key(String eventType, String aggregateType) {
+        return eventType + '\u0000' + aggregateType;
+    }
+}
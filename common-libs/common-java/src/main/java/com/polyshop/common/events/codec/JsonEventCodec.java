@@ -0,0 +1,44 @@
+package com.polyshop.common.events.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.common.events.EventEnvelope;
+
+import java.io.IOException;
+
+/**
+ * The envelope as plain JSON, as every service has always sent it. Readable in any Kafka tool,
+ * so it stays the default and the format to switch to when debugging.
+ */
+public class JsonEventCodec implements EventCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonEventCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String contentType() {
+        return "application/json";
+    }
+
+    @Override
+    public byte[] encode(EventEnvelope<?> envelope) {
+        try {
+            return objectMapper.writeValueAsBytes(envelope);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("cannot encode " + envelope.getEventType(), ex);
+        }
+    }
+
+    @Override
+    public <T> EventEnvelope<T> decode(byte[] data, Class<T> payloadType) {
+        JavaType type = objectMapper.getTypeFactory().constructParametricType(EventEnvelope.class, payloadType);
+        try {
+            return objectMapper.readValue(data, type);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("cannot decode event as " + payloadType.getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.polyshop.common.events.codec;
+
+public interface SchemaRegistry {
+
+    /**
+     * The id for this event and aggregate type, registering it if it is new.
+     */
+    int idFor(String eventType, String aggregateType);
+
+    /**
+     * @throws IllegalStateException if the id is unknown
+     */
+    EventSchema resolve(int id);
+}
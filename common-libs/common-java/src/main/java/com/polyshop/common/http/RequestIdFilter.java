@@ -1,5 +1,6 @@
 package com.polyshop.common.http;
 
+import com.polyshop.common.id.TimeOrderedIds;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,7 +9,6 @@ import org.slf4j.MDC;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.UUID;
 
 public class RequestIdFilter extends OncePerRequestFilter {
 
@@ -24,7 +24,7 @@ public class RequestIdFilter extends OncePerRequestFilter {
         String requestId = request.getHeader(HEADER_NAME);
 
         if (requestId == null || requestId.isBlank()) {
-            requestId = UUID.randomUUID().toString();
+            requestId = TimeOrderedIds.nextString();
         }
 
         MDC.put(MDC_KEY, requestId);
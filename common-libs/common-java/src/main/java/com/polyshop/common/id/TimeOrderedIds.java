@@ -0,0 +1,132 @@
+package com.polyshop.common.id;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 ids (RFC 9562): 48 bits of Unix milliseconds, a 12-bit counter and 62 random bits.
+ * Ids sort by creation time, so keys made from them append to the right edge of a B-tree index
+ * instead of landing on a random page.
+ *
+ * <p>The last millisecond and counter live in one {@link AtomicLong} updated by compare-and-set,
+ * so ids from this JVM are strictly increasing across all threads, including virtual threads,
+ * without a lock. The counter restarts at a random value below 2048 each millisecond; if it
+ * runs out, or the wall clock steps back, the id borrows the next millisecond.
+ *
+ * <p>Random bits come from {@link ThreadLocalRandom}, not {@code SecureRandom}: these ids name
+ * things, they are not secrets, and must not be used as tokens.
+ */
+public final class TimeOrderedIds {
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] CROCKFORD_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(CROCKFORD_VALUES, (byte) -1);
+        for (int i = 0; i < CROCKFORD.length; i++) {
+            CROCKFORD_VALUES[CROCKFORD[i]] = (byte) i;
+            CROCKFORD_VALUES[Character.toLowerCase(CROCKFORD[i])] = (byte) i;
+        }
+    }
+
+    // millis << 12 | counter: adding one to a full counter carries into the next millisecond
+    private static final AtomicLong CLOCK = new AtomicLong();
+
+    private TimeOrderedIds() {
+    }
+
+    public static UUID next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long state;
+        while (true) {
+            long last = CLOCK.get();
+            long now = System.currentTimeMillis();
+            state = now > last >>> 12 ? now << 12 | random.nextInt(2048) : last + 1;
+            if (CLOCK.compareAndSet(last, state)) break;
+        }
+        long msb = (state >>> 12) << 16 | 0x7000L | (state & 0xFFF);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * A new id in the canonical 36-character form.
+     */
+    public static String nextString() {
+        return next().toString();
+    }
+
+    /**
+     * When the id was generated, to the millisecond. Only meaningful for version 7 ids.
+     */
+    public static Instant timestamp(UUID id) {
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+
+    /**
+     * The 16-byte big-endian form, which sorts the same as the id.
+     */
+    public static byte[] toBytes(UUID id) {
+        byte[] out = new byte[16];
+        putLong(out, 0, id.getMostSignificantBits());
+        putLong(out, 8, id.getLeastSignificantBits());
+        return out;
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes.length != 16) throw new IllegalArgumentException("expected 16 bytes, got " + bytes.length);
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    /**
+     * The 26-character Crockford base32 form used by ULID. Sorts the same as the id and is
+     * case-insensitive, which suits headers and URLs.
+     */
+    public static String toBase32(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        char[] out = new char[26];
+        // 128 bits as 26 five-bit digits: the first digit holds only the top 3 bits
+        out[0] = CROCKFORD[(int) (msb >>> 61)];
+        for (int i = 1; i < 13; i++) {
+            out[i] = CROCKFORD[(int) ((msb >>> (61 - 5 * i)) & 0x1F)];
+        }
+        // digit 13 straddles the halves: the last bit of msb and the top 4 of lsb
+        out[13] = CROCKFORD[(int) (((msb & 0x1) << 4) | (lsb >>> 60))];
+        for (int i = 14; i < 26; i++) {
+            out[i] = CROCKFORD[(int) ((lsb >>> (60 - 5 * (i - 13))) & 0x1F)];
+        }
+        return new String(out);
+    }
+
+    public static UUID fromBase32(String s) {
+        if (s.length() != 26) throw new IllegalArgumentException("expected 26 characters, got " + s.length());
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 26; i++) {
+            char c = s.charAt(i);
+            int v = c < 128 ? CROCKFORD_VALUES[c] : -1;
+            if (v < 0 || (i == 0 && v > 7)) throw new IllegalArgumentException("not a base32 id: " + s);
+            // shift the 128-bit value left by 5 and add the digit
+            msb = (msb << 5) | (lsb >>> 59);
+            lsb = (lsb << 5) | v;
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private static void putLong(byte[] out, int offset, long v) {
+        for (int i = 7; i >= 0; i--) {
+            out[offset + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] in, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = (v << 8) | (in[offset + i] & 0xFF);
+        return v;
+    }
+}
@@ -0,0 +1,174 @@
+package com.polyshop.common.idempotency;
+
+import com.polyshop.common.events.EventEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a consumer's handler at most once per {@link EventEnvelope#getEventId()}.
+ *
+ * <p>Ids committed recently by this instance are answered from memory: an exact set for the
+ * last {@code recentWindow}, then a rotating Bloom filter for the rest of the TTL, whose hits
+ * are confirmed with one read. Anything else runs the handler in a transaction that first
+ * inserts the {@code processed_events} row, so the record commits or rolls back with the
+ * handler's side effects and a redelivery to another replica is still caught. Rows older than
+ * the TTL are purged in chunks.
+ */
+public class IdempotencyGuard implements AutoCloseable {
+
+    private final ProcessedEventStore store;
+    private final TransactionTemplate tx;
+    private final GuardSettings settings;
+    private final RecentIdSet recent;
+    private final RotatingBloomFilter seen;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder memoryDuplicates = new LongAdder();
+    private final LongAdder storedDuplicates = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+
+    private volatile ScheduledExecutorService purger;
+
+    public record GuardSettings(
+            String consumer,
+            Duration ttl,
+            Duration recentWindow,
+            int recentMaxEntries,
+            int expectedPerTtl,
+            double falsePositiveRate,
+            Duration purgeInterval,
+            int purgeBatchSize
+    ) {}
+
+    public IdempotencyGuard(ProcessedEventStore store, PlatformTransactionManager transactionManager, GuardSettings settings) {
+        this.store = store;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.settings = settings;
+        this.recent = new RecentIdSet(settings.recentWindow().toNanos(), 16, settings.recentMaxEntries());
+        this.seen = new RotatingBloomFilter(settings.expectedPerTtl(), settings.falsePositiveRate(), settings.ttl().toNanos());
+    }
+
+    /**
+     * @return false when the event was a duplicate and the handler did not run
+     */
+    public boolean handle(EventEnvelope<?> envelope, Runnable handler) {
+        return handle(envelope.getEventId(), envelope.getEventType(), handler);
+    }
+
+    public boolean handle(String eventId, String eventType, Runnable handler) {
+        if (eventId == null) throw new IllegalArgumentException("eventId is required");
+        if (recent.contains(eventId)) {
+            memoryDuplicates.increment();
+            return false;
+        }
+        if (seen.mightContain(eventId)) {
+            lookups.increment();
+            if (store.exists(settings.consumer(), eventId)) {
+                recent.add(eventId);
+                storedDuplicates.increment();
+                return false;
+            }
+        }
+        // joins the caller's transaction if there is one
+        Boolean ran = tx.execute(status -> {
+            if (!store.claim(settings.consumer(), eventId, eventType)) return false;
+            handler.run();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(eventId);
+                }
+            });
+            return true;
+        });
+        if (Boolean.TRUE.equals(ran)) {
+            processed.increment();
+            return true;
+        }
+        remember(eventId);
+        storedDuplicates.increment();
+        return false;
+    }
+
+    private void remember(String eventId) {
+        recent.add(eventId);
+        seen.add(eventId);
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getMemoryDuplicateCount() {
+        return memoryDuplicates.sum();
+    }
+
+    public long getStoredDuplicateCount() {
+        return storedDuplicates.sum();
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public int getRecentSize() {
+        return recent.size();
+    }
+
+    /**
+     * Deletes {@code processed_events} rows older than the TTL, in chunks.
+     */
+    public int purgeExpired() {
+        Instant cutoff = Instant.now().minus(settings.ttl());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = store.deleteExpired(cutoff, settings.purgeBatchSize());
+            total += deleted;
+        } while (deleted == settings.purgeBatchSize());
+        return total;
+    }
+
+    public void start() {
+        if (purger != null) return;
+        ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = settings.purgeInterval().toMillis();
+        s.scheduleWithFixedDelay(this::purgeQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        purger = s;
+        log.info("deduplicating {} events for {} (bloom tier {} KiB)",
+                settings.consumer(), settings.ttl(), seen.memoryBytes() / 1024);
+    }
+
+    private void purgeQuietly() {
+        try {
+            int deleted = purgeExpired();
+            if (deleted > 0) log.debug("purged {} processed events", deleted);
+        } catch (RuntimeException ex) {
+            log.warn("processed_events purge failed: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService s = purger;
+        if (s == null) return;
+        s.shutdownNow();
+        purger = null;
+    }
+}
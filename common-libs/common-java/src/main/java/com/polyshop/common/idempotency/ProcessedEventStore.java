@@ -0,0 +1,52 @@
+package com.polyshop.common.idempotency;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * The durable tier: one {@code processed_events} row per consumer and event id.
+ */
+public class ProcessedEventStore {
+
+    private static final String CLAIM = """
+            insert into processed_events (consumer, event_id, event_type)
+            values (?, ?, ?)
+            on conflict do nothing""";
+
+    private static final String EXISTS =
+            "select exists(select 1 from processed_events where consumer = ? and event_id = ?)";
+
+    private static final String DELETE_EXPIRED = """
+            delete from processed_events
+            where (consumer, event_id) in (
+                select consumer, event_id from processed_events where processed_at < ? limit ?)""";
+
+    private final JdbcTemplate jdbc;
+
+    public ProcessedEventStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Records the event on the caller's connection. A concurrent claim of the same id waits for
+     * this transaction and then sees the row.
+     *
+     * @return false when the event was already recorded
+     */
+    public boolean claim(String consumer, String eventId, String eventType) {
+        return jdbc.update(CLAIM, consumer, eventId, eventType) == 1;
+    }
+
+    public boolean exists(String consumer, String eventId) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(EXISTS, Boolean.class, consumer, eventId));
+    }
+
+    /**
+     * Deletes one chunk of rows processed before {@code cutoff}.
+     */
+    public int deleteExpired(Instant cutoff, int limit) {
+        return jdbc.update(DELETE_EXPIRED, Timestamp.from(cutoff), limit);
+    }
+}
@@ -0,0 +1,67 @@
+package com.polyshop.common.idempotency;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Exact set of the ids seen in the last {@code window}, kept as a ring of time buckets. A
+ * bucket is replaced wholesale when the ring comes back round to it, so expiry costs nothing
+ * per id. Each bucket holds at most {@code maxPerBucket} ids; past that, ids are dropped and
+ * only the Bloom tier remembers them.
+ */
+class RecentIdSet {
+
+    private final AtomicReferenceArray<Bucket> ring;
+    private final long bucketNanos;
+    private final int maxPerBucket;
+    private final long origin = System.nanoTime();
+
+    private record Bucket(long epoch, Set<String> ids, AtomicInteger size) {}
+
+    RecentIdSet(long windowNanos, int buckets, int maxEntries) {
+        this.ring = new AtomicReferenceArray<>(buckets);
+        this.bucketNanos = Math.max(1, windowNanos / buckets);
+        this.maxPerBucket = Math.max(1, maxEntries / buckets);
+    }
+
+    void add(String id) {
+        Bucket b = bucket(epoch());
+        if (b.size().get() >= maxPerBucket) return;
+        if (b.ids().add(id)) b.size().incrementAndGet();
+    }
+
+    boolean contains(String id) {
+        long now = epoch();
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket b = ring.get(i);
+            if (b != null && now - b.epoch() < ring.length() && b.ids().contains(id)) return true;
+        }
+        return false;
+    }
+
+    int size() {
+        long now = epoch();
+        int n = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket b = ring.get(i);
+            if (b != null && now - b.epoch() < ring.length()) n += b.size().get();
+        }
+        return n;
+    }
+
+    private long epoch() {
+        return (System.nanoTime() - origin) / bucketNanos;
+    }
+
+    private Bucket bucket(long epoch) {
+        int slot = (int) (epoch % ring.length());
+        while (true) {
+            Bucket b = ring.get(slot);
+            if (b != null && b.epoch() >= epoch) return b;
+            Bucket fresh = new Bucket(epoch, ConcurrentHashMap.newKeySet(), new AtomicInteger());
+            if (ring.compareAndSet(slot, b, fresh)) return fresh;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.polyshop.common.idempotency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Two Bloom filters, each covering one {@code window}: ids go into the current one and are
+ * looked up in both, and on rotation the older one is dropped. An id therefore stays visible
+ * for at least one and at most two windows, and memory is fixed at twice one filter's bits.
+ * Lock-free apart from rotation.
+ */
+class RotatingBloomFilter {
+
+    private final int bits;
+    private final int hashes;
+    private final long windowNanos;
+    private final ReentrantLock rotation = new ReentrantLock();
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    private record Generation(AtomicLongArray words, long startedNanos) {}
+
+    RotatingBloomFilter(int expectedPerWindow, double falsePositiveRate, long windowNanos) {
+        double n = Math.max(1, expectedPerWindow);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.hashes = Math.max(1, (int) Math.round(bits / n * Math.log(2)));
+        this.windowNanos = windowNanos;
+        this.current = newGeneration(System.nanoTime());
+        this.previous = newGeneration(System.nanoTime());
+    }
+
+    void add(String id) {
+        Generation g = generation();
+        long h = hash(id);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long w = g.words().get(word);
+            while ((w & mask) == 0 && !g.words().compareAndSet(word, w, w | mask)) {
+                w = g.words().get(word);
+            }
+        }
+    }
+
+    boolean mightContain(String id) {
+        Generation g = generation();
+        long h = hash(id);
+        return contains(g, h) || contains(previous, h);
+    }
+
+    long memoryBytes() {
+        return 2L * (bits / 64 + 1) * Long.BYTES;
+    }
+
+    private boolean contains(Generation g, long h) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((g.words().get(bit >>> 6) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private Generation generation() {
+        Generation g = current;
+        long now = System.nanoTime();
+        if (now - g.startedNanos() < windowNanos) return g;
+        rotation.lock();
+        try {
+            g = current;
+            if (now - g.startedNanos() >= windowNanos) {
+                // idle for two windows: what was current is also out of range
+                previous = now - g.startedNanos() >= 2 * windowNanos ? newGeneration(now) : g;
+                g = newGeneration(now);
+                current = g;
+            }
+            return g;
+        } finally {
+            rotation.unlock();
+        }
+    }
+
+    private Generation newGeneration(long now) {
+        return new Generation(new AtomicLongArray(bits / 64 + 1), now);
+    }
+
+    // FNV-1a over the chars, then murmur3's finalizer so both halves are well mixed
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
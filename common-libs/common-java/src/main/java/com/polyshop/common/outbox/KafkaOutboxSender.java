@@ -0,0 +1,19 @@
+package com.polyshop.common.outbox;
+
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+public class KafkaOutboxSender implements OutboxSender {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public KafkaOutboxSender(KafkaTemplate<String, String> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, String key, String value) {
+        return kafkaTemplate.send(topic, key, value);
+    }
+}
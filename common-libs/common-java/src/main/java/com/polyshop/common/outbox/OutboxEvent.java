@@ -0,0 +1,27 @@
+package com.polyshop.common.outbox;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A claimed {@code outbox_events} row. {@code payload} and {@code metadata} are raw JSON.
+ */
+public record OutboxEvent(
+        long seq,
+        UUID id,
+        String aggregateType,
+        String aggregateId,
+        String eventType,
+        int version,
+        String correlationId,
+        String causationId,
+        String payload,
+        String metadata,
+        Instant createdAt,
+        int attempts
+) {
+
+    String aggregateKey() {
+        return aggregateType + '\u0000' + aggregateId;
+    }
+}
@@ -0,0 +1,387 @@
+package com.polyshop.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.polyshop.common.events.EventEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Drains {@code outbox_events} to the broker. Each batch is claimed with
+ * {@code FOR UPDATE SKIP LOCKED}, so any number of workers and replicas can drain in parallel;
+ * a row is only taken when every earlier pending row of its aggregate is in the same claim,
+ * which keeps each aggregate's events in order. The batch is sent without waiting between
+ * sends, and the rows that were acknowledged are marked processed with one update.
+ *
+ * <p>When an event fails before it reaches the broker, later events of its aggregate in the
+ * batch are not sent. A send that fails asynchronously has already been followed by the next
+ * ones, so order then depends on the sender: with Kafka it holds only for an idempotent
+ * producer ({@code enable.idempotence=true}, at most 5 in-flight requests), which retries in
+ * order and fails the sends queued behind a failed one instead of delivering them.
+ *
+ * <p>Idle workers poll every {@code pollInterval}. With an {@link OutboxTrigger} they claim as
+ * soon as it fires, and the interval only bounds how long a lost wake-up can delay an event.
+ */
+public class OutboxPublisher implements SmartLifecycle {
+
+    private static final String CLAIM = """
+            with claimed as (
+                select seq, id, aggregate_type, aggregate_id, event_type, version, correlation_id, causation_id,
+                       payload::text as payload, metadata::text as metadata, created_at, attempts
+                from outbox_events
+                where not processed
+                order by seq
+                limit ?
+                for update skip locked
+            )
+            select c.* from claimed c
+            where not exists (
+                select 1 from outbox_events e
+                where not e.processed
+                  and e.aggregate_type = c.aggregate_type
+                  and e.aggregate_id = c.aggregate_id
+                  and e.seq < c.seq
+                  and e.seq not in (select seq from claimed))
+            order by c.seq""";
+
+    private static final String MARK_PROCESSED =
+            "update outbox_events set processed = true, processed_at = now(), error_message = null where id = any(?)";
+
+    private static final String RECORD_FAILURE = """
+            update outbox_events
+            set attempts = attempts + 1,
+                error_message = ?,
+                processed = attempts + 1 >= ?,
+                processed_at = case when attempts + 1 >= ? then now() end
+            where id = ?""";
+
+    private static final String DELETE_PROCESSED = """
+            delete from outbox_events
+            where seq in (select seq from outbox_events where processed and processed_at < ? limit ?)""";
+
+    private static final TypeReference<Map<String, Object>> METADATA = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final OutboxSender sender;
+    private final ObjectMapper objectMapper;
+    private final OutboxSettings settings;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private final List<Thread> workers = new CopyOnWriteArrayList<>();
+    private final AtomicLong signals = new AtomicLong();
+    private volatile LongConsumer latencyRecorder = nanos -> {};
+    private volatile boolean running;
+    private volatile long nextCleanupNanos = System.nanoTime();
+
+    public OutboxPublisher(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, OutboxSender sender,
+                           ObjectMapper objectMapper, OutboxSettings settings) {
+        this(jdbc, transactionManager, sender, objectMapper, settings, null);
+    }
+
+    public OutboxPublisher(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, OutboxSender sender,
+                           ObjectMapper objectMapper, OutboxSettings settings, OutboxTrigger trigger) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.sender = sender;
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        if (trigger != null) trigger.subscribe(this::wake);
+    }
+
+    public record OutboxSettings(
+            String source,
+            int batchSize,
+            int workers,
+            Duration pollInterval,
+            Duration sendTimeout,
+            Duration retryBackoff,
+            int maxAttempts,
+            Duration retention,
+            Duration cleanupInterval
+    ) {}
+
+    private record Batch(int claimed, int published, int failed) {}
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getAbandonedCount() {
+        return abandoned.sum();
+    }
+
+    /**
+     * Receives, for every published event, the nanoseconds from its {@code created_at} to the
+     * broker's acknowledgement.
+     */
+    public void setLatencyRecorder(LongConsumer latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Claims, sends and marks one batch.
+     *
+     * @return the number of events published
+     */
+    public int publishBatch() {
+        return runBatch().published();
+    }
+
+    private Batch runBatch() {
+        Batch batch = tx.execute(status -> {
+            List<OutboxEvent> events = jdbc.query(CLAIM, this::map, settings.batchSize());
+            if (events.isEmpty()) return new Batch(0, 0, 0);
+
+            List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+            // an event that fails before reaching the sender (e.g. it cannot be serialized) holds
+            // back the rest of its aggregate, which is not sent at all and stays pending
+            Set<String> heldBack = new HashSet<>();
+            for (OutboxEvent e : events) {
+                if (heldBack.contains(e.aggregateKey())) {
+                    sends.add(null);
+                    continue;
+                }
+                CompletableFuture<?> send = send(e);
+                if (send.isCompletedExceptionally()) heldBack.add(e.aggregateKey());
+                sends.add(send);
+            }
+
+            long deadline = System.nanoTime() + settings.sendTimeout().toNanos();
+            List<UUID> done = new ArrayList<>(events.size());
+            List<Object[]> failures = new ArrayList<>();
+            // once a send fails, later events of that aggregate stay pending so they are resent after it
+            Set<String> blocked = new HashSet<>();
+            for (int i = 0; i < events.size(); i++) {
+                OutboxEvent e = events.get(i);
+                if (sends.get(i) == null) continue;
+                String error = await(sends.get(i), deadline);
+                if (blocked.contains(e.aggregateKey())) continue;
+                if (error == null) {
+                    done.add(e.id());
+                    latencyRecorder.accept(Duration.between(e.createdAt(), Instant.now()).toNanos());
+                } else {
+                    blocked.add(e.aggregateKey());
+                    failures.add(new Object[] {truncate(error), maxAttempts(), maxAttempts(), e.id()});
+                    if (e.attempts() + 1 >= maxAttempts()) {
+                        abandoned.increment();
+                        log.error("giving up on outbox event {} ({} for {} {}) after {} attempts: {}",
+                                e.id(), e.eventType(), e.aggregateType(), e.aggregateId(), e.attempts() + 1, error);
+                    }
+                }
+            }
+            if (!done.isEmpty()) {
+                jdbc.update(MARK_PROCESSED, ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", done.toArray())));
+            }
+            if (!failures.isEmpty()) jdbc.batchUpdate(RECORD_FAILURE, failures);
+            return new Batch(events.size(), done.size(), failures.size());
+        });
+        published.add(batch.published());
+        failed.add(batch.failed());
+        return batch;
+    }
+
+    private CompletableFuture<?> send(OutboxEvent e) {
+        try {
+            return sender.send(e.eventType(), e.aggregateId(), envelope(e));
+        } catch (JsonProcessingException | RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private String envelope(OutboxEvent e) throws JsonProcessingException {
+        EventEnvelope<RawValue> env = new EventEnvelope<>();
+        env.setEventId(e.id().toString());
+        env.setEventType(e.eventType());
+        env.setAggregateType(e.aggregateType());
+        env.setAggregateId(e.aggregateId());
+        env.setCorrelationId(e.correlationId());
+        env.setCausationId(e.causationId());
+        env.setOccurredAt(e.createdAt());
+        env.setPayload(new RawValue(e.payload()));
+        Map<String, Object> metadata = e.metadata() == null ? new HashMap<>() : objectMapper.readValue(e.metadata(), METADATA);
+        metadata.putIfAbsent("source", settings.source());
+        metadata.putIfAbsent("version", e.version());
+        env.setMetadata(metadata);
+        return objectMapper.writeValueAsString(env);
+    }
+
+    // returns null when the send was acknowledged, otherwise the reason it was not
+    private static String await(CompletableFuture<?> send, long deadlineNanos) {
+        try {
+            send.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (TimeoutException ex) {
+            return "send timed out";
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+            return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            // roll the batch back; anything already sent is sent again later
+            throw new IllegalStateException("interrupted while publishing outbox batch", ex);
+        }
+    }
+
+    private int maxAttempts() {
+        return settings.maxAttempts() > 0 ? settings.maxAttempts() : Integer.MAX_VALUE;
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= 2000 ? s : s.substring(0, 2000);
+    }
+
+    private OutboxEvent map(ResultSet rs, int row) throws SQLException {
+        Timestamp created = rs.getTimestamp("created_at");
+        return new OutboxEvent(
+                rs.getLong("seq"),
+                rs.getObject("id", UUID.class),
+                rs.getString("aggregate_type"),
+                rs.getString("aggregate_id"),
+                rs.getString("event_type"),
+                rs.getInt("version"),
+                rs.getString("correlation_id"),
+                rs.getString("causation_id"),
+                rs.getString("payload"),
+                rs.getString("metadata"),
+                created == null ? Instant.now() : created.toInstant(),
+                rs.getInt("attempts"));
+    }
+
+    /**
+     * Deletes processed rows older than the retention, in chunks.
+     */
+    public int deleteProcessed() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(settings.retention()));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbc.update(DELETE_PROCESSED, cutoff, settings.batchSize());
+            total += deleted;
+        } while (running && deleted == settings.batchSize());
+        return total;
+    }
+
+    private void run() {
+        while (running) {
+            // read before claiming, so a wake-up that lands during the claim is not slept through
+            long seen = signals.get();
+            Batch batch;
+            try {
+                batch = runBatch();
+            } catch (RuntimeException ex) {
+                log.warn("outbox batch failed: {}", ex.getMessage());
+                pause(settings.retryBackoff());
+                continue;
+            }
+            if (batch.failed() > 0) {
+                pause(settings.retryBackoff());
+            } else if (batch.claimed() < settings.batchSize()) {
+                cleanupIfDue();
+                idle(seen);
+            }
+        }
+    }
+
+    private void cleanupIfDue() {
+        long now = System.nanoTime();
+        long due = nextCleanupNanos;
+        if (now - due < 0) return;
+        nextCleanupNanos = now + settings.cleanupInterval().toNanos();
+        try {
+            int deleted = deleteProcessed();
+            if (deleted > 0) log.debug("deleted {} processed outbox events", deleted);
+        } catch (RuntimeException ex) {
+            log.warn("outbox cleanup failed: {}", ex.getMessage());
+        }
+    }
+
+    private void wake() {
+        signals.incrementAndGet();
+        for (Thread t : workers) LockSupport.unpark(t);
+    }
+
+    private void idle(long seen) {
+        long deadline = System.nanoTime() + settings.pollInterval().toNanos();
+        long remaining;
+        while (running && signals.get() == seen && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void pause(Duration d) {
+        long deadline = System.nanoTime() + d.toNanos();
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < Math.max(1, settings.workers()); i++) {
+            Thread t = new Thread(this::run, "outbox-publisher-" + i);
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread t : workers) LockSupport.unpark(t);
+        for (Thread t : workers) {
+            try {
+                t.join(settings.sendTimeout().toMillis() + 1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
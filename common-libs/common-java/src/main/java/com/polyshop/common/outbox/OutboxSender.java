@@ -0,0 +1,15 @@
+package com.polyshop.common.outbox;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands one serialized envelope to the broker. Sends must not block: the publisher issues a
+ * whole batch before waiting, and relies on sends with the same key staying in order, and on
+ * a send that follows a failed one with the same key failing too (for Kafka, an idempotent
+ * producer).
+ */
+@FunctionalInterface
+public interface OutboxSender {
+
+    CompletableFuture<?> send(String topic, String key, String value);
+}
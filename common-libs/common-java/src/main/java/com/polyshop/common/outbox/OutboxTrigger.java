@@ -0,0 +1,11 @@
+package com.polyshop.common.outbox;
+
+/**
+ * Tells the publisher that new outbox rows may have been committed, so idle workers claim
+ * straight away instead of waiting out the poll interval. Firing is only a hint: missing one
+ * costs latency, never events, because the publisher still polls as a fallback.
+ */
+public interface OutboxTrigger {
+
+    void subscribe(Runnable listener);
+}
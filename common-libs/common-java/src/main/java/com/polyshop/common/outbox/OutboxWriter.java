@@ -0,0 +1,85 @@
+package com.polyshop.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.common.events.EventEnvelope;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends events to {@code outbox_events} on the caller's connection, so they commit or roll
+ * back together with the caller's own writes. Calling it outside a transaction is an error.
+ */
+public class OutboxWriter {
+
+    private static final String INSERT = """
+            insert into outbox_events
+                (id, aggregate_type, aggregate_id, event_type, correlation_id, causation_id, payload, metadata, created_at)
+            values (?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)""";
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(JdbcTemplate jdbc, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    public UUID append(String eventType, String aggregateType, String aggregateId, Object payload) {
+        return append(EventEnvelope.of(eventType, aggregateType, aggregateId, payload));
+    }
+
+    public UUID append(EventEnvelope<?> envelope) {
+        requireTransaction();
+        Row row = toRow(envelope);
+        jdbc.update(INSERT, ps -> bind(ps, row));
+        return row.id();
+    }
+
+    public void appendAll(List<? extends EventEnvelope<?>> envelopes) {
+        if (envelopes.isEmpty()) return;
+        requireTransaction();
+        List<Row> rows = envelopes.stream().map(this::toRow).toList();
+        jdbc.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> bind(ps, row));
+    }
+
+    private record Row(UUID id, EventEnvelope<?> envelope, String payload, String metadata) {}
+
+    private Row toRow(EventEnvelope<?> envelope) {
+        if (envelope.getEventType() == null || envelope.getAggregateType() == null || envelope.getAggregateId() == null) {
+            throw new IllegalArgumentException("eventType, aggregateType and aggregateId are required");
+        }
+        try {
+            String metadata = envelope.getMetadata() == null || envelope.getMetadata().isEmpty()
+                    ? null : objectMapper.writeValueAsString(envelope.getMetadata());
+            return new Row(UUID.fromString(envelope.getEventId()), envelope, objectMapper.writeValueAsString(envelope.getPayload()), metadata);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("cannot serialize " + envelope.getEventType() + " payload", ex);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Row row) throws SQLException {
+        EventEnvelope<?> e = row.envelope();
+        ps.setObject(1, row.id());
+        ps.setString(2, e.getAggregateType());
+        ps.setString(3, e.getAggregateId());
+        ps.setString(4, e.getEventType());
+        ps.setString(5, e.getCorrelationId());
+        ps.setString(6, e.getCausationId());
+        ps.setString(7, row.payload());
+        ps.setString(8, row.metadata());
+        ps.setTimestamp(9, Timestamp.from(e.getOccurredAt()));
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("outbox events must be written inside the caller's transaction");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.polyshop.common.outbox;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fires on Postgres notifications sent by the {@code outbox_events_notify} trigger. One
+ * platform thread holds a dedicated connection in {@code LISTEN} and blocks on it, so an idle
+ * service costs one connection check a minute instead of a claim query per poll.
+ * Notifications are delivered at commit, so a wake-up never races the inserting transaction.
+ * After the connection is lost it reconnects and fires once, since notifications sent in
+ * between were dropped.
+ *
+ * <p>The connection is taken from the service's pool and held for the life of the trigger,
+ * so size the pool one larger.
+ */
+public class PgNotifyOutboxTrigger implements OutboxTrigger, AutoCloseable {
+
+    public static final String CHANNEL = "outbox_events";
+
+    // bounds how long close() waits for the listener; waiting on the socket sends nothing
+    private static final int WAIT_MILLIS = 1000;
+    private static final long VALIDATE_NANOS = Duration.ofSeconds(60).toNanos();
+
+    private final DataSource dataSource;
+    private final Duration reconnectBackoff;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    public PgNotifyOutboxTrigger(DataSource dataSource, Duration reconnectBackoff) {
+        this.dataSource = dataSource;
+        this.reconnectBackoff = reconnectBackoff;
+    }
+
+    @Override
+    public void subscribe(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        Thread t = new Thread(this::run, "outbox-listener");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread t = thread;
+        if (t == null) return;
+        LockSupport.unpark(t);
+        try {
+            t.join(reconnectBackoff.toMillis() + WAIT_MILLIS + 1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    private void run() {
+        boolean connected = false;
+        while (running) {
+            try (Connection c = dataSource.getConnection()) {
+                c.setAutoCommit(true);
+                try (Statement st = c.createStatement()) {
+                    st.execute("listen " + CHANNEL);
+                }
+                PGConnection pg = c.unwrap(PGConnection.class);
+                if (connected) log.info("outbox listener reconnected");
+                connected = true;
+                // rows committed while we were not listening would otherwise wait for the fallback poll
+                fire();
+                long lastHeard = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(WAIT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        lastHeard = System.nanoTime();
+                        fire();
+                    } else if (System.nanoTime() - lastHeard > VALIDATE_NANOS) {
+                        // a dead server can leave the socket silent rather than closed
+                        if (!c.isValid(5)) throw new SQLException("listen connection is no longer valid");
+                        lastHeard = System.nanoTime();
+                    }
+                }
+                // the connection goes back to the pool, where nobody would drain its notifications
+                try (Statement st = c.createStatement()) {
+                    st.execute("unlisten " + CHANNEL);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running) break;
+                log.warn("outbox listener lost its connection: {}", ex.getMessage());
+                pause();
+            }
+        }
+    }
+
+    private void fire() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException ex) {
+                log.warn("outbox trigger listener failed: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void pause() {
+        long deadline = System.nanoTime() + reconnectBackoff.toNanos();
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.polyshop.common.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class IdentityHeaderAuthenticationFilter extends OncePerRequestFilter {
+
+    private final IdentityHeaderVerifier verifier;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(IdentityHeaderVerifier.HEADER_NAME);
+        if (header != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtUser user = verifier.verify(header);
+            if (user != null) {
+                List<SimpleGrantedAuthority> authorities = user.getRoles().stream().map(SimpleGrantedAuthority::new).toList();
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, authorities));
+            } else {
+                log.debug("rejected identity header on {}", request.getRequestURI());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,81 @@
+package com.polyshop.common.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Checks the identity header the gateway forwards after verifying a JWT at the edge:
+ * {@code v1.<base64url(sub \n roles \n jti \n exp)>.<base64url(HMAC-SHA256)>}. The gateway's
+ * {@code IdentityHeaderSigner} writes it; the gateway does not depend on this library, so the
+ * header name and format must be changed in both.
+ */
+public class IdentityHeaderVerifier {
+
+    public static final String HEADER_NAME = "X-Polyshop-Identity";
+    private static final String PREFIX = "v1.";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    // pooled rather than per thread: under virtual threads each request is a new thread
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+    public IdentityHeaderVerifier(String secret) {
+        if (secret == null || secret.isBlank()) throw new IllegalArgumentException("identity header secret is required");
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * @return the caller, or null when the header is malformed, forged or expired
+     */
+    public JwtUser verify(String header) {
+        if (header == null || !header.startsWith(PREFIX)) return null;
+        int dot = header.lastIndexOf('.');
+        if (dot <= PREFIX.length()) return null;
+        byte[] expected = hmac(header.substring(0, dot).getBytes(StandardCharsets.US_ASCII));
+        byte[] actual;
+        String[] fields;
+        try {
+            actual = Base64.getUrlDecoder().decode(header.substring(dot + 1));
+            fields = new String(Base64.getUrlDecoder().decode(header.substring(PREFIX.length(), dot)), StandardCharsets.UTF_8).split("\n", -1);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(expected, actual) || fields.length != 4) return null;
+        long exp;
+        try {
+            exp = Long.parseLong(fields[3]);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (exp <= System.currentTimeMillis() / 1000) return null;
+        List<String> roles = fields[1].isEmpty() ? List.of() : Arrays.asList(fields[1].split(","));
+        return JwtVerifier.toUser(fields[0], null, roles);
+    }
+
+    private byte[] hmac(byte[] data) {
+        Mac m = macs.poll();
+        if (m == null) m = newMac();
+        // doFinal resets the Mac, so it can go straight back to the pool
+        byte[] tag = m.doFinal(data);
+        macs.offer(m);
+        return tag;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
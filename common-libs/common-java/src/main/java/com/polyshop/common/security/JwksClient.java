@@ -0,0 +1,160 @@
+package com.polyshop.common.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the issuer's signing keys in memory, keyed by {@code kid}. Keys are refreshed in the
+ * background; an unknown {@code kid} triggers at most one refetch per {@code minRefetchInterval}.
+ */
+public class JwksClient implements AutoCloseable {
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final URI jwksUri;
+    private final Duration refreshInterval;
+    private final Duration minRefetchInterval;
+    private final Duration timeout;
+    private final HttpClient http;
+    private final ReentrantLock fetchLock = new ReentrantLock();
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile String etag;
+    private volatile long lastAttemptNanos;
+    private volatile boolean fetched;
+
+    public JwksClient(URI jwksUri, Duration refreshInterval, Duration minRefetchInterval, Duration timeout) {
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchInterval = minRefetchInterval;
+        this.timeout = timeout;
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        this.lastAttemptNanos = System.nanoTime() - minRefetchInterval.toNanos();
+    }
+
+    public void start() {
+        scheduler.execute(this::refreshAndReschedule);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    public Map<String, PublicKey> getKeys() {
+        return keys;
+    }
+
+    public PublicKey getKey(String kid) {
+        if (kid == null) return null;
+        PublicKey key = keys.get(kid);
+        if (key != null) return key;
+        if (refetchAllowed()) refetch(kid);
+        return keys.get(kid);
+    }
+
+    private void refetch(String kid) {
+        fetchLock.lock();
+        try {
+            // another caller may have fetched while this one waited for the lock
+            if (keys.containsKey(kid)) return;
+            if (!refetchAllowed()) return;
+            log.debug("unknown jwt kid {}, refetching {}", kid, jwksUri);
+            fetch();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("jwks refetch from {} failed: {}", jwksUri, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private boolean refetchAllowed() {
+        return System.nanoTime() - lastAttemptNanos >= minRefetchInterval.toNanos();
+    }
+
+    private void refreshAndReschedule() {
+        Duration next = refreshInterval;
+        fetchLock.lock();
+        try {
+            next = fetch();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("jwks refresh from {} failed: {}", jwksUri, ex.getMessage());
+            if (!fetched) next = minRefetchInterval;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            fetchLock.unlock();
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::refreshAndReschedule, next.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // callers hold fetchLock; returns the delay until the next background refresh
+    private Duration fetch() throws IOException, InterruptedException {
+        lastAttemptNanos = System.nanoTime();
+        HttpRequest.Builder req = HttpRequest.newBuilder(jwksUri).timeout(timeout).GET();
+        String currentEtag = etag;
+        if (currentEtag != null && fetched) req.header("If-None-Match", currentEtag);
+        HttpResponse<String> res = http.send(req.build(), HttpResponse.BodyHandlers.ofString());
+
+        if (res.statusCode() == 304) return nextRefresh(res);
+        if (res.statusCode() != 200) {
+            throw new IOException("unexpected status " + res.statusCode());
+        }
+        keys = parse(res.body());
+        etag = res.headers().firstValue("ETag").orElse(null);
+        fetched = true;
+        log.debug("loaded {} jwt keys from {}", keys.size(), jwksUri);
+        return nextRefresh(res);
+    }
+
+    private Duration nextRefresh(HttpResponse<?> res) {
+        Matcher m = MAX_AGE.matcher(res.headers().firstValue("Cache-Control").orElse(""));
+        if (!m.find()) return refreshInterval;
+        Duration maxAge = Duration.ofSeconds(Long.parseLong(m.group(1)));
+        if (maxAge.compareTo(minRefetchInterval) < 0) return minRefetchInterval;
+        return maxAge.compareTo(refreshInterval) < 0 ? maxAge : refreshInterval;
+    }
+
+    private Map<String, PublicKey> parse(String json) {
+        JwkSet set = Jwks.setParser().ignoreUnsupported(true).build().parse(json);
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (Jwk<?> jwk : set) {
+            if (jwk.getId() != null && jwk instanceof PublicJwk<?> pub) {
+                parsed.put(jwk.getId(), pub.toKey());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+}
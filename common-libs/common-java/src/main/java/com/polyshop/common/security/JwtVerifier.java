@@ -0,0 +1,66 @@
+package com.polyshop.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.security.UnsupportedKeyException;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Verifies access tokens issued by auth-service against keys held by a {@link JwksClient}.
+ * Only an unknown {@code kid} can cause a network call.
+ */
+public class JwtVerifier {
+
+    private final JwtParser parser;
+
+    public JwtVerifier(JwksClient jwks, String issuer, Duration clockSkew) {
+        var builder = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        PublicKey key = jwks.getKey(header.getKeyId());
+                        if (key == null) throw new UnsupportedKeyException("unknown jwt kid: " + header.getKeyId());
+                        return key;
+                    }
+                })
+                .clockSkewSeconds(clockSkew.toSeconds());
+        if (issuer != null && !issuer.isBlank()) builder.requireIssuer(issuer);
+        this.parser = builder.build();
+    }
+
+    public JwtUser verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Object roles = claims.get("roles");
+        return toUser(
+                claims.getSubject(),
+                claims.get("email") instanceof String email ? email : null,
+                roles instanceof List<?> l ? l.stream().map(Object::toString).toList() : List.of()
+        );
+    }
+
+    // auth-service puts the email in sub; a UUID subject is taken as the user id
+    static JwtUser toUser(String subject, String email, List<String> roles) {
+        JwtUser user = new JwtUser();
+        user.setId(parseUuid(subject));
+        user.setEmail(email != null ? email : user.getId() == null ? subject : null);
+        user.setRoles(roles);
+        return user;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null) return null;
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.polyshop.common.threads;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier, typically inside a
+ * {@code synchronized} block or a native frame. Listens to the JDK's own
+ * {@code jdk.VirtualThreadPinned} JFR event, so it costs nothing until pinning happens. Each
+ * distinct call site is logged with its stack once at WARN, repeats at DEBUG.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+
+    private final Duration threshold;
+    private final int stackDepth;
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, int stackDepth) {
+        this.threshold = threshold;
+        this.stackDepth = stackDepth;
+    }
+
+    public void start() {
+        if (stream != null) return;
+        RecordingStream rs = new RecordingStream();
+        rs.enable(EVENT).withThreshold(threshold).withStackTrace();
+        rs.setMaxAge(Duration.ofMinutes(1));
+        rs.onEvent(EVENT, this::onPinned);
+        rs.startAsync();
+        stream = rs;
+        log.info("reporting virtual thread pinning longer than {} ms", threshold.toMillis());
+    }
+
+    @Override
+    public void close() {
+        if (stream == null) return;
+        stream.close();
+        stream = null;
+    }
+
+    public long getPinnedCount() {
+        return total.sum();
+    }
+
+    /**
+     * Pinning events seen so far, by the first non-JDK frame on the pinned stack.
+     */
+    public Map<String, Long> getPinnedSites() {
+        Map<String, Long> out = new TreeMap<>();
+        sites.forEach((site, count) -> out.put(site, count.sum()));
+        return out;
+    }
+
+    void onPinned(RecordedEvent event) {
+        total.increment();
+        RecordedStackTrace stack = event.getStackTrace();
+        List<RecordedFrame> frames = stack == null ? List.of() : stack.getFrames();
+        String site = site(frames);
+        boolean first = sites.putIfAbsent(site, new LongAdder()) == null;
+        sites.get(site).increment();
+        if (first) {
+            log.warn("virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site, format(frames));
+        } else if (log.isDebugEnabled()) {
+            log.debug("virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+        }
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame f : frames) {
+            if (f.isJavaFrame() && !isJdk(f.getMethod().getType().getName())) return describe(f);
+        }
+        return frames.isEmpty() ? "unknown" : describe(frames.get(0));
+    }
+
+    private String format(List<RecordedFrame> frames) {
+        StringBuilder sb = new StringBuilder();
+        int n = Math.min(stackDepth, frames.size());
+        for (int i = 0; i < n; i++) sb.append("\n\tat ").append(describe(frames.get(i)));
+        if (frames.size() > n) sb.append("\n\t...");
+        return sb.toString();
+    }
+
+    private static String describe(RecordedFrame f) {
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber();
+    }
+
+    private static boolean isJdk(String className) {
+        for (String p : JDK_PACKAGES) {
+            if (className.startsWith(p)) return true;
+        }
+        return false;
+    }
+}
@@ -7,6 +7,7 @@ public final class IdempotencyKeyGenerator {
     private IdempotencyKeyGenerator() {
     }
 
+    // random, not time-ordered: a key that can be guessed from another one is not a key
     public static String generate() {
         return UUID.randomUUID().toString();
     }
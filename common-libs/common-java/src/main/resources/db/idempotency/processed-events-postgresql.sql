@@ -0,0 +1,10 @@
+create table if not exists processed_events (
+    consumer     varchar(100) not null,
+    event_id     varchar(64) not null,
+    event_type   varchar(200),
+    processed_at timestamptz not null default now(),
+    primary key (consumer, event_id)
+);
+
+create index if not exists processed_events_processed_at_idx
+    on processed_events (processed_at);
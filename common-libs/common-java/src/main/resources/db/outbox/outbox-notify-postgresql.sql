@@ -0,0 +1,13 @@
+-- Executed as a single statement: the function body contains semicolons.
+create or replace function outbox_events_notify() returns trigger as $$
+begin
+    perform pg_notify('outbox_events', '');
+    return null;
+end;
+$$ language plpgsql;
+
+drop trigger if exists outbox_events_notify on outbox_events;
+
+create trigger outbox_events_notify
+    after insert on outbox_events
+    for each statement execute function outbox_events_notify();
@@ -0,0 +1,26 @@
+create table if not exists outbox_events (
+    seq            bigint generated always as identity,
+    id             uuid primary key,
+    aggregate_type varchar(100) not null,
+    aggregate_id   varchar(200) not null,
+    event_type     varchar(200) not null,
+    version        integer not null default 1,
+    correlation_id varchar(200),
+    causation_id   varchar(200),
+    payload        jsonb not null,
+    metadata       jsonb,
+    created_at     timestamptz not null default now(),
+    processed      boolean not null default false,
+    processed_at   timestamptz,
+    attempts       integer not null default 0,
+    error_message  varchar(2000)
+);
+
+create index if not exists outbox_events_pending_idx
+    on outbox_events (seq) where not processed;
+
+create index if not exists outbox_events_pending_aggregate_idx
+    on outbox_events (aggregate_type, aggregate_id, seq) where not processed;
+
+create index if not exists outbox_events_processed_at_idx
+    on outbox_events (processed_at) where processed;
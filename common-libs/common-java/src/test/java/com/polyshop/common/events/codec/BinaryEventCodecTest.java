@@ -0,0 +1,125 @@
+package com.polyshop.common.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.common.events.EventEnvelope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryEventCodecTest {
+
+    record OrderPlaced(String orderId, BigDecimal total, List<String> skus, UUID customerId) {}
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+    private Path registryFile;
+    private BinaryEventCodec codec;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) {
+        registryFile = dir.resolve("schemas.json");
+        codec = new BinaryEventCodec(new FileSchemaRegistry(registryFile), jsonMapper);
+    }
+
+    @Test
+    void roundTripsEveryField() {
+        EventEnvelope<OrderPlaced> sent = envelope();
+
+        EventEnvelope<OrderPlaced> received = codec.decode(codec.encode(sent), OrderPlaced.class);
+
+        assertSameEnvelope(received, sent);
+        assertThat(received.getPayload().total()).isEqualByComparingTo("1234.50").hasScale(2);
+    }
+
+    @Test
+    void roundTripsNullsAndIdsThatAreNotCanonicalUuids() {
+        EventEnvelope<OrderPlaced> sent = envelope();
+        sent.setEventId("evt-1");
+        // upper case parses as a UUID but would come back lower case, so it is kept as text
+        sent.setAggregateId(sent.getAggregateId().toUpperCase());
+        sent.setCorrelationId(null);
+        sent.setCausationId("");
+        sent.setOccurredAt(null);
+        sent.setMetadata(null);
+
+        assertSameEnvelope(codec.decode(codec.encode(sent), OrderPlaced.class), sent);
+    }
+
+    @Test
+    void roundTripsTimestampsBeforeTheEpoch() {
+        EventEnvelope<OrderPlaced> sent = envelope();
+        sent.setOccurredAt(Instant.ofEpochSecond(-86_400, 999_999_999));
+
+        assertThat(codec.decode(codec.encode(sent), OrderPlaced.class).getOccurredAt()).isEqualTo(sent.getOccurredAt());
+    }
+
+    @Test
+    void anotherProcessResolvesTheSchemaIdFromTheSharedFile() {
+        byte[] encoded = codec.encode(envelope());
+        BinaryEventCodec consumer = new BinaryEventCodec(new FileSchemaRegistry(registryFile), jsonMapper);
+
+        EventEnvelope<OrderPlaced> received = consumer.decode(encoded, OrderPlaced.class);
+
+        assertThat(received.getEventType()).isEqualTo("OrderPlaced");
+        assertThat(received.getAggregateType()).isEqualTo("Order");
+    }
+
+    @Test
+    void decodesJsonSoConsumersCanSwitchFirst() {
+        EventEnvelope<OrderPlaced> sent = envelope();
+        byte[] json = new JsonEventCodec(jsonMapper).encode(sent);
+
+        assertSameEnvelope(codec.decode(json, OrderPlaced.class), sent);
+    }
+
+    @Test
+    void isSmallerThanJson() {
+        EventEnvelope<OrderPlaced> sent = envelope();
+
+        // five UUIDs as 16 bytes, no field names, no type strings
+        assertThat(codec.encode(sent).length).isLessThan(new JsonEventCodec(jsonMapper).encode(sent).length * 2 / 3);
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownInput() {
+        byte[] encoded = codec.encode(envelope());
+        byte[] truncated = Arrays.copyOf(encoded, 10);
+
+        assertThatThrownBy(() -> codec.decode(truncated, OrderPlaced.class)).isInstanceOf(IllegalArgumentException.class);
+        // schema id 1000 was never registered
+        assertThatThrownBy(() -> codec.decode(new byte[]{BinaryEventCodec.MAGIC, (byte) 0xE8, 0x07}, OrderPlaced.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static EventEnvelope<OrderPlaced> envelope() {
+        EventEnvelope<OrderPlaced> env = EventEnvelope.of("OrderPlaced", "Order", UUID.randomUUID().toString(),
+                new OrderPlaced("order-42", new BigDecimal("1234.50"), List.of("SKU-1", "SKU-2"), UUID.randomUUID()));
+        env.setCorrelationId(UUID.randomUUID().toString());
+        env.setCausationId(UUID.randomUUID().toString());
+        env.setOccurredAt(Instant.parse("2026-10-18T09:15:30.123456789Z"));
+        env.setMetadata(Map.of("source", "order-service", "attempt", 2));
+        return env;
+    }
+
+    private static void assertSameEnvelope(EventEnvelope<OrderPlaced> actual, EventEnvelope<OrderPlaced> expected) {
+        assertThat(actual.getEventId()).isEqualTo(expected.getEventId());
+        assertThat(actual.getEventType()).isEqualTo(expected.getEventType());
+        assertThat(actual.getAggregateType()).isEqualTo(expected.getAggregateType());
+        assertThat(actual.getAggregateId()).isEqualTo(expected.getAggregateId());
+        assertThat(actual.getCorrelationId()).isEqualTo(expected.getCorrelationId());
+        assertThat(actual.getCausationId()).isEqualTo(expected.getCausationId());
+        assertThat(actual.getOccurredAt()).isEqualTo(expected.getOccurredAt());
+        assertThat(actual.getMetadata()).isEqualTo(expected.getMetadata());
+        assertThat(actual.getPayload()).isEqualTo(expected.getPayload());
+    }
+}
@@ -0,0 +1,108 @@
+package com.polyshop.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void isVersion7WithTheCurrentMillisecond() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIds.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        // a counter that ran out borrows the next millisecond, so allow a little slack
+        assertThat(TimeOrderedIds.timestamp(id))
+                .isBetween(Instant.ofEpochMilli(before), Instant.ofEpochMilli(System.currentTimeMillis() + 10));
+    }
+
+    @Test
+    void strictlyIncreasesWithinAThread() {
+        UUID previous = TimeOrderedIds.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = TimeOrderedIds.next();
+            assertThat(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()))
+                    .isPositive();
+            previous = id;
+        }
+    }
+
+    @Test
+    void staysUniqueAndOrderedAcrossVirtualThreads() throws Exception {
+        ConcurrentLinkedQueue<UUID> generated = new ConcurrentLinkedQueue<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 1000; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) generated.add(TimeOrderedIds.next());
+                });
+            }
+        }
+
+        List<UUID> ids = new ArrayList<>(generated);
+        assertThat(new HashSet<>(ids)).hasSize(100_000);
+        // one clock for the whole JVM: the timestamp and counter alone never repeat
+        Set<Long> prefixes = new HashSet<>();
+        for (UUID id : ids) prefixes.add(id.getMostSignificantBits());
+        assertThat(prefixes).hasSize(100_000);
+
+        List<byte[]> bytes = new ArrayList<>();
+        List<String> base32 = new ArrayList<>();
+        for (UUID id : ids) {
+            bytes.add(TimeOrderedIds.toBytes(id));
+            base32.add(TimeOrderedIds.toBase32(id));
+        }
+        bytes.sort(Arrays::compareUnsigned);
+        Collections.sort(base32);
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(TimeOrderedIds.fromBase32(base32.get(i))).isEqualTo(TimeOrderedIds.fromBytes(bytes.get(i)));
+        }
+    }
+
+    @Test
+    void roundTripsThroughBytesAndBase32() {
+        for (int i = 0; i < 1000; i++) {
+            UUID id = i % 2 == 0 ? TimeOrderedIds.next() : UUID.randomUUID();
+            assertThat(TimeOrderedIds.fromBytes(TimeOrderedIds.toBytes(id))).isEqualTo(id);
+            String encoded = TimeOrderedIds.toBase32(id);
+            assertThat(encoded).hasSize(26);
+            assertThat(TimeOrderedIds.fromBase32(encoded)).isEqualTo(id);
+            assertThat(TimeOrderedIds.fromBase32(encoded.toLowerCase())).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void encodesTheExtremes() {
+        assertThat(TimeOrderedIds.toBase32(new UUID(0, 0))).isEqualTo("00000000000000000000000000");
+        assertThat(TimeOrderedIds.toBase32(new UUID(-1, -1))).isEqualTo("7ZZZZZZZZZZZZZZZZZZZZZZZZZ");
+        assertThat(TimeOrderedIds.fromBase32("7ZZZZZZZZZZZZZZZZZZZZZZZZZ")).isEqualTo(new UUID(-1, -1));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        // a leading digit above 7 would need a 129th bit
+        assertThatThrownBy(() -> TimeOrderedIds.fromBase32("8ZZZZZZZZZZZZZZZZZZZZZZZZZ"))
+                .isInstanceOf(IllegalArgumentException.class);
+        // U is not in the Crockford alphabet
+        assertThatThrownBy(() -> TimeOrderedIds.fromBase32("0000000000000000000000000U"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeOrderedIds.fromBase32("0000"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TimeOrderedIds.fromBytes(new byte[15]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
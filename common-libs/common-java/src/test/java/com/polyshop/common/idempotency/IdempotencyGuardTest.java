@@ -0,0 +1,157 @@
+package com.polyshop.common.idempotency;
+
+import com.polyshop.common.idempotency.IdempotencyGuard.GuardSettings;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyGuardTest {
+
+    private static EmbeddedPostgres pg;
+    private static DataSource dataSource;
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager tm;
+    private ProcessedEventStore store;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        dataSource = pg.getPostgresDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("db/idempotency/processed-events-postgresql.sql")).execute(dataSource);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        pg.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("truncate processed_events");
+        tm = new DataSourceTransactionManager(dataSource);
+        store = new ProcessedEventStore(jdbc);
+    }
+
+    @Test
+    void runsTheHandlerOnceAndAnswersRepeatsFromMemory() {
+        IdempotencyGuard guard = guard("orders", Duration.ofMinutes(1));
+
+        assertThat(guard.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isTrue();
+        assertThat(guard.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isFalse();
+
+        assertThat(runs).hasValue(1);
+        assertThat(guard.getProcessedCount()).isEqualTo(1);
+        assertThat(guard.getMemoryDuplicateCount()).isEqualTo(1);
+        assertThat(guard.getLookupCount()).isZero();
+        assertThat(jdbc.queryForObject("select event_type from processed_events where event_id = 'evt-1'", String.class))
+                .isEqualTo("OrderCreated");
+    }
+
+    @Test
+    void anotherReplicaIsStoppedByTheStoredRow() {
+        guard("orders", Duration.ofMinutes(1)).handle("evt-1", "OrderCreated", runs::incrementAndGet);
+        IdempotencyGuard replica = guard("orders", Duration.ofMinutes(1));
+
+        assertThat(replica.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isFalse();
+
+        assertThat(runs).hasValue(1);
+        assertThat(replica.getStoredDuplicateCount()).isEqualTo(1);
+        // the failed claim is remembered, so the next repeat stays in memory
+        assertThat(replica.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isFalse();
+        assertThat(replica.getMemoryDuplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bloomTierConfirmsWithOneReadOnceTheRecentWindowHasPassed() throws Exception {
+        IdempotencyGuard guard = guard("orders", Duration.ofMillis(160));
+        guard.handle("evt-1", "OrderCreated", runs::incrementAndGet);
+
+        Thread.sleep(300);
+        assertThat(guard.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isFalse();
+
+        assertThat(runs).hasValue(1);
+        assertThat(guard.getLookupCount()).isEqualTo(1);
+        assertThat(guard.getStoredDuplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void failedHandlerRollsBackTheClaimSoARedeliveryRuns() {
+        IdempotencyGuard guard = guard("orders", Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> guard.handle("evt-1", "OrderCreated", () -> {
+            throw new IllegalStateException("downstream unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(count()).isZero();
+
+        assertThat(guard.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isTrue();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void joinsTheCallersTransactionAndForgetsTheIdWhenItRollsBack() {
+        IdempotencyGuard guard = guard("orders", Duration.ofMinutes(1));
+
+        new TransactionTemplate(tm).executeWithoutResult(status -> {
+            assertThat(guard.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        assertThat(count()).isZero();
+        assertThat(guard.getRecentSize()).isZero();
+        assertThat(guard.handle("evt-1", "OrderCreated", runs::incrementAndGet)).isTrue();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void consumersAreDeduplicatedSeparately() {
+        guard("orders", Duration.ofMinutes(1)).handle("evt-1", "OrderCreated", runs::incrementAndGet);
+
+        assertThat(guard("billing", Duration.ofMinutes(1)).handle("evt-1", "OrderCreated", runs::incrementAndGet)).isTrue();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void purgeDeletesExpiredRowsInChunks() {
+        for (int i = 0; i < 5; i++) {
+            jdbc.update("insert into processed_events (consumer, event_id, processed_at) values ('orders', ?, now() - interval '2 days')",
+                    "old-" + i);
+        }
+        IdempotencyGuard guard = guard("orders", Duration.ofMinutes(1));
+        guard.handle("fresh", "OrderCreated", runs::incrementAndGet);
+
+        assertThat(guard.purgeExpired()).isEqualTo(5);
+        assertThat(jdbc.queryForList("select event_id from processed_events", String.class)).containsExactly("fresh");
+    }
+
+    @Test
+    void eventIdIsRequired() {
+        assertThatThrownBy(() -> guard("orders", Duration.ofMinutes(1)).handle(null, "OrderCreated", runs::incrementAndGet))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private IdempotencyGuard guard(String consumer, Duration recentWindow) {
+        return new IdempotencyGuard(store, tm, new GuardSettings(
+                consumer, Duration.ofDays(1), recentWindow, 10_000, 10_000, 0.01, Duration.ofHours(1), 2));
+    }
+
+    private int count() {
+        return jdbc.queryForObject("select count(*) from processed_events", Integer.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.polyshop.common.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.common.events.EventEnvelope;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxPublisherTest {
+
+    private static EmbeddedPostgres pg;
+    private static DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private JdbcTemplate jdbc;
+    private TransactionTemplate tx;
+    private OutboxWriter writer;
+    private OutboxPublisher publisher;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        dataSource = pg.getPostgresDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("db/outbox/outbox-postgresql.sql")).execute(dataSource);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        pg.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("truncate outbox_events");
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(dataSource);
+        tx = new TransactionTemplate(tm);
+        writer = new OutboxWriter(jdbc, objectMapper);
+        // a "poison" payload fails inside send(), before anything reaches the broker
+        OutboxSender sender = (topic, key, value) -> {
+            if (value.contains("poison")) throw new IllegalStateException("cannot send " + key);
+            sent.add(key + ":" + topic);
+            return CompletableFuture.completedFuture(null);
+        };
+        publisher = new OutboxPublisher(jdbc, tm, sender, objectMapper, new OutboxPublisher.OutboxSettings(
+                "test", 100, 1, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(1), 3,
+                Duration.ofDays(1), Duration.ofHours(1)));
+    }
+
+    @Test
+    void publishesEachAggregateInOrderAndMarksRowsProcessed() {
+        append("order-1", "created", "paid", "shipped");
+        append("order-2", "created");
+
+        assertThat(publisher.publishBatch()).isEqualTo(4);
+        assertThat(sent).containsExactly("order-1:created", "order-1:paid", "order-1:shipped", "order-2:created");
+        assertThat(pending()).isZero();
+        assertThat(publisher.publishBatch()).isZero();
+    }
+
+    @Test
+    void synchronousFailureHoldsBackTheRestOfItsAggregate() {
+        append("order-1", "created");
+        appendPoison("order-1", "paid");
+        append("order-1", "shipped");
+        append("order-2", "created");
+
+        assertThat(publisher.publishBatch()).isEqualTo(2);
+        assertThat(sent).containsExactly("order-1:created", "order-2:created");
+        assertThat(jdbc.queryForObject("select attempts from outbox_events where event_type = 'paid'", Integer.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("select attempts from outbox_events where event_type = 'shipped' and not processed", Integer.class)).isZero();
+    }
+
+    @Test
+    void skipsAnAggregateWhoseEarlierEventIsClaimedElsewhere() throws Exception {
+        append("order-1", "created", "paid");
+        append("order-2", "created");
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            other.createStatement().execute(
+                    "select 1 from outbox_events where aggregate_id = 'order-1' and event_type = 'created' for update");
+
+            assertThat(publisher.publishBatch()).isEqualTo(1);
+            assertThat(sent).containsExactly("order-2:created");
+            other.rollback();
+        }
+        assertThat(publisher.publishBatch()).isEqualTo(2);
+        assertThat(sent).containsExactly("order-2:created", "order-1:created", "order-1:paid");
+    }
+
+    private void append(String aggregateId, String... eventTypes) {
+        tx.executeWithoutResult(s -> {
+            for (String type : eventTypes) writer.append(type, "order", aggregateId, Map.of("ok", true));
+        });
+    }
+
+    private void appendPoison(String aggregateId, String eventType) {
+        tx.executeWithoutResult(s -> writer.append(EventEnvelope.of(eventType, "order", aggregateId, Map.of("poison", true))));
+    }
+
+    private int pending() {
+        return jdbc.queryForObject("select count(*) from outbox_events where not processed", Integer.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.polyshop.common.outbox;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgNotifyOutboxTriggerTest {
+
+    private static EmbeddedPostgres pg;
+    private static DataSource dataSource;
+
+    private final Semaphore fired = new Semaphore(0);
+    private JdbcTemplate jdbc;
+    private PgNotifyOutboxTrigger trigger;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        dataSource = pg.getPostgresDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("db/outbox/outbox-postgresql.sql")).execute(dataSource);
+        ResourceDatabasePopulator notify = new ResourceDatabasePopulator(new ClassPathResource("db/outbox/outbox-notify-postgresql.sql"));
+        notify.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+        notify.execute(dataSource);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        pg.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        trigger = new PgNotifyOutboxTrigger(dataSource, Duration.ofMillis(50));
+        trigger.subscribe(fired::release);
+    }
+
+    @AfterEach
+    void tearDown() {
+        trigger.close();
+    }
+
+    @Test
+    void wakesOnCommittedInsert() throws Exception {
+        trigger.start();
+        // the catch-up fire once listening
+        assertThat(fired.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            insert(c);
+            // nothing is delivered while the row is invisible to the publisher
+            assertThat(fired.tryAcquire(300, TimeUnit.MILLISECONDS)).isFalse();
+            c.commit();
+        }
+
+        assertThat(fired.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void reconnectsAndFiresAfterLosingTheConnection() throws Exception {
+        trigger.start();
+        assertThat(fired.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        Integer killed = jdbc.queryForObject(
+                "select count(pg_terminate_backend(pid)) from pg_stat_activity " +
+                "where pid <> pg_backend_pid() and query like 'listen %'", Integer.class);
+        assertThat(killed).isEqualTo(1);
+
+        // notifications sent while it was gone are lost, so the new connection fires on its own
+        assertThat(fired.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        try (Connection c = dataSource.getConnection()) {
+            insert(c);
+        }
+        assertThat(fired.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void insert(Connection c) throws Exception {
+        try (Statement st = c.createStatement()) {
+            st.execute("insert into outbox_events (id, aggregate_type, aggregate_id, event_type, payload) " +
+                    "values ('" + UUID.randomUUID() + "', 'order', '1', 'OrderCreated', '{}')");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.polyshop.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentityHeaderVerifierTest {
+
+    // signed by the gateway's IdentityHeaderSigner in its IdentityHeaderSignerTest; change both together
+    private static final String SECRET = "test-identity-secret";
+    private static final String HEADER = "v1.M2YyYjFjOWUtOGQ0YS00ZjZiLTljMWUtMmE3ZDVlOGYwYjEzClJPTEVfVVNFUixST0xFX0FETUlOCmp0aS0xCjQxMDI0NDQ4MDA"
+            + ".2KgR1ygT6-PSflnGicXTH6sKgqh017gx3Uedcx_Vb34";
+
+    private final IdentityHeaderVerifier verifier = new IdentityHeaderVerifier(SECRET);
+
+    @Test
+    void acceptsHeaderSignedByTheGateway() {
+        JwtUser user = verifier.verify(HEADER);
+
+        assertThat(user).isNotNull();
+        assertThat(user.getId()).isEqualTo(UUID.fromString("3f2b1c9e-8d4a-4f6b-9c1e-2a7d5e8f0b13"));
+        assertThat(user.getRoles()).containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void rejectsOtherSecretTamperingAndExpiry() throws Exception {
+        assertThat(new IdentityHeaderVerifier("another-secret").verify(HEADER)).isNull();
+
+        String payload = HEADER.substring(3, HEADER.lastIndexOf('.'));
+        String elevated = "v1." + b64("3f2b1c9e-8d4a-4f6b-9c1e-2a7d5e8f0b13\nROLE_SUPERUSER\njti-1\n4102444800");
+        assertThat(verifier.verify(elevated + HEADER.substring(HEADER.lastIndexOf('.')))).isNull();
+        assertThat(verifier.verify("v2." + payload + HEADER.substring(HEADER.lastIndexOf('.')))).isNull();
+
+        String expired = sign("v1." + b64("alice@example.com\nROLE_USER\n\n" + (System.currentTimeMillis() / 1000 - 1)));
+        assertThat(verifier.verify(expired)).isNull();
+        String live = sign("v1." + b64("alice@example.com\nROLE_USER\n\n" + (System.currentTimeMillis() / 1000 + 60)));
+        assertThat(verifier.verify(live).getEmail()).isEqualTo("alice@example.com");
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThat(verifier.verify(null)).isNull();
+        assertThat(verifier.verify("v1.")).isNull();
+        assertThat(verifier.verify("v1.not base64.sig")).isNull();
+    }
+
+    private static String b64(String s) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sign(String signed) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return signed + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
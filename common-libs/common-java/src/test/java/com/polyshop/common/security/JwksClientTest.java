@@ -0,0 +1,173 @@
+package com.polyshop.common.security;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwksClientTest {
+
+    private static final String ISSUER = "polyshop-auth";
+    private static final Duration MIN_REFETCH = Duration.ofSeconds(1);
+
+    private final Map<String, KeyPair> published = new ConcurrentSkipListMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final List<Integer> statuses = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private JwksClient jwks;
+    private JwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        published.put("k1", rsaKeyPair());
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/.well-known/jwks.json", this::serveKeys);
+        server.start();
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/.well-known/jwks.json");
+        // no background refresh in these tests: every fetch is caused by a lookup
+        jwks = new JwksClient(uri, Duration.ofHours(1), MIN_REFETCH, Duration.ofSeconds(2));
+        verifier = new JwtVerifier(jwks, ISSUER, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jwks.close();
+        server.stop(0);
+    }
+
+    @Test
+    void knownKidVerifiesWithoutFetching() {
+        assertThat(verifier.verify(token("k1", ISSUER)).getEmail()).isEqualTo("alice@example.com");
+        assertThat(fetches).hasValue(1);
+
+        for (int i = 0; i < 10; i++) verifier.verify(token("k1", ISSUER));
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void unknownKidRefetchesAtMostOncePerInterval() throws Exception {
+        verifier.verify(token("k1", ISSUER));
+        published.put("k2", rsaKeyPair());
+
+        // the first load was just now, so k2 is not looked for yet
+        assertThatThrownBy(() -> verifier.verify(token("k2", ISSUER))).isInstanceOf(JwtException.class);
+        assertThat(fetches).hasValue(1);
+
+        Thread.sleep(MIN_REFETCH.toMillis() + 50);
+        assertThat(verifier.verify(token("k2", ISSUER)).getRoles()).containsExactly("ROLE_USER");
+        assertThat(fetches).hasValue(2);
+
+        KeyPair unpublished = rsaKeyPair();
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> verifier.verify(token("k3", ISSUER, unpublished))).isInstanceOf(JwtException.class);
+        }
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void revalidatesWithEtagAndKeepsKeysOnNotModified() throws Exception {
+        verifier.verify(token("k1", ISSUER));
+        Thread.sleep(MIN_REFETCH.toMillis() + 50);
+
+        assertThat(jwks.getKey("unknown")).isNull();
+        assertThat(fetches).hasValue(2);
+        assertThat(ifNoneMatch).containsExactly("", etag());
+        assertThat(statuses).containsExactly(200, 304);
+        assertThat(verifier.verify(token("k1", ISSUER)).getEmail()).isEqualTo("alice@example.com");
+    }
+
+    @Test
+    void rejectsTokenFromAnotherIssuer() {
+        assertThatThrownBy(() -> verifier.verify(token("k1", "someone-else"))).isInstanceOf(JwtException.class);
+    }
+
+    private String token(String kid, String issuer) {
+        return token(kid, issuer, published.get(kid));
+    }
+
+    private static String token(String kid, String issuer, KeyPair keys) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .issuer(issuer)
+                .subject("alice@example.com")
+                .claim("roles", List.of("ROLE_USER"))
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusSeconds(300)))
+                .signWith(keys.getPrivate(), Jwts.SIG.RS256)
+                .compact();
+    }
+
+    private void serveKeys(HttpExchange exchange) throws IOException {
+        fetches.incrementAndGet();
+        String sent = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatch.add(sent == null ? "" : sent);
+        exchange.getResponseHeaders().add("ETag", etag());
+        if (etag().equals(sent)) {
+            statuses.add(304);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = jwksJson().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        statuses.add(200);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String etag() {
+        return "\"" + String.join("-", published.keySet()) + "\"";
+    }
+
+    private String jwksJson() {
+        return published.entrySet().stream().map(e -> {
+            RSAPublicKey key = (RSAPublicKey) e.getValue().getPublic();
+            return "{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"" + e.getKey()
+                    + "\",\"n\":\"" + base64url(key.getModulus()) + "\",\"e\":\"" + base64url(key.getPublicExponent()) + "\"}";
+        }).collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+
+    private static String base64url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // drop the sign byte BigInteger adds to a positive value with the top bit set
+        if (bytes.length > 1 && bytes[0] == 0) bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
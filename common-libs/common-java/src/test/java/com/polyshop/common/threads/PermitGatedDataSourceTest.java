@@ -0,0 +1,91 @@
+package com.polyshop.common.threads;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PermitGatedDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        when(target.getConnection("user", "pass")).thenReturn(connection);
+    }
+
+    @Test
+    void permitIsHeldUntilTheConnectionCloses() throws SQLException {
+        PermitGatedDataSource gate = new PermitGatedDataSource(target, 2, Duration.ofSeconds(1));
+
+        Connection c = gate.getConnection();
+        assertThat(gate.getAvailablePermits()).isEqualTo(1);
+        assertThat(((ConnectionProxy) c).getTargetConnection()).isSameAs(connection);
+
+        c.close();
+        assertThat(gate.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void closingTwiceReleasesOnce() throws SQLException {
+        PermitGatedDataSource gate = new PermitGatedDataSource(target, 2, Duration.ofSeconds(1));
+        Connection c = gate.getConnection();
+
+        c.close();
+        c.close();
+
+        // a second release would let three callers in at once
+        assertThat(gate.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void permitIsReleasedWhenTheTargetFailsToClose() throws SQLException {
+        PermitGatedDataSource gate = new PermitGatedDataSource(target, 1, Duration.ofSeconds(1));
+        doThrow(new SQLException("broken")).when(connection).close();
+        Connection c = gate.getConnection();
+
+        assertThatThrownBy(c::close).isInstanceOf(SQLException.class).hasMessage("broken");
+        assertThat(gate.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void permitIsReleasedWhenGetConnectionFails() throws SQLException {
+        PermitGatedDataSource gate = new PermitGatedDataSource(target, 1, Duration.ofSeconds(1));
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        when(target.getConnection("user", "pass")).thenThrow(new IllegalStateException("closed"));
+
+        assertThatThrownBy(gate::getConnection).isInstanceOf(SQLException.class).hasMessage("pool exhausted");
+        assertThatThrownBy(() -> gate.getConnection("user", "pass")).isInstanceOf(IllegalStateException.class);
+        assertThat(gate.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void waitingPastTheTimeoutFailsTransiently() throws SQLException {
+        PermitGatedDataSource gate = new PermitGatedDataSource(target, 1, Duration.ofMillis(50));
+        Connection held = gate.getConnection();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(gate::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("1 permits");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        assertThat(gate.getAvailablePermits()).isZero();
+
+        held.close();
+        gate.getConnection("user", "pass").close();
+        assertThat(gate.getAvailablePermits()).isEqualTo(1);
+    }
+}
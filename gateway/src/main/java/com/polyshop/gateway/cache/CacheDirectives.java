@@ -0,0 +1,58 @@
+package com.polyshop.gateway.cache;
+
+import java.util.Locale;
+
+/**
+ * The response directives the gateway cache acts on. Unknown directives are ignored.
+ */
+record CacheDirectives(
+        boolean noStore,
+        boolean noCache,
+        boolean isPrivate,
+        boolean isPublic,
+        boolean mustRevalidate,
+        long maxAge,
+        long sMaxAge,
+        long staleWhileRevalidate
+) {
+
+    static final long UNSET = -1;
+
+    static CacheDirectives parse(String header) {
+        boolean noStore = false, noCache = false, isPrivate = false, isPublic = false, mustRevalidate = false;
+        long maxAge = UNSET, sMaxAge = UNSET, swr = UNSET;
+        if (header != null) {
+            for (String part : header.split(",")) {
+                String d = part.trim().toLowerCase(Locale.ROOT);
+                int eq = d.indexOf('=');
+                String name = eq < 0 ? d : d.substring(0, eq).trim();
+                String value = eq < 0 ? null : d.substring(eq + 1).trim().replace("\"", "");
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> isPrivate = true;
+                    case "public" -> isPublic = true;
+                    case "must-revalidate", "proxy-revalidate" -> mustRevalidate = true;
+                    case "max-age" -> maxAge = seconds(value);
+                    case "s-maxage" -> sMaxAge = seconds(value);
+                    case "stale-while-revalidate" -> swr = seconds(value);
+                    default -> { }
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, isPrivate, isPublic, mustRevalidate, maxAge, sMaxAge, swr);
+    }
+
+    long sharedMaxAge() {
+        return sMaxAge != UNSET ? sMaxAge : maxAge;
+    }
+
+    private static long seconds(String value) {
+        if (value == null) return UNSET;
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException ex) {
+            return UNSET;
+        }
+    }
+}
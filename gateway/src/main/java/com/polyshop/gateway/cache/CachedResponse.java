@@ -0,0 +1,38 @@
+package com.polyshop.gateway.cache;
+
+import java.util.List;
+import java.util.Map;
+
+record CachedResponse(
+        int status,
+        Map<String, List<String>> headers,
+        byte[] body,
+        String etag,
+        long storedAtMs,
+        long freshUntilMs,
+        long staleUntilMs
+) {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    boolean isFresh(long nowMs) {
+        return nowMs < freshUntilMs;
+    }
+
+    boolean isServableStale(long nowMs) {
+        return nowMs < staleUntilMs;
+    }
+
+    int weight() {
+        int w = ENTRY_OVERHEAD_BYTES + body.length;
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            w += e.getKey().length();
+            for (String v : e.getValue()) w += v.length();
+        }
+        return w;
+    }
+
+    CachedResponse withFreshness(long nowMs, long freshUntil, long staleUntil) {
+        return new CachedResponse(status, headers, body, etag, nowMs, freshUntil, staleUntil);
+    }
+}
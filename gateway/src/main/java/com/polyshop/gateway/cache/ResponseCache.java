@@ -0,0 +1,259 @@
+package com.polyshop.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.polyshop.gateway.http.RequestKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Shared HTTP cache for public catalog GETs, bounded by total bytes. Stale entries are served
+ * while a single background request per key revalidates them through the gateway itself.
+ * Responses without a max-age or s-maxage are kept for {@code gateway.cache.default-ttl-seconds}.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCache {
+
+    static final String REVALIDATE_HEADER = "X-Polyshop-Cache-Revalidate";
+    static final String RESULT_HEADER = "X-Cache";
+
+    private static final Set<String> UNSTORED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "content-length", "date", "age",
+            "proxy-authenticate", "trailer", "upgrade", RESULT_HEADER.toLowerCase(Locale.ROOT));
+
+    private final Cache<String, CachedResponse> cache;
+    private final List<PathPattern> paths;
+    private final List<String> keyHeaders;
+    private final int maxEntryBytes;
+    private final long defaultTtlMs;
+    private final long defaultStaleMs;
+    private final String revalidateToken = UUID.randomUUID().toString();
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private final ExecutorService revalidator;
+    private final HttpClient loopback;
+    private final Duration revalidationTimeout;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile int localPort;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter stores;
+    private final Counter evictedBytes;
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.cache.paths}") String[] paths,
+            @Value("${gateway.cache.key-headers:Accept,Accept-Encoding,Accept-Language}") String[] keyHeaders,
+            @Value("${gateway.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${gateway.cache.max-entry-bytes:1048576}") int maxEntryBytes,
+            @Value("${gateway.cache.default-ttl-seconds:10}") long defaultTtlSeconds,
+            @Value("${gateway.cache.stale-while-revalidate-seconds:30}") long defaultStaleSeconds,
+            @Value("${gateway.cache.revalidation-threads:2}") int revalidationThreads,
+            @Value("${gateway.cache.revalidation-timeout-ms:5000}") long revalidationTimeoutMs
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.paths = Arrays.stream(paths).map(PathPatternParser.defaultInstance::parse).toList();
+        this.keyHeaders = Arrays.stream(keyHeaders).map(h -> h.trim().toLowerCase(Locale.ROOT)).sorted().toList();
+        this.maxEntryBytes = maxEntryBytes;
+        this.defaultTtlMs = defaultTtlSeconds * 1000;
+        this.defaultStaleMs = defaultStaleSeconds * 1000;
+        this.evictedBytes = meterRegistry.counter("gateway.cache.evicted.bytes");
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+                .removalListener((String key, CachedResponse value, RemovalCause cause) -> {
+                    if (cause.wasEvicted() && value != null) evictedBytes.increment(value.weight());
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+        meterRegistry.gauge("gateway.cache.bytes", cache, c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        this.hits = meterRegistry.counter("gateway.cache.requests", "result", "hit");
+        this.staleHits = meterRegistry.counter("gateway.cache.requests", "result", "stale");
+        this.misses = meterRegistry.counter("gateway.cache.requests", "result", "miss");
+        this.stores = meterRegistry.counter("gateway.cache.stores");
+        this.revalidator = Executors.newFixedThreadPool(Math.max(1, revalidationThreads), r -> {
+            Thread t = new Thread(r, "gateway-cache-revalidate");
+            t.setDaemon(true);
+            return t;
+        });
+        this.loopback = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(revalidationTimeoutMs))
+                .executor(revalidator)
+                .build();
+        this.revalidationTimeout = Duration.ofMillis(revalidationTimeoutMs);
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() == null) {
+            localPort = event.getWebServer().getPort();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        revalidator.shutdownNow();
+    }
+
+    boolean isCacheable(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) return false;
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (PathPattern p : paths) {
+            if (p.matches(path)) return true;
+        }
+        return false;
+    }
+
+    boolean isRevalidation(HttpServletRequest request) {
+        return revalidateToken.equals(request.getHeader(REVALIDATE_HEADER));
+    }
+
+    String key(HttpServletRequest request) {
+        return RequestKeys.of(request, keyHeaders);
+    }
+
+    CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    void recordHit(boolean stale) {
+        (stale ? staleHits : hits).increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Stores the response if its status, headers and Cache-Control allow a shared cache to keep it.
+     */
+    void store(String key, HttpServletRequest request, int status, Map<String, List<String>> headers, byte[] body) {
+        if (status != 200 || body.length > maxEntryBytes) return;
+        if (first(headers, HttpHeaders.SET_COOKIE) != null) return;
+        if (!varyIsCovered(first(headers, HttpHeaders.VARY))) return;
+        CacheDirectives cc = CacheDirectives.parse(joined(headers, HttpHeaders.CACHE_CONTROL));
+        if (cc.noStore() || cc.isPrivate() || cc.noCache()) return;
+        if (request.getHeader(HttpHeaders.AUTHORIZATION) != null && !cc.isPublic() && cc.sMaxAge() == CacheDirectives.UNSET) return;
+        long ttlMs = cc.sharedMaxAge() != CacheDirectives.UNSET ? cc.sharedMaxAge() * 1000 : defaultTtlMs;
+        if (ttlMs <= 0) return;
+
+        long now = System.currentTimeMillis();
+        Map<String, List<String>> kept = new LinkedHashMap<>();
+        headers.forEach((name, values) -> {
+            if (!UNSTORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) kept.put(name, List.copyOf(values));
+        });
+        long freshUntil = now + ttlMs;
+        CachedResponse entry = new CachedResponse(status, Map.copyOf(kept), body, first(headers, HttpHeaders.ETAG), now, freshUntil, freshUntil + staleMs(cc));
+        cache.put(key, entry);
+        stores.increment();
+    }
+
+    /**
+     * Upstream confirmed the cached body with a 304; extend its freshness from the new headers.
+     */
+    void refresh(String key, CachedResponse entry, Map<String, List<String>> headers) {
+        CacheDirectives cc = CacheDirectives.parse(joined(headers, HttpHeaders.CACHE_CONTROL));
+        if (cc.noStore() || cc.isPrivate()) {
+            cache.invalidate(key);
+            return;
+        }
+        long ttlMs = cc.sharedMaxAge() != CacheDirectives.UNSET ? cc.sharedMaxAge() * 1000 : defaultTtlMs;
+        long now = System.currentTimeMillis();
+        cache.put(key, entry.withFreshness(now, now + ttlMs, now + ttlMs + staleMs(cc)));
+    }
+
+    /**
+     * Starts at most one background revalidation per key; concurrent callers keep serving stale.
+     */
+    void revalidateAsync(String key, HttpServletRequest request, CachedResponse entry) {
+        if (localPort <= 0 || !revalidating.add(key)) return;
+        String query = request.getQueryString();
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + localPort + request.getRequestURI() + (query == null ? "" : "?" + query)))
+                .timeout(revalidationTimeout)
+                .header(REVALIDATE_HEADER, revalidateToken)
+                .GET();
+        for (String h : keyHeaders) {
+            String v = request.getHeader(h);
+            if (v != null) req.header(h, v);
+        }
+        if (entry.etag() != null) req.header(HttpHeaders.IF_NONE_MATCH, entry.etag());
+        try {
+            loopback.sendAsync(req.build(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((res, ex) -> {
+                        revalidating.remove(key);
+                        String outcome = ex != null ? "failed" : res.statusCode() == 304 ? "not_modified" : res.statusCode() == 200 ? "updated" : "failed";
+                        if (ex != null) log.debug("revalidation of {} failed: {}", request.getRequestURI(), ex.getMessage());
+                        meterRegistry.counter("gateway.cache.revalidations", "outcome", outcome).increment();
+                    });
+        } catch (RejectedExecutionException ex) {
+            revalidating.remove(key);
+        }
+    }
+
+    private long staleMs(CacheDirectives cc) {
+        if (cc.mustRevalidate()) return 0;
+        return cc.staleWhileRevalidate() != CacheDirectives.UNSET ? cc.staleWhileRevalidate() * 1000 : defaultStaleMs;
+    }
+
+    private boolean varyIsCovered(String vary) {
+        if (vary == null || vary.isBlank()) return true;
+        for (String h : vary.split(",")) {
+            String name = h.trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) continue;
+            if (name.equals("*") || !keyHeaders.contains(name)) return false;
+        }
+        return true;
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty()) return e.getValue().get(0);
+        }
+        return null;
+    }
+
+    private static String joined(Map<String, List<String>> headers, String name) {
+        List<String> all = new ArrayList<>();
+        headers.forEach((k, v) -> {
+            if (k.equalsIgnoreCase(name)) all.addAll(v);
+        });
+        return all.isEmpty() ? null : String.join(",", all);
+    }
+}
@@ -0,0 +1,152 @@
+package com.polyshop.gateway.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseCache cache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !cache.isCacheable(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String key = cache.key(request);
+        boolean revalidation = cache.isRevalidation(request);
+        CachedResponse entry = cache.get(key);
+        String requestCacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+        boolean bypass = requestCacheControl != null && (requestCacheControl.contains("no-cache") || requestCacheControl.contains("no-store"));
+
+        if (entry != null && !revalidation && !bypass) {
+            long now = System.currentTimeMillis();
+            if (entry.isFresh(now)) {
+                cache.recordHit(false);
+                write(request, response, entry, now, "HIT");
+                return;
+            }
+            if (entry.isServableStale(now)) {
+                cache.recordHit(true);
+                cache.revalidateAsync(key, request, entry);
+                write(request, response, entry, now, "STALE");
+                return;
+            }
+        }
+        if (!revalidation) cache.recordMiss();
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            HttpServletRequest proxied = request.getHeader(ResponseCache.REVALIDATE_HEADER) == null ? request : new WithoutRevalidateHeader(request);
+            filterChain.doFilter(proxied, wrapper);
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : wrapper.getHeaderNames()) headers.put(name, List.copyOf(wrapper.getHeaders(name)));
+            if (revalidation && entry != null && wrapper.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                cache.refresh(key, entry, headers);
+            } else if (!(requestCacheControl != null && requestCacheControl.contains("no-store"))) {
+                cache.store(key, request, wrapper.getStatus(), headers, wrapper.getContentAsByteArray());
+            }
+            if (!revalidation) wrapper.setHeader(ResponseCache.RESULT_HEADER, "MISS");
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, CachedResponse entry, long now, String result) throws IOException {
+        entry.headers().forEach((name, values) -> values.forEach(v -> response.addHeader(name, v)));
+        response.setHeader(HttpHeaders.AGE, Long.toString(Math.max(0, (now - entry.storedAtMs()) / 1000)));
+        response.setHeader(ResponseCache.RESULT_HEADER, result);
+        if (entry.etag() != null && ifNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(entry.status());
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    /**
+     * Whether an If-None-Match header matches the entity tag, by the weak comparison RFC 9110
+     * requires for it: {@code W/} prefixes are ignored and {@code *} matches any tag.
+     */
+    static boolean ifNoneMatch(String header, String etag) {
+        if (header == null) return false;
+        String tag = opaqueTag(etag.trim());
+        int i = 0;
+        int n = header.length();
+        while (i < n) {
+            char c = header.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (c == '*') return true;
+            int start = i;
+            if (header.startsWith("W/", i)) i += 2;
+            if (i < n && header.charAt(i) == '"') {
+                // a quoted tag may itself contain commas
+                int close = header.indexOf('"', i + 1);
+                i = close < 0 ? n : close + 1;
+            } else {
+                while (i < n && header.charAt(i) != ',') i++;
+            }
+            if (opaqueTag(header.substring(start, i).trim()).equals(tag)) return true;
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * Hides the revalidation token from everything after this filter, so it is never proxied.
+     */
+    private static final class WithoutRevalidateHeader extends HttpServletRequestWrapper {
+
+        WithoutRevalidateHeader(HttpServletRequest request) {
+            super(request);
+        }
+
+        private static boolean isRevalidate(String name) {
+            return ResponseCache.REVALIDATE_HEADER.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isRevalidate(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isRevalidate(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>();
+            for (Enumeration<String> e = super.getHeaderNames(); e.hasMoreElements(); ) {
+                String name = e.nextElement();
+                if (!isRevalidate(name)) names.add(name);
+            }
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.polyshop.gateway.config;
+
+import com.polyshop.gateway.filter.ConcurrencyLimitFilterFunctions;
+import com.polyshop.gateway.filter.SingleFlightFilterFunctions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GatewayFilterConfig {
+
+    @Bean
+    public SingleFlightFilterFunctions.FilterSupplier singleFlightFilterSupplier() {
+        return new SingleFlightFilterFunctions.FilterSupplier();
+    }
+
+    @Bean
+    public ConcurrencyLimitFilterFunctions.FilterSupplier concurrencyLimitFilterSupplier() {
+        return new ConcurrencyLimitFilterFunctions.FilterSupplier();
+    }
+}
@@ -0,0 +1,63 @@
+package com.polyshop.gateway.config;
+
+import com.polyshop.gateway.security.EdgeAuthenticationFilter;
+import com.polyshop.gateway.security.EdgeTokenVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Configuration
+public class SecurityConfig {
+
+    @Bean
+    public EdgeAuthenticationFilter edgeAuthenticationFilter(EdgeTokenVerifier verifier) {
+        return new EdgeAuthenticationFilter(verifier);
+    }
+
+    // registered inside the security chain only
+    @Bean
+    public FilterRegistrationBean<EdgeAuthenticationFilter> edgeAuthenticationFilterRegistration(EdgeAuthenticationFilter filter) {
+        FilterRegistrationBean<EdgeAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    private AuthenticationEntryPoint authenticationEntryPoint() {
+        return (request, response, authException) -> {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"unauthorized\",\"message\":\"a valid bearer token is required\"}");
+        };
+    }
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(
+            HttpSecurity http,
+            EdgeAuthenticationFilter edgeAuthenticationFilter,
+            @Value("${gateway.auth.public-paths}") String[] publicPaths,
+            @Value("${gateway.auth.public-get-paths}") String[] publicGetPaths
+    ) throws Exception {
+        http
+                .csrf(csrf -> csrf.disable())
+                .httpBasic(basic -> basic.disable())
+                .formLogin(form -> form.disable())
+                .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(authenticationEntryPoint()))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(publicPaths).permitAll()
+                        .requestMatchers(HttpMethod.GET, publicGetPaths).permitAll()
+                        .anyRequest().authenticated()
+                )
+                .addFilterBefore(edgeAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        return http.build();
+    }
+}
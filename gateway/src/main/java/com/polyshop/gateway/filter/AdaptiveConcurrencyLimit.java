@@ -0,0 +1,112 @@
+package com.polyshop.gateway.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-style concurrency limit. Each sample window compares the recent average latency with
+ * a slow-moving baseline: when recent latency rises above {@code tolerance} times the baseline
+ * the limit shrinks proportionally, otherwise it grows by about sqrt(limit). Failures cut the
+ * limit multiplicatively. The limit only grows while some class uses at least half of the part
+ * of it that class is allowed, so a limit shared by classes with different shares still grows
+ * when only the lower classes are busy.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW = 600;
+    private static final double DROP_FACTOR = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final int windowMinSamples;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+
+    // guarded by this
+    private double longRttNanos;
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private double windowMaxUtilisation;
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, long windowNanos, int windowMinSamples) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = windowNanos;
+        this.windowMinSamples = windowMinSamples;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * @param share fraction of the limit this request's class may use
+     * @return the inflight count at admission, or -1 when the request must be rejected
+     */
+    public int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) return -1;
+            if (inflight.compareAndSet(current, current + 1)) return current + 1;
+        }
+    }
+
+    /**
+     * @param share the share the request was admitted with
+     */
+    public void release(long rttNanos, int inflightAtStart, double share, boolean dropped) {
+        inflight.decrementAndGet();
+        sample(rttNanos, inflightAtStart, share, dropped);
+    }
+
+    private synchronized void sample(long rttNanos, int inflightAtStart, double share, boolean dropped) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxUtilisation = Math.max(windowMaxUtilisation, inflightAtStart / Math.max(1, limit * share));
+        windowDropped |= dropped;
+        long now = System.nanoTime();
+        if (windowSamples < windowMinSamples || now - windowStart < windowNanos) return;
+
+        double shortRtt = (double) windowRttSum / windowSamples;
+        boolean appLimited = windowMaxUtilisation < 0.5;
+        boolean drop = windowDropped;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxUtilisation = 0;
+        windowDropped = false;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+            return;
+        }
+        longRttNanos += (shortRtt - longRttNanos) / LONG_WINDOW;
+        // let the baseline follow a sustained latency drop quickly
+        if (longRttNanos / shortRtt > 2) longRttNanos *= 0.95;
+
+        double current = limit;
+        double next;
+        if (drop) {
+            next = current * DROP_FACTOR;
+        } else if (appLimited) {
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRtt));
+            next = current * gradient + Math.sqrt(current);
+            next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
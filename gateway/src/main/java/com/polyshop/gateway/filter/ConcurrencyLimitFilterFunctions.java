@@ -0,0 +1,74 @@
+package com.polyshop.gateway.filter;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.cloud.gateway.server.mvc.common.MvcUtils;
+import org.springframework.cloud.gateway.server.mvc.common.Shortcut;
+import org.springframework.cloud.gateway.server.mvc.filter.SimpleFilterSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+
+/**
+ * Route filter enforcing an adaptive concurrency limit, by default one shared by every route
+ * that enables it (see {@link ConcurrencyLimiters}). Requests over their class's share of the
+ * limit are rejected at once with 503 and Retry-After instead of queueing.
+ * Enable per route with {@code AdaptiveConcurrency}.
+ */
+public abstract class ConcurrencyLimitFilterFunctions {
+
+    private ConcurrencyLimitFilterFunctions() {
+    }
+
+    @Shortcut
+    public static HandlerFilterFunction<ServerResponse, ServerResponse> adaptiveConcurrency() {
+        return (request, next) -> {
+            ConcurrencyLimiters limiters = MvcUtils.getApplicationContext(request).getBean(ConcurrencyLimiters.class);
+            String route = String.valueOf(request.attribute(MvcUtils.GATEWAY_ROUTE_ID_ATTR).orElse("unknown"));
+            AdaptiveConcurrencyLimit limit = limiters.forRoute(route);
+            RequestPriority priority = limiters.classify(request.servletRequest());
+
+            double share = limiters.share(priority);
+            int inflight = limit.tryAcquire(share);
+            if (inflight < 0) {
+                limiters.recordRejected(route, priority);
+                return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, Long.toString(limiters.getRetryAfterSeconds()))
+                        .build();
+            }
+            long start = System.nanoTime();
+            ServerResponse response;
+            try {
+                response = next.handle(request);
+            } catch (Exception | Error ex) {
+                limit.release(System.nanoTime() - start, inflight, share, true);
+                throw ex;
+            }
+            // latency is time to the upstream's response headers; the permit is held until the body is written
+            long rtt = System.nanoTime() - start;
+            boolean dropped = response.statusCode().is5xxServerError();
+            return new DelegatingServerResponse(response) {
+                @Override
+                public ModelAndView writeTo(HttpServletRequest req, HttpServletResponse res, Context context) throws ServletException, IOException {
+                    try {
+                        return super.writeTo(req, res, context);
+                    } finally {
+                        limit.release(rtt, inflight, share, dropped);
+                    }
+                }
+            };
+        };
+    }
+
+    public static class FilterSupplier extends SimpleFilterSupplier {
+
+        public FilterSupplier() {
+            super(ConcurrencyLimitFilterFunctions.class);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.polyshop.gateway.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link AdaptiveConcurrencyLimit}s and the rules that map a request to its
+ * {@link RequestPriority}. Patterns are {@code /path/**} or {@code METHOD /path/**}.
+ *
+ * <p>With {@code gateway.concurrency.scope=gateway} (the default) every route shares one limit,
+ * so a search burst is shed to keep checkout within it; shedding by priority only works when
+ * the classes compete for the same limit. {@code route} gives each route its own limit instead.
+ */
+@Component
+public class ConcurrencyLimiters {
+
+    private static final String SHARED = "gateway";
+
+    private record Rule(String method, PathPattern pattern, RequestPriority priority) {}
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final Map<RequestPriority, Double> shares = new EnumMap<>(RequestPriority.class);
+    private final List<Rule> rules = new ArrayList<>();
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final int windowMinSamples;
+    private final long retryAfterSeconds;
+    private final boolean perRoute;
+
+    public ConcurrencyLimiters(
+            MeterRegistry meterRegistry,
+            @Value("${gateway.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${gateway.concurrency.min-limit:4}") int minLimit,
+            @Value("${gateway.concurrency.max-limit:500}") int maxLimit,
+            @Value("${gateway.concurrency.rtt-tolerance:1.5}") double tolerance,
+            @Value("${gateway.concurrency.window-ms:200}") long windowMs,
+            @Value("${gateway.concurrency.window-min-samples:10}") int windowMinSamples,
+            @Value("${gateway.concurrency.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${gateway.concurrency.scope:gateway}") String scope,
+            @Value("${gateway.concurrency.critical-paths:}") String[] criticalPaths,
+            @Value("${gateway.concurrency.low-priority-paths:}") String[] lowPriorityPaths,
+            @Value("${gateway.concurrency.share.normal:0.8}") double normalShare,
+            @Value("${gateway.concurrency.share.low:0.5}") double lowShare
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.windowMinSamples = windowMinSamples;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.perRoute = switch (scope) {
+            case "gateway" -> false;
+            case "route" -> true;
+            default -> throw new IllegalArgumentException("gateway.concurrency.scope must be gateway or route, got " + scope);
+        };
+        shares.put(RequestPriority.CRITICAL, 1.0);
+        shares.put(RequestPriority.NORMAL, normalShare);
+        shares.put(RequestPriority.LOW, lowShare);
+        for (String p : criticalPaths) addRule(p, RequestPriority.CRITICAL);
+        for (String p : lowPriorityPaths) addRule(p, RequestPriority.LOW);
+    }
+
+    private void addRule(String spec, RequestPriority priority) {
+        String s = spec.trim();
+        if (s.isEmpty()) return;
+        int space = s.indexOf(' ');
+        String method = space < 0 ? null : s.substring(0, space).trim();
+        String path = space < 0 ? s : s.substring(space + 1).trim();
+        rules.add(new Rule(method, PathPatternParser.defaultInstance.parse(path), priority));
+    }
+
+    public RequestPriority classify(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Rule r : rules) {
+            if ((r.method() == null || r.method().equalsIgnoreCase(request.getMethod())) && r.pattern().matches(path)) {
+                return r.priority();
+            }
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    public double share(RequestPriority priority) {
+        return shares.get(priority);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public AdaptiveConcurrencyLimit forRoute(String route) {
+        return limits.computeIfAbsent(perRoute ? route : SHARED, key -> {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, windowNanos, windowMinSamples);
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit).tag("limiter", key).register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight).tag("limiter", key).register(meterRegistry);
+            return limit;
+        });
+    }
+
+    public void recordRejected(String route, RequestPriority priority) {
+        meterRegistry.counter("gateway.concurrency.rejected", "route", route, "priority", priority.name().toLowerCase()).increment();
+    }
+}
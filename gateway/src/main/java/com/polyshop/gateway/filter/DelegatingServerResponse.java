@@ -0,0 +1,52 @@
+package com.polyshop.gateway.filter;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+
+/**
+ * Base for route filters that need to observe the proxied response while it is written,
+ * which happens after the filter function itself has returned.
+ */
+abstract class DelegatingServerResponse implements ServerResponse {
+
+    protected final ServerResponse delegate;
+
+    DelegatingServerResponse(ServerResponse delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HttpStatusCode statusCode() {
+        return delegate.statusCode();
+    }
+
+    @Override
+    @SuppressWarnings("removal")
+    public int rawStatusCode() {
+        return delegate.statusCode().value();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public MultiValueMap<String, Cookie> cookies() {
+        return delegate.cookies();
+    }
+
+    @Override
+    public ModelAndView writeTo(HttpServletRequest request, HttpServletResponse response, Context context) throws ServletException, IOException {
+        return delegate.writeTo(request, response, context);
+    }
+}
@@ -0,0 +1,11 @@
+package com.polyshop.gateway.filter;
+
+/**
+ * Request classes in the order they are protected: when the gateway nears its limit, LOW is shed
+ * first and CRITICAL last.
+ */
+public enum RequestPriority {
+    CRITICAL,
+    NORMAL,
+    LOW
+}
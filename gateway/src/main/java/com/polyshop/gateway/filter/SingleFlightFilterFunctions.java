@@ -0,0 +1,151 @@
+package com.polyshop.gateway.filter;
+
+import com.polyshop.gateway.http.RequestKeys;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.cloud.gateway.server.mvc.common.Shortcut;
+import org.springframework.cloud.gateway.server.mvc.filter.SimpleFilterSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Route filter that lets concurrent identical GETs share one upstream call. The first request
+ * (the leader) is proxied as usual; its buffered response is replayed to every request that
+ * arrived while it was in flight, up to {@code maxWaiters}; waiters get a 504 after {@code timeout}.
+ * Enable per route with {@code SingleFlight=<maxWaiters>,<timeout>}.
+ */
+public abstract class SingleFlightFilterFunctions {
+
+    // the caller's identity is part of the key, so different users never share a response; so
+    // are the conditional and range headers, or a 304 or 206 would be replayed to a plain GET
+    private static final List<String> KEY_HEADERS = List.of(
+            "accept", "accept-encoding", "accept-language", "authorization", "x-polyshop-identity",
+            "if-none-match", "if-modified-since", "if-match", "if-unmodified-since", "range", "if-range");
+
+    private static final Set<String> UNREPLAYED_HEADERS = Set.of("content-length", "transfer-encoding", "connection", "keep-alive");
+
+    private SingleFlightFilterFunctions() {
+    }
+
+    private record Shared(int status, HttpHeaders headers, byte[] body) {}
+
+    private static final class Flight {
+        final CompletableFuture<Shared> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    @Shortcut
+    public static HandlerFilterFunction<ServerResponse, ServerResponse> singleFlight(int maxWaiters, Duration timeout) {
+        ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+        return (request, next) -> {
+            if (!"GET".equals(request.method().name())) return next.handle(request);
+            String key = RequestKeys.of(request.servletRequest(), KEY_HEADERS);
+
+            Flight mine = new Flight();
+            Flight flight = flights.putIfAbsent(key, mine);
+            if (flight == null) {
+                mine.result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .whenComplete((r, ex) -> flights.remove(key, mine));
+                return lead(request, next, mine);
+            }
+            // past the waiter cap, shed instead of letting the herd through to the upstream
+            if (flight.waiters.incrementAndGet() > maxWaiters) {
+                flight.waiters.decrementAndGet();
+                Metrics.counter("gateway.singleflight.requests", "result", "overflow").increment();
+                return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+            }
+            return follow(flight, timeout);
+        };
+    }
+
+    private static ServerResponse lead(ServerRequest request, HandlerFunction<ServerResponse> next, Flight flight) throws Exception {
+        Metrics.counter("gateway.singleflight.requests", "result", "leader").increment();
+        ServerResponse upstream;
+        try {
+            upstream = next.handle(request);
+        } catch (Exception | Error ex) {
+            flight.result.completeExceptionally(ex);
+            throw ex;
+        }
+        return new RecordingResponse(upstream, flight.result);
+    }
+
+    private static ServerResponse follow(Flight flight, Duration timeout) throws InterruptedException {
+        Shared shared;
+        try {
+            shared = flight.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            Metrics.counter("gateway.singleflight.requests", "result", "timeout").increment();
+            return ServerResponse.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        } catch (ExecutionException ex) {
+            Metrics.counter("gateway.singleflight.requests", "result", ex.getCause() instanceof TimeoutException ? "timeout" : "failed").increment();
+            return ServerResponse.status(ex.getCause() instanceof TimeoutException ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY).build();
+        }
+        Metrics.counter("gateway.singleflight.requests", "result", "shared").increment();
+        return ServerResponse.status(shared.status())
+                .headers(h -> h.addAll(shared.headers()))
+                .body(shared.body());
+    }
+
+    /**
+     * Writes the leader's response as usual while keeping a copy of status, headers and body
+     * for the waiters. The copy is published before the body reaches the leader's client, so a
+     * slow or disconnected leader does not hold the others up.
+     */
+    private static final class RecordingResponse extends DelegatingServerResponse {
+
+        private final CompletableFuture<Shared> result;
+
+        RecordingResponse(ServerResponse delegate, CompletableFuture<Shared> result) {
+            super(delegate);
+            this.result = result;
+        }
+
+        @Override
+        public ModelAndView writeTo(HttpServletRequest request, HttpServletResponse response, Context context) throws ServletException, IOException {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            try {
+                ModelAndView mav = delegate.writeTo(request, wrapper, context);
+                // only the upstream's headers; servlet filters add their own to each waiter's response
+                HttpHeaders headers = new HttpHeaders();
+                delegate.headers().forEach((name, values) -> {
+                    if (!UNREPLAYED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) headers.addAll(name, values);
+                });
+                result.complete(new Shared(wrapper.getStatus(), headers, wrapper.getContentAsByteArray()));
+                return mav;
+            } catch (IOException | ServletException | RuntimeException ex) {
+                result.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+
+    public static class FilterSupplier extends SimpleFilterSupplier {
+
+        public FilterSupplier() {
+            super(SingleFlightFilterFunctions.class);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.polyshop.gateway.http;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Builds identity keys for requests so that equivalent URLs (reordered query parameters,
+ * duplicate or trailing slashes) map to the same key.
+ */
+public final class RequestKeys {
+
+    private RequestKeys() {
+    }
+
+    /**
+     * @param headers lower-case header names whose values are part of the key
+     */
+    public static String of(HttpServletRequest request, List<String> headers) {
+        StringBuilder sb = new StringBuilder(128)
+                .append(request.getMethod()).append(' ')
+                .append(normalizePath(request.getRequestURI()));
+        String query = request.getQueryString();
+        if (query != null && !query.isEmpty()) {
+            String sorted = Arrays.stream(query.split("&")).filter(p -> !p.isEmpty()).sorted().collect(Collectors.joining("&"));
+            if (!sorted.isEmpty()) sb.append('?').append(sorted);
+        }
+        for (String h : headers) {
+            String v = request.getHeader(h);
+            sb.append('\n').append(h).append(':').append(v == null ? "" : v.trim());
+        }
+        return sb.toString();
+    }
+
+    static String normalizePath(String uri) {
+        String path = uri.replaceAll("/{2,}", "/");
+        return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+}
@@ -0,0 +1,87 @@
+package com.polyshop.gateway.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Verifies the bearer token once at the edge and replaces any client-supplied identity header
+ * with one signed by {@link IdentityHeaderSigner}.
+ */
+@RequiredArgsConstructor
+public class EdgeAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final EdgeTokenVerifier verifier;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String identityHeader = null;
+        String h = request.getHeader("Authorization");
+        if (h != null && h.startsWith(BEARER)) {
+            try {
+                EdgeTokenVerifier.Verified verified = verifier.verify(h.substring(BEARER.length()));
+                EdgeIdentity identity = verified.identity();
+                List<SimpleGrantedAuthority> authorities = identity.roles().stream().map(SimpleGrantedAuthority::new).toList();
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(identity, null, authorities));
+                identityHeader = verified.identityHeader();
+            } catch (Exception ex) {
+                log.debug("edge jwt verification failed: {}", ex.getMessage());
+            }
+        }
+        filterChain.doFilter(new IdentityHeaderRequest(request, identityHeader), response);
+    }
+
+    private static final class IdentityHeaderRequest extends HttpServletRequestWrapper {
+
+        private final String identityHeader;
+
+        IdentityHeaderRequest(HttpServletRequest request, String identityHeader) {
+            super(request);
+            this.identityHeader = identityHeader;
+        }
+
+        private static boolean isIdentity(String name) {
+            return IdentityHeaderSigner.HEADER_NAME.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isIdentity(name) ? identityHeader : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!isIdentity(name)) return super.getHeaders(name);
+            return identityHeader == null ? Collections.emptyEnumeration() : Collections.enumeration(List.of(identityHeader));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>();
+            for (Enumeration<String> e = super.getHeaderNames(); e.hasMoreElements(); ) {
+                String name = e.nextElement();
+                if (!isIdentity(name)) names.add(name);
+            }
+            if (identityHeader != null) names.add(IdentityHeaderSigner.HEADER_NAME);
+            return Collections.enumeration(names);
+        }
+    }
+}
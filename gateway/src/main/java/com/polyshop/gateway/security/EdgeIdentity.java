@@ -0,0 +1,6 @@
+package com.polyshop.gateway.security;
+
+import java.time.Instant;
+import java.util.List;
+
+public record EdgeIdentity(String subject, List<String> roles, String jti, Instant expiresAt) {}
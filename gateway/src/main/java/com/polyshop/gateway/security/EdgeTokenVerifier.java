@@ -0,0 +1,95 @@
+package com.polyshop.gateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.UnsupportedKeyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies access tokens at the edge by signature, issuer and expiry only.
+ *
+ * <p>Revocation is not checked here: auth-service's revocation list (logout) and per-user token
+ * epochs (password change, "log out everywhere") live in its own database and are not
+ * propagated to the gateway. A revoked access token is therefore accepted at the edge, and by
+ * every service behind it, until it expires; only auth-service's own endpoints reject it.
+ * Access token lifetime is the bound on that window, so keep it short.
+ */
+@Component
+public class EdgeTokenVerifier {
+
+    private final JwtParser parser;
+    private final IdentityHeaderSigner signer;
+    private final long cacheTtlMs;
+    private final int cacheSize;
+    private final ConcurrentHashMap<String, Verified> cache = new ConcurrentHashMap<>();
+
+    public record Verified(String token, EdgeIdentity identity, String identityHeader, long cachedUntilMs) {}
+
+    public EdgeTokenVerifier(
+            JwksKeyCache keys,
+            IdentityHeaderSigner signer,
+            @Value("${gateway.auth.issuer:polyshop-auth}") String issuer,
+            @Value("${gateway.auth.clock-skew-seconds:60}") long clockSkewSeconds,
+            @Value("${gateway.auth.verified-cache-ttl-ms:30000}") long cacheTtlMs,
+            @Value("${gateway.auth.verified-cache-size:10000}") int cacheSize
+    ) {
+        this.signer = signer;
+        this.cacheTtlMs = cacheTtlMs;
+        this.cacheSize = cacheSize;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        PublicKey key = keys.getKey(header.getKeyId());
+                        if (key == null) throw new UnsupportedKeyException("unknown jwt kid: " + header.getKeyId());
+                        return key;
+                    }
+                })
+                .requireIssuer(issuer)
+                .clockSkewSeconds(clockSkewSeconds)
+                .build();
+    }
+
+    public Verified verify(String token) {
+        int dot = token.lastIndexOf('.');
+        String signature = dot < 0 ? token : token.substring(dot + 1);
+        long now = System.currentTimeMillis();
+        Verified cached = cache.get(signature);
+        if (cached != null && cached.token().equals(token)) {
+            if (cached.cachedUntilMs() > now) return cached;
+            cache.remove(signature, cached);
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Object roles = claims.get("roles");
+        EdgeIdentity identity = new EdgeIdentity(
+                claims.getSubject(),
+                roles instanceof List<?> l ? l.stream().map(Object::toString).toList() : List.of(),
+                claims.getId(),
+                claims.getExpiration().toInstant()
+        );
+        // never serve a cached entry past the token's own expiry
+        long until = Math.min(now + cacheTtlMs, identity.expiresAt().toEpochMilli());
+        Verified verified = new Verified(token, identity, signer.sign(identity), until);
+        put(signature, verified, now);
+        return verified;
+    }
+
+    private void put(String signature, Verified entry, long now) {
+        if (cacheSize <= 0 || cacheTtlMs <= 0) return;
+        if (cache.size() >= cacheSize) {
+            cache.values().removeIf(v -> v.cachedUntilMs() <= now);
+            if (cache.size() >= cacheSize) cache.clear();
+        }
+        cache.put(signature, entry);
+    }
+}
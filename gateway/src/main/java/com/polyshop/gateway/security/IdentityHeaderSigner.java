@@ -0,0 +1,70 @@
+package com.polyshop.gateway.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Signs the identity forwarded to downstream services as
+ * {@code v1.<base64url(sub \n roles \n jti \n exp)>.<base64url(HMAC-SHA256)>}, where roles are
+ * comma separated and exp is in epoch seconds. Services check it with the shared secret instead
+ * of verifying the JWT again, using common-java's {@code IdentityHeaderVerifier}; the gateway is
+ * built on its own without common-java, so the header name and format are defined in both places
+ * and a change to either must be made to the other.
+ */
+@Component
+public class IdentityHeaderSigner {
+
+    public static final String HEADER_NAME = "X-Polyshop-Identity";
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    // pooled rather than per thread: under virtual threads each request is a new thread
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    public IdentityHeaderSigner(@Value("${gateway.auth.identity-secret:}") String secret) {
+        // a made-up secret would start a gateway whose every authenticated request is rejected downstream
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("gateway.auth.identity-secret (GATEWAY_IDENTITY_SECRET) must be set");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String sign(EdgeIdentity identity) {
+        String payload = identity.subject() + "\n"
+                + String.join(",", identity.roles()) + "\n"
+                + (identity.jti() == null ? "" : identity.jti()) + "\n"
+                + identity.expiresAt().getEpochSecond();
+        String signed = VERSION + "." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        byte[] tag = hmac(signed.getBytes(StandardCharsets.US_ASCII));
+        return signed + "." + encoder.encodeToString(tag);
+    }
+
+    private byte[] hmac(byte[] data) {
+        Mac m = macs.poll();
+        if (m == null) m = newMac();
+        // doFinal resets the Mac, so it can go straight back to the pool
+        byte[] tag = m.doFinal(data);
+        macs.offer(m);
+        return tag;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.polyshop.gateway.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The issuer's signing keys, keyed by {@code kid}. Same behaviour as common-java's
+ * {@code JwksClient}: refreshed in the background at the response's {@code max-age} (bounded by
+ * the refresh and min-refetch intervals), revalidated with its ETag, and an unknown {@code kid}
+ * refetches at most once per min-refetch interval. The gateway is built and shipped on its own
+ * (its image is built from this directory only) and does not depend on common-java, so the two
+ * are kept in step by hand.
+ */
+@Component
+public class JwksKeyCache {
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final String jwksUri;
+    private final long refreshMs;
+    private final long minRefetchNanos;
+    private final RestClient http;
+    private final ReentrantLock fetchLock = new ReentrantLock();
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "gateway-jwks-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile String etag;
+    private volatile long lastAttemptNanos;
+    private volatile boolean fetched;
+
+    public JwksKeyCache(
+            @Value("${gateway.auth.jwks-uri}") String jwksUri,
+            @Value("${gateway.auth.jwks-refresh-ms:300000}") long refreshMs,
+            @Value("${gateway.auth.jwks-min-refetch-ms:30000}") long minRefetchMs,
+            @Value("${gateway.auth.jwks-timeout-ms:2000}") long timeoutMs
+    ) {
+        this.jwksUri = jwksUri;
+        this.refreshMs = refreshMs;
+        this.minRefetchNanos = TimeUnit.MILLISECONDS.toNanos(minRefetchMs);
+        this.lastAttemptNanos = System.nanoTime() - minRefetchNanos;
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Duration.ofMillis(timeoutMs));
+        factory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.http = RestClient.builder().requestFactory(factory).build();
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.execute(this::refreshAndReschedule);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public PublicKey getKey(String kid) {
+        if (kid == null) return null;
+        PublicKey key = keys.get(kid);
+        if (key == null && System.nanoTime() - lastAttemptNanos >= minRefetchNanos) {
+            fetch(false, "unknown kid " + kid);
+            key = keys.get(kid);
+        }
+        return key;
+    }
+
+    private void refreshAndReschedule() {
+        long nextMs = fetch(true, "scheduled refresh");
+        if (!scheduler.isShutdown()) scheduler.schedule(this::refreshAndReschedule, nextMs, TimeUnit.MILLISECONDS);
+    }
+
+    // returns the delay until the next background refresh
+    private long fetch(boolean scheduled, String reason) {
+        long minRefetchMs = TimeUnit.NANOSECONDS.toMillis(minRefetchNanos);
+        fetchLock.lock();
+        try {
+            // a concurrent caller may already have refetched
+            if (!scheduled && System.nanoTime() - lastAttemptNanos < minRefetchNanos) return refreshMs;
+            lastAttemptNanos = System.nanoTime();
+            String current = fetched ? etag : null;
+            ResponseEntity<String> res = http.get()
+                    .uri(jwksUri)
+                    .headers(h -> { if (current != null) h.setIfNoneMatch(current); })
+                    .retrieve()
+                    .toEntity(String.class);
+            if (!res.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                keys = parse(res.getBody());
+                etag = res.getHeaders().getFirst(HttpHeaders.ETAG);
+                fetched = true;
+                log.debug("loaded {} jwt keys from {} ({})", keys.size(), jwksUri, reason);
+            }
+            return nextRefreshMs(res.getHeaders().getCacheControl(), minRefetchMs);
+        } catch (RuntimeException ex) {
+            log.warn("jwks fetch from {} failed ({}): {}", jwksUri, reason, ex.getMessage());
+            return fetched ? refreshMs : minRefetchMs;
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private long nextRefreshMs(String cacheControl, long minRefetchMs) {
+        Matcher m = MAX_AGE.matcher(cacheControl == null ? "" : cacheControl);
+        if (!m.find()) return refreshMs;
+        long maxAgeMs = TimeUnit.SECONDS.toMillis(Long.parseLong(m.group(1)));
+        return Math.max(minRefetchMs, Math.min(refreshMs, maxAgeMs));
+    }
+
+    private static Map<String, PublicKey> parse(String json) {
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (Jwk<?> jwk : Jwks.setParser().ignoreUnsupported(true).build().parse(json)) {
+            if (jwk.getId() != null && jwk instanceof PublicJwk<?> pub) parsed.put(jwk.getId(), pub.toKey());
+        }
+        return Map.copyOf(parsed);
+    }
+}
@@ -0,0 +1,115 @@
+package com.polyshop.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private static final byte[] BODY = "{\"id\":42}".getBytes(StandardCharsets.UTF_8);
+
+    private final ResponseCache cache = new ResponseCache(new SimpleMeterRegistry(),
+            new String[] {"/api/v1/products/**"}, new String[] {"Accept", "Accept-Encoding"},
+            1 << 20, 1024, 10, 30, 1, 1000);
+
+    private int product;
+
+    @AfterEach
+    void tearDown() {
+        cache.stop();
+    }
+
+    @Test
+    void storesUncontrolledResponseForTheDefaultTtl() {
+        CachedResponse entry = store(request(), 200, headers());
+        assertThat(entry).isNotNull();
+        assertThat(entry.freshUntilMs() - entry.storedAtMs()).isEqualTo(10_000);
+        assertThat(entry.staleUntilMs() - entry.freshUntilMs()).isEqualTo(30_000);
+    }
+
+    @Test
+    void sharedMaxAgeWinsOverMaxAgeAndDefault() {
+        CachedResponse entry = store(request(), 200, headers("Cache-Control", "max-age=5, s-maxage=60, stale-while-revalidate=2"));
+        assertThat(entry.freshUntilMs() - entry.storedAtMs()).isEqualTo(60_000);
+        assertThat(entry.staleUntilMs() - entry.freshUntilMs()).isEqualTo(2_000);
+    }
+
+    @Test
+    void keepsNothingASharedCacheMustNot() {
+        assertThat(store(request(), 200, headers("Cache-Control", "no-store"))).isNull();
+        assertThat(store(request(), 200, headers("Cache-Control", "private, max-age=60"))).isNull();
+        assertThat(store(request(), 200, headers("Cache-Control", "no-cache"))).isNull();
+        assertThat(store(request(), 200, headers("Cache-Control", "max-age=0"))).isNull();
+        assertThat(store(request(), 200, headers("Set-Cookie", "session=1"))).isNull();
+        assertThat(store(request(), 200, headers("Vary", "Cookie"))).isNull();
+        assertThat(store(request(), 404, headers())).isNull();
+    }
+
+    @Test
+    void authorizedResponsesNeedExplicitPermission() {
+        MockHttpServletRequest authorized = request();
+        authorized.addHeader("Authorization", "Bearer t");
+        assertThat(store(authorized, 200, headers("Cache-Control", "max-age=60"))).isNull();
+        assertThat(store(authorized, 200, headers("Cache-Control", "public, max-age=60"))).isNotNull();
+    }
+
+    @Test
+    void dropsHopByHopHeadersAndKeepsTheEtag() {
+        CachedResponse entry = store(request(), 200, headers("ETag", "\"v1\"", "Connection", "keep-alive", "Content-Type", "application/json"));
+        assertThat(entry.etag()).isEqualTo("\"v1\"");
+        assertThat(entry.headers()).containsKeys("ETag", "Content-Type").doesNotContainKey("Connection");
+    }
+
+    @Test
+    void onlyCatalogGetsAreCacheable() {
+        assertThat(cache.isCacheable(request())).isTrue();
+        assertThat(cache.isCacheable(new MockHttpServletRequest("POST", "/api/v1/products/42"))).isFalse();
+        assertThat(cache.isCacheable(new MockHttpServletRequest("GET", "/api/v1/orders/42"))).isFalse();
+    }
+
+    @Test
+    void parsesDirectives() {
+        CacheDirectives cc = CacheDirectives.parse("Public, MAX-AGE=\"30\", must-revalidate, s-maxage=bogus");
+        assertThat(cc.isPublic()).isTrue();
+        assertThat(cc.mustRevalidate()).isTrue();
+        assertThat(cc.maxAge()).isEqualTo(30);
+        assertThat(cc.sMaxAge()).isEqualTo(CacheDirectives.UNSET);
+        assertThat(cc.sharedMaxAge()).isEqualTo(30);
+        assertThat(CacheDirectives.parse(null).sharedMaxAge()).isEqualTo(CacheDirectives.UNSET);
+    }
+
+    @Test
+    void matchesIfNoneMatchByWeakComparison() {
+        assertThat(ResponseCacheFilter.ifNoneMatch("\"v1\"", "\"v1\"")).isTrue();
+        assertThat(ResponseCacheFilter.ifNoneMatch("W/\"v1\"", "\"v1\"")).isTrue();
+        assertThat(ResponseCacheFilter.ifNoneMatch("\"v0\", W/\"v1\"", "W/\"v1\"")).isTrue();
+        assertThat(ResponseCacheFilter.ifNoneMatch("*", "\"v1\"")).isTrue();
+        assertThat(ResponseCacheFilter.ifNoneMatch("\"v10\"", "\"v1\"")).isFalse();
+        assertThat(ResponseCacheFilter.ifNoneMatch("\"v1,v2\"", "\"v1\"")).isFalse();
+    }
+
+    private CachedResponse store(MockHttpServletRequest request, int status, Map<String, List<String>> headers) {
+        String key = cache.key(request);
+        cache.store(key, request, status, headers, BODY);
+        return cache.get(key);
+    }
+
+    // a new product each time, so no call sees what an earlier one stored
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/v1/products/" + ++product);
+    }
+
+    private static Map<String, List<String>> headers(String... pairs) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) headers.put(pairs[i], List.of(pairs[i + 1]));
+        return headers;
+    }
+}
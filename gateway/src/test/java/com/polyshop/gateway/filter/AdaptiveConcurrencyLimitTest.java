@@ -0,0 +1,51 @@
+package com.polyshop.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // every release closes a window, so each call below is one limit update
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100, 1.5, 0, 1);
+
+    @Test
+    void admitsEachClassUpToItsShare() {
+        for (int i = 0; i < 5; i++) assertThat(limit.tryAcquire(0.5)).isEqualTo(i + 1);
+        assertThat(limit.tryAcquire(0.5)).isEqualTo(-1);
+        assertThat(limit.tryAcquire(1.0)).isEqualTo(6);
+        assertThat(limit.getInflight()).isEqualTo(6);
+    }
+
+    @Test
+    void growsWhenALowerClassSaturatesItsShare() {
+        for (int i = 0; i < 5; i++) limit.release(RTT, 5, 0.5, false);
+        assertThat(limit.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void holdsWhileApplicationLimited() {
+        for (int i = 0; i < 5; i++) limit.release(RTT, 2, 1.0, false);
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        limit.release(RTT, 10, 1.0, false);
+        for (int i = 0; i < 5; i++) limit.release(RTT * 10, 10, 1.0, false);
+        assertThat(limit.getLimit()).isLessThan(10);
+    }
+
+    @Test
+    void cutsOnDropsButNotBelowTheMinimum() {
+        limit.release(RTT, 10, 1.0, false);
+        limit.release(RTT, 10, 1.0, true);
+        assertThat(limit.getLimit()).isEqualTo(9);
+        for (int i = 0; i < 50; i++) limit.release(RTT, 10, 1.0, true);
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,105 @@
+package com.polyshop.gateway.filter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightFilterFunctionsTest {
+
+    private static final List<HttpMessageConverter<?>> CONVERTERS =
+            List.of(new StringHttpMessageConverter(), new ByteArrayHttpMessageConverter());
+
+    private final HandlerFilterFunction<ServerResponse, ServerResponse> filter =
+            SingleFlightFilterFunctions.singleFlight(10, Duration.ofSeconds(5));
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waiterGetsTheLeadersResponseReplayed() throws Exception {
+        Future<MockHttpServletResponse> leader = executor.submit(() -> call(get()));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicReference<Thread> waiterThread = new AtomicReference<>();
+        Future<MockHttpServletResponse> waiter = executor.submit(() -> {
+            waiterThread.set(Thread.currentThread());
+            return call(get());
+        });
+        awaitParked(waiterThread);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("catalog");
+        MockHttpServletResponse shared = waiter.get(5, TimeUnit.SECONDS);
+        assertThat(shared.getStatus()).isEqualTo(200);
+        assertThat(shared.getContentAsString()).isEqualTo("catalog");
+        assertThat(shared.getHeader("X-Upstream")).isEqualTo("catalog-service");
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void conditionalRequestDoesNotJoinAPlainFlight() throws Exception {
+        executor.submit(() -> call(get()));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletRequest conditional = get();
+        conditional.addHeader("If-None-Match", "\"v1\"");
+        Future<MockHttpServletResponse> own = executor.submit(() -> call(conditional));
+        release.countDown();
+
+        assertThat(own.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("catalog");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    private MockHttpServletResponse call(MockHttpServletRequest servletRequest) throws Exception {
+        HandlerFunction<ServerResponse> upstream = request -> {
+            upstreamCalls.incrementAndGet();
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ServerResponse.ok().header("X-Upstream", "catalog-service").body("catalog");
+        };
+        ServerResponse response = filter.filter(ServerRequest.create(servletRequest, CONVERTERS), upstream);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        response.writeTo(servletRequest, servletResponse, () -> CONVERTERS);
+        return servletResponse;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/products/42");
+    }
+
+    // the waiter parks in the flight's timed get; only then is it certain to share the call
+    private static void awaitParked(AtomicReference<Thread> thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.get() == null || thread.get().getState() != Thread.State.TIMED_WAITING) {
+            if (System.nanoTime() > deadline) throw new AssertionError("waiter never joined the flight");
+            Thread.sleep(5);
+        }
+    }
+}
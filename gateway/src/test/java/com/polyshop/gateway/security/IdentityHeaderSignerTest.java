@@ -0,0 +1,30 @@
+package com.polyshop.gateway.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdentityHeaderSignerTest {
+
+    // the same header is accepted by common-java's IdentityHeaderVerifierTest; change both together
+    static final String SECRET = "test-identity-secret";
+    static final String HEADER = "v1.M2YyYjFjOWUtOGQ0YS00ZjZiLTljMWUtMmE3ZDVlOGYwYjEzClJPTEVfVVNFUixST0xFX0FETUlOCmp0aS0xCjQxMDI0NDQ4MDA"
+            + ".2KgR1ygT6-PSflnGicXTH6sKgqh017gx3Uedcx_Vb34";
+
+    @Test
+    void signsInTheFormatServicesVerify() {
+        EdgeIdentity identity = new EdgeIdentity("3f2b1c9e-8d4a-4f6b-9c1e-2a7d5e8f0b13",
+                List.of("ROLE_USER", "ROLE_ADMIN"), "jti-1", Instant.ofEpochSecond(4102444800L));
+
+        assertThat(new IdentityHeaderSigner(SECRET).sign(identity)).isEqualTo(HEADER);
+    }
+
+    @Test
+    void refusesToStartWithoutASecret() {
+        assertThatThrownBy(() -> new IdentityHeaderSigner(" ")).isInstanceOf(IllegalStateException.class);
+    }
+}
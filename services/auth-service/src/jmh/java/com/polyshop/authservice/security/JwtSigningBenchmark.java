@@ -0,0 +1,53 @@
+package com.polyshop.authservice.security;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtSigningBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public JwtAlgorithm algorithm;
+
+    private KeyPair keyPair;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setup() {
+        keyPair = algorithm.generateKeyPair();
+        parser = Jwts.parser().keyLocator(new MultiKeyResolver(Map.of("bench", keyPair.getPublic()))).build();
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .header().keyId("bench").and()
+                .subject("user@example.com")
+                .issuer("polyshop-auth")
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusSeconds(900)))
+                .id(UUID.randomUUID().toString())
+                .claim("roles", List.of("ROLE_USER"))
+                .signWith(keyPair.getPrivate(), algorithm.signatureAlgorithm())
+                .compact();
+    }
+
+    @Benchmark
+    public Object verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
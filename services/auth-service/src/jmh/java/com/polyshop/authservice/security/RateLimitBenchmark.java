@@ -0,0 +1,89 @@
+package com.polyshop.authservice.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class RateLimitBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int distinctKeys;
+
+    private GcraRateLimiter gcra;
+    private FixedWindowMap fixedWindow;
+    private String[] keys;
+    private final AtomicLong cursor = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        gcra = new GcraRateLimiter(1 << 20, 16);
+        fixedWindow = new FixedWindowMap();
+        keys = new String[Math.min(distinctKeys, 1 << 16)];
+        for (int i = 0; i < keys.length; i++) keys[i] = "IP:10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+    }
+
+    private String nextKey() {
+        long n = cursor.getAndIncrement();
+        if (distinctKeys <= keys.length) return keys[(int) (n % distinctKeys)];
+        return "IP:" + n;
+    }
+
+    @Benchmark
+    public void gcra(Blackhole bh) {
+        bh.consume(gcra.tryAcquire(nextKey(), 30, 60_000));
+    }
+
+    @Benchmark
+    public void fixedWindowMap(Blackhole bh) {
+        bh.consume(fixedWindow.allow(nextKey(), 30, 60));
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("footprint after %,d distinct keys%n", n);
+        System.out.printf("  fixedWindowMap: %,d bytes%n", footprint(() -> {
+            FixedWindowMap m = new FixedWindowMap();
+            for (int i = 0; i < n; i++) m.allow("IP:" + i, 30, 60);
+            return m;
+        }));
+        System.out.printf("  gcra:           %,d bytes%n", footprint(() -> {
+            GcraRateLimiter g = new GcraRateLimiter(1 << 20, 16);
+            for (int i = 0; i < n; i++) g.tryAcquire("IP:" + i, 30, 60_000);
+            return g;
+        }));
+    }
+
+    private static long footprint(java.util.function.Supplier<Object> build) {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long before = rt.totalMemory() - rt.freeMemory();
+        Object retained = build.get();
+        System.gc();
+        long after = rt.totalMemory() - rt.freeMemory();
+        if (retained.hashCode() == 42) System.out.print("");
+        return after - before;
+    }
+
+    static final class FixedWindowMap {
+        private record Bucket(AtomicInteger count, long resetAt){}
+        private final ConcurrentHashMap<String, Bucket> ipMap = new ConcurrentHashMap<>();
+        boolean allow(String key, int max, int windowSeconds) {
+            long now = Instant.now().getEpochSecond();
+            var b = ipMap.compute(key, (k, old) -> {
+                if (old == null || old.resetAt() <= now) return new Bucket(new AtomicInteger(1), now + windowSeconds);
+                old.count().incrementAndGet();
+                return old;
+            });
+            return b.count().get() <= max;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.polyshop.authservice.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second for access-token entries: one IDENTITY insert per transaction (old path) versus
+ * sequence ids with pooled allocation and JDBC batches (write-behind path). Point {@code url} at a
+ * real Postgres with {@code -p url=jdbc:postgresql://...}; the default is an on-disk H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class AccessTokenInsertBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+    private static final String INSERT_COLUMNS = "token_hash, type, user_id, expires_at, created_at, updated_at, revoked";
+
+    @Param({""})
+    public String url;
+
+    private String jdbcUrl;
+    private Path tempDir;
+
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement identityInsert;
+        PreparedStatement sequenceInsert;
+        PreparedStatement nextVal;
+        long nextId;
+        long maxId;
+
+        @Setup(Level.Trial)
+        public void open(AccessTokenInsertBenchmark b) throws Exception {
+            connection = DriverManager.getConnection(b.jdbcUrl, "auth_user", "auth_pass");
+            identityInsert = connection.prepareStatement(
+                    "insert into bench_tokens_identity (" + INSERT_COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            sequenceInsert = connection.prepareStatement(
+                    "insert into bench_tokens_sequence (id, " + INSERT_COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?)");
+            nextVal = connection.prepareStatement("select nextval('bench_tokens_seq')");
+        }
+
+        long nextId() throws Exception {
+            if (nextId == maxId) {
+                try (ResultSet rs = nextVal.executeQuery()) {
+                    rs.next();
+                    nextId = rs.getLong(1);
+                    maxId = nextId + BATCH_SIZE;
+                }
+            }
+            return nextId++;
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            connection.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        // the shaded jmh jar merges META-INF/services/java.sql.Driver badly, so register drivers by hand
+        Class.forName("org.h2.Driver");
+        Class.forName("org.postgresql.Driver");
+        if (url.isEmpty()) {
+            tempDir = Files.createTempDirectory("auth-token-bench");
+            jdbcUrl = "jdbc:h2:file:" + tempDir.resolve("db") + ";MODE=PostgreSQL";
+        } else {
+            jdbcUrl = url;
+        }
+        try (Connection c = DriverManager.getConnection(jdbcUrl, "auth_user", "auth_pass"); Statement s = c.createStatement()) {
+            s.execute("drop table if exists bench_tokens_identity");
+            s.execute("drop table if exists bench_tokens_sequence");
+            s.execute("drop sequence if exists bench_tokens_seq");
+            String columns = "token_hash varchar(64) not null, type varchar(32) not null, user_id bigint, "
+                    + "expires_at timestamp not null, created_at timestamp, updated_at timestamp, revoked boolean not null";
+            s.execute("create table bench_tokens_identity (id bigint generated by default as identity primary key, " + columns + ")");
+            s.execute("create table bench_tokens_sequence (id bigint primary key, " + columns + ")");
+            s.execute("create index bench_identity_hash on bench_tokens_identity (token_hash)");
+            s.execute("create index bench_sequence_hash on bench_tokens_sequence (token_hash)");
+            s.execute("create sequence bench_tokens_seq start with 1 increment by " + BATCH_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (tempDir != null) {
+            try (var files = Files.walk(tempDir)) {
+                files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public void identityPerRow(Session s) throws Exception {
+        s.connection.setAutoCommit(false);
+        bind(s.identityInsert, 1);
+        s.identityInsert.executeUpdate();
+        try (ResultSet keys = s.identityInsert.getGeneratedKeys()) {
+            keys.next();
+        }
+        s.connection.commit();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void sequenceBatched(Session s) throws Exception {
+        s.connection.setAutoCommit(false);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            s.sequenceInsert.setLong(1, s.nextId());
+            bind(s.sequenceInsert, 2);
+            s.sequenceInsert.addBatch();
+        }
+        s.sequenceInsert.executeBatch();
+        s.connection.commit();
+    }
+
+    private static void bind(PreparedStatement ps, int from) throws Exception {
+        byte[] jti = new byte[32];
+        ThreadLocalRandom.current().nextBytes(jti);
+        Timestamp now = Timestamp.from(Instant.now());
+        ps.setString(from, HexFormat.of().formatHex(jti));
+        ps.setString(from + 1, "ACCESS");
+        ps.setLong(from + 2, ThreadLocalRandom.current().nextLong(1, 100_000));
+        ps.setTimestamp(from + 3, Timestamp.from(Instant.now().plusSeconds(900)));
+        ps.setTimestamp(from + 4, now);
+        ps.setTimestamp(from + 5, now);
+        ps.setBoolean(from + 6, false);
+    }
+}
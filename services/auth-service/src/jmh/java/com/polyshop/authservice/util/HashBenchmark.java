@@ -0,0 +1,72 @@
+package com.polyshop.authservice.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashBenchmark {
+
+    private String jti;
+
+    @Setup
+    public void setup() {
+        jti = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String formatHex() throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] b = md.digest(jti.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(b.length * 2);
+        for (byte bb : b) {
+            sb.append(String.format("%02x", bb));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String tableHex() {
+        return HashUtil.sha256Hex(jti);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return HashUtil.sha256(jti);
+    }
+
+    /**
+     * Index size of a token_hash column stored as hex varchar versus bytea.
+     * Usage: HashBenchmark jdbc:postgresql://host/db user password [rows]
+     */
+    public static void main(String[] args) throws Exception {
+        Class.forName("org.postgresql.Driver");
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        try (Connection c = DriverManager.getConnection(args[0], args[1], args[2]); Statement s = c.createStatement()) {
+            s.execute("drop table if exists bench_hash_hex, bench_hash_bin");
+            s.execute("create table bench_hash_hex (token_hash varchar(64) not null)");
+            s.execute("create table bench_hash_bin (token_hash bytea not null)");
+            s.execute("insert into bench_hash_hex select encode(sha256(g::text::bytea), 'hex') from generate_series(1, " + rows + ") g");
+            s.execute("insert into bench_hash_bin select sha256(g::text::bytea) from generate_series(1, " + rows + ") g");
+            s.execute("create index bench_hash_hex_idx on bench_hash_hex (token_hash)");
+            s.execute("create index bench_hash_bin_idx on bench_hash_bin (token_hash)");
+            System.out.printf("token_hash index size for %,d rows%n", rows);
+            for (String idx : new String[]{"bench_hash_hex_idx", "bench_hash_bin_idx"}) {
+                try (ResultSet rs = s.executeQuery("select pg_relation_size('" + idx + "'), pg_size_pretty(pg_relation_size('" + idx + "'))")) {
+                    rs.next();
+                    System.out.printf("  %-20s %,d bytes (%s)%n", idx, rs.getLong(1), rs.getString(2));
+                }
+            }
+            s.execute("drop table bench_hash_hex, bench_hash_bin");
+        }
+    }
+}
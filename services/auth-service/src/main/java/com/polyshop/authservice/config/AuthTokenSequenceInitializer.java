@@ -0,0 +1,40 @@
+package com.polyshop.authservice.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+@Component
+// after Hibernate, so schema creation or validation has made the sequence first
+@DependsOn("entityManagerFactory")
+public class AuthTokenSequenceInitializer {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    public AuthTokenSequenceInitializer(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignWithExistingIds() {
+        try (Connection c = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(c.getMetaData().getDatabaseProductName())) return;
+        } catch (Exception e) {
+            log.warn("could not inspect database for auth_tokens_seq alignment: {}", e.getMessage());
+            return;
+        }
+        Long value = jdbcTemplate.queryForObject(
+                "select setval('auth_tokens_seq', greatest((select coalesce(max(id), 0) from auth_tokens), (select last_value from auth_tokens_seq)))",
+                Long.class);
+        log.info("auth_tokens_seq aligned at {}", value);
+    }
+}
@@ -1,6 +1,7 @@
 package com.polyshop.authservice.config;
 
 import com.polyshop.authservice.dto.AuthApiDtos.SimpleResp;
+import com.polyshop.authservice.security.PasswordHashingBusyException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -36,6 +37,11 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(new SimpleResp(ex.getMessage()));
     }
 
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<?> handleHashingBusy(PasswordHashingBusyException ex) {
+        return ResponseEntity.status(503).header("Retry-After", "1").body(new SimpleResp(ex.getMessage()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> handleRuntime(RuntimeException ex) {
         return ResponseEntity.status(500).body(new SimpleResp("internal_error"));
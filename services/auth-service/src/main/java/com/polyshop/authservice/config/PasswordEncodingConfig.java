@@ -0,0 +1,89 @@
+package com.polyshop.authservice.config;
+
+import com.polyshop.authservice.security.PasswordEncodingSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class PasswordEncodingConfig {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int CALIBRATION_SAMPLES = 5;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /**
+     * The bcrypt cost is configuration, not measured per host: replicas on different hardware
+     * would otherwise pick different costs and rehash a user back and forth on every login.
+     * With {@code auth.password.bcrypt.calibrate=true} the host is timed and the cost it could
+     * afford is only logged, as a suggestion for the fleet-wide setting.
+     */
+    @Bean
+    public PasswordEncodingSettings passwordEncodingSettings(
+            @Value("${auth.password.encoding-id:bcrypt}") String encodingId,
+            @Value("${auth.password.bcrypt.strength:10}") int strength,
+            @Value("${auth.password.bcrypt.calibrate:false}") boolean calibrate,
+            @Value("${auth.password.bcrypt.target-ms:100}") long targetMs,
+            @Value("${auth.password.bcrypt.min-strength:10}") int minStrength,
+            @Value("${auth.password.bcrypt.max-strength:16}") int maxStrength
+    ) {
+        if (strength < 4 || strength > 31) throw new IllegalStateException("auth.password.bcrypt.strength must be between 4 and 31");
+        log.info("bcrypt strength {}", strength);
+        if (calibrate) suggestStrength(strength, targetMs, minStrength, maxStrength);
+        return new PasswordEncodingSettings(encodingId, strength);
+    }
+
+    private void suggestStrength(int configured, long targetMs, int minStrength, int maxStrength) {
+        // let the JIT compile bcrypt before anything is timed
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(minStrength);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) warmup.encode("calibration-password");
+
+        int chosen = minStrength;
+        long chosenMs = measureMillis(minStrength);
+        for (int s = minStrength + 1; s <= maxStrength && chosenMs * 2 <= targetMs; s++) {
+            long ms = measureMillis(s);
+            if (ms > targetMs) break;
+            chosen = s;
+            chosenMs = ms;
+        }
+        log.info("bcrypt calibration: this host hashes at strength {} in {} ms (target {} ms); configured strength is {}",
+                chosen, chosenMs, targetMs, configured);
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordEncodingSettings settings) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(settings.bcryptStrength());
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(settings.encodingId())) {
+            throw new IllegalStateException("Unsupported password encoding id: " + settings.encodingId());
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(settings.encodingId(), encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+
+    private static long measureMillis(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long[] samples = new long[CALIBRATION_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration-password");
+            samples[i] = (System.nanoTime() - start) / 1_000_000L;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+}
@@ -0,0 +1,73 @@
+package com.polyshop.authservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Converts auth_tokens.token_hash from its original 64-char hex varchar to a 32-byte bytea on
+ * PostgreSQL. Runs before the EntityManagerFactory so schema update and startup queries already
+ * see the binary column; the token_hash index is rebuilt by the ALTER.
+ */
+@Configuration
+public class TokenHashColumnMigration {
+
+    @Bean
+    public Migration tokenHashMigration(DataSource dataSource) {
+        return new Migration(dataSource);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor tokenHashMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor("tokenHashMigration");
+    }
+
+    public static class Migration implements InitializingBean {
+        private final DataSource dataSource;
+        private final Logger log = LoggerFactory.getLogger(getClass());
+
+        Migration(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public void afterPropertiesSet() throws SQLException {
+            try (Connection c = dataSource.getConnection()) {
+                if (!"PostgreSQL".equals(c.getMetaData().getDatabaseProductName())) return;
+                if (!"character varying".equals(columnType(c))) return;
+                log.info("migrating auth_tokens.token_hash from hex varchar to bytea");
+                boolean autoCommit = c.getAutoCommit();
+                c.setAutoCommit(false);
+                try (Statement s = c.createStatement()) {
+                    s.execute("alter table auth_tokens alter column token_hash type bytea using decode(token_hash, 'hex')");
+                    s.execute("alter table auth_tokens add constraint auth_tokens_token_hash_len check (octet_length(token_hash) = 32)");
+                    c.commit();
+                } catch (SQLException e) {
+                    c.rollback();
+                    throw e;
+                } finally {
+                    c.setAutoCommit(autoCommit);
+                }
+            }
+        }
+
+        private String columnType(Connection c) throws SQLException {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "select data_type from information_schema.columns where table_schema = current_schema() and table_name = 'auth_tokens' and column_name = 'token_hash'")) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            }
+        }
+    }
+}
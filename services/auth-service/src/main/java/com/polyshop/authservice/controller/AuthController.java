@@ -7,6 +7,7 @@ import com.polyshop.authservice.domain.enums.TokenType;
 import com.polyshop.authservice.domain.User;
 import com.polyshop.authservice.dto.AuthApiDtos;
 import com.polyshop.authservice.dto.AuthApiDtos.*;
+import com.polyshop.authservice.security.PasswordHasher;
 import com.polyshop.authservice.security.TotpUtil;
 import com.polyshop.authservice.service.AuthTokenService;
 import com.polyshop.authservice.service.EmailService;
@@ -20,10 +21,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RequiredArgsConstructor
 @RestController
@@ -36,7 +38,7 @@ public class AuthController {
     private final AuthTokenService authTokenService;
     private final EmailService emailService;
     private final JwtUtil jwtUtil;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
 
     @Value("${auth.jwt.expires-in:900}")
     private long accessTtl;
@@ -69,20 +71,29 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginReq req) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginReq req) {
         if (req == null || req.usernameOrEmailOrPhone == null || req.password == null) {
-            return ResponseEntity.badRequest().body(new SimpleResp("username/email/phone and password required"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(new SimpleResp("username/email/phone and password required")));
         }
         try {
-            User u = userService.authenticate(req.usernameOrEmailOrPhone, req.password);
-            List<String> roles = u.getRoles().stream().map(r -> r.getName()).toList();
-            String jti = UUID.randomUUID().toString();
-            String access = jwtUtil.generateAccessToken(u.getEmail(), roles, jti);
-            authTokenService.createAccessTokenEntry(u, jti, accessTtl);
-            String refresh = authTokenService.createRefreshToken(u, refreshTtl);
-            return ResponseEntity.ok(new TokenResp(access, refresh, accessTtl));
+            return userService.authenticateAsync(req.usernameOrEmailOrPhone, req.password)
+                    .<ResponseEntity<?>>thenApply(u -> {
+                        List<String> roles = u.getRoles().stream().map(r -> r.getName()).toList();
+                        String jti = UUID.randomUUID().toString();
+                        String access = jwtUtil.generateAccessToken(u.getEmail(), roles, jti);
+                        authTokenService.createAccessTokenEntry(u, jti, accessTtl);
+                        String refresh = authTokenService.createRefreshToken(u, refreshTtl);
+                        return ResponseEntity.ok(new TokenResp(access, refresh, accessTtl));
+                    })
+                    .exceptionally(ex -> {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        if (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException) {
+                            return ResponseEntity.status(401).body(new SimpleResp(cause.getMessage()));
+                        }
+                        throw ex instanceof CompletionException ce ? ce : new CompletionException(cause);
+                    });
         } catch (IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.status(401).body(new SimpleResp(ex.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body(new SimpleResp(ex.getMessage())));
         }
     }
 
@@ -137,7 +148,7 @@ public class AuthController {
             user.setFailedLoginAttempts(0);
             user.setLockedUntil(null);
             if (req.newPassword != null && !req.newPassword.isBlank()) {
-                user.setPasswordHash(passwordEncoder.encode(req.newPassword));
+                user.setPasswordHash(passwordHasher.encode(req.newPassword));
             }
             userService.save(user);
             userService.revokeAllTokensForUser(user.getId());
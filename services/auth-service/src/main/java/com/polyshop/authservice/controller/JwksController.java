@@ -1,9 +1,23 @@
 package com.polyshop.authservice.controller;
 
+import com.polyshop.authservice.security.JwtAlgorithm;
 import com.polyshop.authservice.security.KeyProvider;
+import com.polyshop.authservice.util.HashUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.PublicKey;
+import java.time.Duration;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -13,40 +27,101 @@ import java.math.BigInteger;
 @RestController
 public class JwksController {
 
+    private static final int P256_COORDINATE_BYTES = 32;
+    private static final int ED25519_KEY_BYTES = 32;
+
     private final KeyProvider keyProvider;
+    private final ObjectMapper objectMapper;
+    private final CacheControl cacheControl;
+    private volatile Document document;
+
+    private record Document(Map<String, PublicKey> keys, byte[] body, String etag) {}
 
-    public JwksController(KeyProvider keyProvider) {
+    public JwksController(
+            KeyProvider keyProvider,
+            ObjectMapper objectMapper,
+            @Value("${auth.jwt.jwks-max-age-seconds:300}") long maxAgeSeconds
+    ) {
         this.keyProvider = keyProvider;
+        this.objectMapper = objectMapper;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
     }
 
     @GetMapping("/.well-known/jwks.json")
-    public Map<String, Object> jwks() {
+    public ResponseEntity<byte[]> jwks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Document doc = currentDocument();
+        if (matches(ifNoneMatch, doc.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(doc.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(doc.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(doc.body());
+    }
 
-        List<Map<String, Object>> keys = keyProvider.getAllPublicKeys()
-                .entrySet()
+    private Document currentDocument() {
+        Map<String, PublicKey> keys = keyProvider.getAllPublicKeys();
+        Document doc = document;
+        if (doc != null && doc.keys() == keys) return doc;
+        List<Map<String, Object>> jwks = keys.entrySet()
                 .stream()
-                .map(entry -> {
-                    String kid = entry.getKey();
-                    RSAPublicKey key = (RSAPublicKey) entry.getValue();
-
-                    byte[] nBytes = toUnsigned(key.getModulus());
-                    byte[] eBytes = toUnsigned(key.getPublicExponent());
-
-                    String n = Base64.getUrlEncoder().withoutPadding().encodeToString(nBytes);
-                    String e = Base64.getUrlEncoder().withoutPadding().encodeToString(eBytes);
-
-                    return Map.<String, Object>of(
-                            "kty", "RSA",
-                            "kid", kid,
-                            "use", "sig",
-                            "alg", "RS256",
-                            "n", n,
-                            "e", e
-                    );
-                })
+                .map(entry -> toJwk(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("keys", jwks));
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(HashUtil.sha256(body), 16)) + "\"";
+            doc = new Document(keys, body, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialize JWKS", e);
+        }
+        document = doc;
+        return doc;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
 
-        return Map.of("keys", keys);
+    private static Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+        JwtAlgorithm alg = JwtAlgorithm.forKey(publicKey);
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", alg.name());
+        switch (alg) {
+            case RS256 -> {
+                RSAPublicKey key = (RSAPublicKey) publicKey;
+                jwk.put("kty", "RSA");
+                jwk.put("n", base64Url(toUnsigned(key.getModulus())));
+                jwk.put("e", base64Url(toUnsigned(key.getPublicExponent())));
+            }
+            case ES256 -> {
+                ECPublicKey key = (ECPublicKey) publicKey;
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("x", base64Url(toFixedLength(key.getW().getAffineX(), P256_COORDINATE_BYTES)));
+                jwk.put("y", base64Url(toFixedLength(key.getW().getAffineY(), P256_COORDINATE_BYTES)));
+            }
+            case EdDSA -> {
+                // the X.509 SubjectPublicKeyInfo for Ed25519 ends with the raw 32-byte public key (RFC 8410)
+                byte[] encoded = publicKey.getEncoded();
+                jwk.put("kty", "OKP");
+                jwk.put("crv", "Ed25519");
+                jwk.put("x", base64Url(Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_BYTES, encoded.length)));
+            }
+        }
+        return jwk;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
     private static byte[] toUnsigned(BigInteger value) {
@@ -56,4 +131,12 @@ public class JwksController {
         }
         return bytes;
     }
+
+    private static byte[] toFixedLength(BigInteger value, int length) {
+        byte[] unsigned = toUnsigned(value);
+        if (unsigned.length == length) return unsigned;
+        byte[] out = new byte[length];
+        System.arraycopy(unsigned, 0, out, length - unsigned.length, unsigned.length);
+        return out;
+    }
 }
@@ -0,0 +1,35 @@
+package com.polyshop.authservice.controller.admin;
+
+import com.polyshop.authservice.dto.AuthApiDtos.SimpleResp;
+import com.polyshop.authservice.security.RateLimitPolicy;
+import com.polyshop.authservice.security.RateLimitPolicyService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/rate-limits")
+public class AdminRateLimitController {
+
+    private final RateLimitPolicyService policyService;
+
+    public AdminRateLimitController(RateLimitPolicyService policyService) {
+        this.policyService = policyService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> listPolicies() {
+        return ResponseEntity.ok(policyService.getPolicies());
+    }
+
+    @PutMapping
+    public ResponseEntity<?> replacePolicies(@RequestBody List<RateLimitPolicy> policies) {
+        try {
+            policyService.replace(policies);
+            return ResponseEntity.ok(policyService.getPolicies());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new SimpleResp(e.getMessage()));
+        }
+    }
+}
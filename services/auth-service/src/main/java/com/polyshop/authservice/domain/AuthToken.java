@@ -1,6 +1,7 @@
 package com.polyshop.authservice.domain;
 
 import com.polyshop.authservice.domain.enums.TokenType;
+import com.polyshop.authservice.util.HashUtil;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -19,11 +20,12 @@ import java.time.Instant;
 )
 public class AuthToken {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auth_tokens_seq")
+    @SequenceGenerator(name = "auth_tokens_seq", sequenceName = "auth_tokens_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "token_hash", nullable = false, length = 64)
-    private String tokenHash;
+    @Column(name = "token_hash", nullable = false, length = HashUtil.SHA256_BYTES)
+    private byte[] tokenHash;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -48,7 +50,7 @@ public class AuthToken {
     @PrePersist
     public void prePersist() {
         Instant now = Instant.now();
-        this.createdAt = now;
+        if (this.createdAt == null) this.createdAt = now;
         this.updatedAt = now;
     }
 
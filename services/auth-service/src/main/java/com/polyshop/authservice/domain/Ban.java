@@ -7,7 +7,13 @@ import java.time.Instant;
 
 @Getter @Setter
 @Entity
-@Table(name = "bans")
+@Table(
+        name = "bans",
+        indexes = {
+                @Index(columnList = "key", unique = true),
+                @Index(columnList = "updatedAt")
+        }
+)
 public class Ban {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -17,4 +23,12 @@ public class Ban {
     private Instant until;
     @Column(nullable=true)
     private String reason;
+    @Column
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = Instant.now();
+    }
 }
@@ -15,7 +15,9 @@ import java.util.Set;
         name = "users",
         indexes = {
                 @Index(columnList = "username", unique = true),
-                @Index(columnList = "email", unique = true)
+                @Index(columnList = "email", unique = true),
+                @Index(columnList = "tokensValidAfter"),
+                @Index(columnList = "accessTokensValidAfter")
         }
 )
 public class User {
@@ -48,6 +50,10 @@ public class User {
     private int failedLoginAttempts = 0;
     @Column
     private Instant lockedUntil;
+    @Column
+    private Instant tokensValidAfter;
+    @Column
+    private Instant accessTokensValidAfter;
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "user_roles",
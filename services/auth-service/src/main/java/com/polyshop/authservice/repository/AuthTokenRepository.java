@@ -2,6 +2,7 @@ package com.polyshop.authservice.repository;
 
 import com.polyshop.authservice.domain.AuthToken;
 import com.polyshop.authservice.domain.enums.TokenType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -13,12 +14,28 @@ import java.util.Optional;
 import org.springframework.transaction.annotation.Transactional;
 
 public interface AuthTokenRepository extends JpaRepository<AuthToken, Long>, JpaSpecificationExecutor<AuthToken> {
-    Optional<AuthToken> findByTokenHashAndType(String tokenHash, TokenType type);
-    Optional<AuthToken> findByTokenHash(String tokenHash);
+    Optional<AuthToken> findByTokenHashAndType(byte[] tokenHash, TokenType type);
+    Optional<AuthToken> findByTokenHash(byte[] tokenHash);
     List<AuthToken> findAllByUserId(Long userId);
     void deleteAllByUserId(Long userId);
+    @Query("select t.id from AuthToken t where t.id > :after and (t.revoked = true or t.expiresAt < :now) and t.updatedAt < :cutoff order by t.id")
+    List<Long> findPurgeableIds(@Param("after") long after, @Param("now") Instant now, @Param("cutoff") Instant cutoff, Limit limit);
+    @Query("select t.tokenHash as tokenHash, t.expiresAt as expiresAt from AuthToken t where t.type = :type and t.revoked = true and t.expiresAt > :now and t.updatedAt >= :since")
+    List<RevokedTokenView> findRevokedSince(@Param("type") TokenType type, @Param("now") Instant now, @Param("since") Instant since);
+    @Query("select count(t) from AuthToken t where t.type = :type and t.revoked = true and t.expiresAt > :now")
+    long countRevoked(@Param("type") TokenType type, @Param("now") Instant now);
+
     @Modifying
     @Transactional
-    @Query("delete from AuthToken t where (t.revoked = true or t.expiresAt < :now) and t.updatedAt < :cutoff")
-    int deleteExpiredOrRevokedBefore(@Param("now") Instant now, @Param("cutoff") Instant cutoff);
+    @Query(value = "update auth_tokens set revoked = true, updated_at = :now where id in (" +
+            "select t.id from auth_tokens t join users u on u.id = t.user_id " +
+            "where t.revoked = false and t.type <> 'ACCESS' and t.expires_at > :now " +
+            "and u.tokens_valid_after >= :since and t.created_at < u.tokens_valid_after " +
+            "limit :chunk)", nativeQuery = true)
+    int revokeIssuedBeforeEpoch(@Param("now") Instant now, @Param("since") Instant since, @Param("chunk") int chunk);
+
+    interface RevokedTokenView {
+        byte[] getTokenHash();
+        Instant getExpiresAt();
+    }
 }
@@ -2,9 +2,21 @@ package com.polyshop.authservice.repository;
 
 import com.polyshop.authservice.domain.Ban;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface BanRepository extends JpaRepository<Ban, Long> {
     Optional<Ban> findByKey(String key);
     void deleteByKey(String key);
+    List<Ban> findAllByUntilAfter(Instant now);
+    List<Ban> findAllByUpdatedAtGreaterThanEqual(Instant since);
+    @Modifying
+    @Transactional
+    @Query("delete from Ban b where b.until < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") Instant cutoff);
 }
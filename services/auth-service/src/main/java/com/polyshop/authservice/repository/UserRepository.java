@@ -3,6 +3,11 @@ package com.polyshop.authservice.repository;
 import com.polyshop.authservice.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
@@ -11,4 +16,32 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     Optional<User> findByPhone(String phone); // NEW
     boolean existsByEmail(String email);
     boolean existsByPhone(String phone);
+    @Query("select u.email as email, u.tokensValidAfter as tokensValidAfter, u.accessTokensValidAfter as accessTokensValidAfter from User u " +
+            "where u.tokensValidAfter >= :since or u.accessTokensValidAfter >= :since")
+    List<TokenEpochView> findTokenEpochsSince(@Param("since") Instant since);
+
+    // the counters are updated in the database so concurrent logins cannot overwrite each other
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.failedLoginAttempts = u.failedLoginAttempts + 1, " +
+            "u.lockedUntil = case when u.failedLoginAttempts + 1 >= :maxAttempts then :lockUntil else u.lockedUntil end, " +
+            "u.updatedAt = :now where u.id = :id")
+    int recordFailedLogin(@Param("id") Long id, @Param("maxAttempts") int maxAttempts,
+                          @Param("lockUntil") Instant lockUntil, @Param("now") Instant now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.failedLoginAttempts = 0, u.lockedUntil = null, u.updatedAt = :now " +
+            "where u.id = :id and (u.failedLoginAttempts <> 0 or u.lockedUntil is not null)")
+    int resetFailedLogins(@Param("id") Long id, @Param("now") Instant now);
+
+    // only replaces the hash that was verified, so a password change in between wins
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.passwordHash = :newHash, u.updatedAt = :now where u.id = :id and u.passwordHash = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash,
+                            @Param("newHash") String newHash, @Param("now") Instant now);
+
+    interface TokenEpochView {
+        String getEmail();
+        Instant getTokensValidAfter();
+        Instant getAccessTokensValidAfter();
+    }
 }
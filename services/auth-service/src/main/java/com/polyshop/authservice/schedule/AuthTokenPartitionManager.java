@@ -0,0 +1,256 @@
+package com.polyshop.authservice.schedule;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps auth_tokens range-partitioned by expires_at (one partition per UTC day plus a default
+ * partition) on PostgreSQL. Whole days are retired by detaching and dropping their partition
+ * once every row in them expired more than the retention period ago.
+ */
+@Component
+// after Hibernate, so schema creation or update has made auth_tokens first
+@DependsOn("entityManagerFactory")
+public class AuthTokenPartitionManager {
+
+    private static final String TABLE = "auth_tokens";
+    private static final String LEGACY = "auth_tokens_legacy";
+    private static final String DEFAULT_PARTITION = "auth_tokens_default";
+    private static final long LOCK_KEY = 0x617574685f746f6bL;
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter PG_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssX");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int premakeDays;
+    private final long retentionSeconds;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile boolean active;
+
+    public record Partition(String name, Instant upperBound) {}
+
+    public record DropResult(int partitions, long rows) {
+        static final DropResult NONE = new DropResult(0, 0);
+    }
+
+    public AuthTokenPartitionManager(
+            DataSource dataSource,
+            JdbcTemplate jdbc,
+            PlatformTransactionManager transactionManager,
+            @Value("${auth.token.cleanup.partitioning.enabled:false}") boolean enabled,
+            @Value("${auth.token.cleanup.partitioning.premake-days:35}") int premakeDays,
+            @Value("${auth.token.cleanup.retention-seconds:604800}") long retentionSeconds
+    ) {
+        this.dataSource = dataSource;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.premakeDays = premakeDays;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        if (!isPostgres()) {
+            log.warn("auth_tokens partitioning needs PostgreSQL, falling back to chunked deletes");
+            return;
+        }
+        withLock(() -> {
+            if (!isPartitioned()) convert();
+            ensurePartitions(Instant.now());
+            return null;
+        });
+        active = isPartitioned();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public DropResult maintain(Instant now) {
+        if (!active) return DropResult.NONE;
+        DropResult result = withLock(() -> {
+            ensurePartitions(now);
+            return dropExpired(now);
+        });
+        return result == null ? DropResult.NONE : result;
+    }
+
+    /**
+     * Ids the row purge may still delete once partitions are active: rows revoked before they
+     * expired, which no drop reaches until their day retires, and rows in the default partition,
+     * which is never dropped. Expired rows in a day partition are left for the drop.
+     */
+    public List<Long> findPurgeableIds(long after, Instant now, Instant cutoff, int limit) {
+        Timestamp nowTs = Timestamp.from(now);
+        Timestamp cutoffTs = Timestamp.from(cutoff);
+        return jdbc.queryForList(
+                "select id from " + TABLE + " where id > ? and revoked and expires_at > ? and updated_at < ? " +
+                        "union select id from " + DEFAULT_PARTITION + " where id > ? and (revoked or expires_at < ?) and updated_at < ? " +
+                        "order by id limit ?",
+                Long.class, after, nowTs, cutoffTs, after, nowTs, cutoffTs, limit);
+    }
+
+    private <T> T withLock(java.util.function.Supplier<T> work) {
+        return tx.execute(status -> {
+            Boolean locked = jdbc.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                log.debug("auth_tokens partition maintenance running elsewhere, skipping");
+                return null;
+            }
+            jdbc.execute("set local timezone = 'UTC'");
+            return work.get();
+        });
+    }
+
+    private void convert() {
+        Timestamp max = jdbc.queryForObject("select max(expires_at) from " + TABLE, Timestamp.class);
+        Instant cutoff = (max == null ? Instant.now() : max.toInstant()).truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+        List<Map<String, Object>> indexes = jdbc.queryForList(
+                "select indexname, indexdef from pg_indexes where schemaname = current_schema() and tablename = ? " +
+                        "and indexname not in (select conname from pg_constraint where conrelid = to_regclass(?) and contype in ('p', 'u'))",
+                TABLE, TABLE);
+        List<Map<String, Object>> foreignKeys = jdbc.queryForList(
+                "select conname, pg_get_constraintdef(oid) as def from pg_constraint where conrelid = to_regclass(?) and contype = 'f'",
+                TABLE);
+
+        log.info("converting {} to a partitioned table, existing rows kept in {} up to {}", TABLE, LEGACY, cutoff);
+        jdbc.execute("alter table " + TABLE + " rename to " + LEGACY);
+        jdbc.execute("alter table " + LEGACY + " alter column id drop identity if exists");
+        List<String> primaryKey = jdbc.queryForList(
+                "select conname from pg_constraint where conrelid = to_regclass(?) and contype = 'p'", String.class, LEGACY);
+        for (String pk : primaryKey) {
+            // replaced by the parent's (id, expires_at) key when the table is attached
+            jdbc.execute("alter table " + LEGACY + " drop constraint " + pk);
+        }
+        for (Map<String, Object> idx : indexes) {
+            jdbc.execute("alter index " + idx.get("indexname") + " rename to " + legacyName((String) idx.get("indexname")));
+        }
+        for (Map<String, Object> fk : foreignKeys) {
+            jdbc.execute("alter table " + LEGACY + " rename constraint " + fk.get("conname") + " to " + legacyName((String) fk.get("conname")));
+        }
+        jdbc.execute("create table " + TABLE + " (like " + LEGACY + " including defaults including constraints) partition by range (expires_at)");
+        jdbc.execute("alter table " + TABLE + " add primary key (id, expires_at)");
+        for (Map<String, Object> fk : foreignKeys) {
+            jdbc.execute("alter table " + TABLE + " add constraint " + fk.get("conname") + " " + fk.get("def"));
+        }
+        for (Map<String, Object> idx : indexes) {
+            jdbc.execute((String) idx.get("indexdef"));
+        }
+        jdbc.execute("alter table " + TABLE + " attach partition " + LEGACY + " for values from (minvalue) to ('" + cutoff + "')");
+        jdbc.execute("create table if not exists " + DEFAULT_PARTITION + " partition of " + TABLE + " default");
+    }
+
+    private void ensurePartitions(Instant now) {
+        Instant covered = listPartitions().stream()
+                .map(Partition::upperBound)
+                .max(Instant::compareTo)
+                .orElse(now.truncatedTo(ChronoUnit.DAYS));
+        Instant horizon = now.truncatedTo(ChronoUnit.DAYS).plus(premakeDays + 1L, ChronoUnit.DAYS);
+        for (Instant day = covered; day.isBefore(horizon); day = day.plus(1, ChronoUnit.DAYS)) {
+            Instant next = day.plus(1, ChronoUnit.DAYS);
+            String name = TABLE + "_p" + DAY.format(day);
+            Boolean spilled = jdbc.queryForObject(
+                    "select exists (select 1 from " + DEFAULT_PARTITION + " where expires_at >= ? and expires_at < ?)",
+                    Boolean.class, Timestamp.from(day), Timestamp.from(next));
+            if (Boolean.TRUE.equals(spilled)) {
+                createFromDefault(name, day, next);
+            } else {
+                createPartition(name, day, next);
+            }
+        }
+    }
+
+    private void createPartition(String name, Instant from, Instant to) {
+        jdbc.execute("create table " + name + " partition of " + TABLE +
+                " for values from ('" + from + "') to ('" + to + "')");
+    }
+
+    /**
+     * Postgres refuses to create a partition whose range already has rows in the default
+     * partition, so the default is detached while the day is split out of it. Runs inside the
+     * maintenance transaction: the parent is locked exclusively until it commits.
+     */
+    private void createFromDefault(String name, Instant from, Instant to) {
+        jdbc.execute("alter table " + TABLE + " detach partition " + DEFAULT_PARTITION);
+        createPartition(name, from, to);
+        int moved = jdbc.update(
+                "with moved as (delete from " + DEFAULT_PARTITION + " where expires_at >= ? and expires_at < ? returning *) " +
+                        "insert into " + TABLE + " select * from moved",
+                Timestamp.from(from), Timestamp.from(to));
+        jdbc.execute("alter table " + TABLE + " attach partition " + DEFAULT_PARTITION + " default");
+        log.warn("moved {} rows from {} into new partition {}", moved, DEFAULT_PARTITION, name);
+    }
+
+    private DropResult dropExpired(Instant now) {
+        Instant boundary = now.minusSeconds(retentionSeconds);
+        int partitions = 0;
+        long rows = 0;
+        for (Partition p : listPartitions()) {
+            if (p.upperBound().isAfter(boundary)) continue;
+            Long estimate = jdbc.queryForObject("select greatest(reltuples, 0)::bigint from pg_class where oid = to_regclass(?)", Long.class, p.name());
+            jdbc.execute("alter table " + TABLE + " detach partition " + p.name());
+            jdbc.execute("drop table " + p.name());
+            partitions++;
+            rows += estimate == null ? 0 : estimate;
+            log.info("dropped auth_tokens partition {} (~{} rows)", p.name(), estimate);
+        }
+        return new DropResult(partitions, rows);
+    }
+
+    private List<Partition> listPartitions() {
+        List<Partition> result = new ArrayList<>();
+        jdbc.query(
+                "select c.relname, pg_get_expr(c.relpartbound, c.oid) from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+                        "where i.inhparent = to_regclass(?)",
+                rs -> {
+                    Matcher m = UPPER_BOUND.matcher(rs.getString(2));
+                    if (m.find()) result.add(new Partition(rs.getString(1), OffsetDateTime.parse(m.group(1), PG_TIMESTAMP).toInstant()));
+                },
+                TABLE);
+        return result;
+    }
+
+    private boolean isPartitioned() {
+        List<String> kind = jdbc.queryForList("select relkind::text from pg_class where oid = to_regclass(?)", String.class, TABLE);
+        return !kind.isEmpty() && "p".equals(kind.get(0));
+    }
+
+    private boolean isPostgres() {
+        try (Connection c = dataSource.getConnection()) {
+            return "PostgreSQL".equals(c.getMetaData().getDatabaseProductName());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String legacyName(String name) {
+        String suffix = "_legacy";
+        return (name.length() + suffix.length() > 63 ? name.substring(0, 63 - suffix.length()) : name) + suffix;
+    }
+}
@@ -0,0 +1,42 @@
+package com.polyshop.authservice.schedule;
+
+import com.polyshop.authservice.repository.AuthTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Instant;
+
+/**
+ * Marks refresh/reset/verification rows issued before their user's token epoch as revoked so they
+ * become eligible for cleanup. Access rows are left alone: the epoch check already rejects them.
+ */
+@Component
+public class TokenEpochSweeper {
+    private static final long OVERLAP_SECONDS = 60;
+
+    private final AuthTokenRepository repo;
+    private final int chunkSize;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile Instant lastSweep = Instant.EPOCH;
+
+    public TokenEpochSweeper(AuthTokenRepository repo, @Value("${auth.token.epoch.sweep-chunk:1000}") int chunkSize) {
+        this.repo = repo;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.epoch.sweep-ms:60000}")
+    public void sweep() {
+        Instant started = Instant.now();
+        Instant since = lastSweep.minusSeconds(OVERLAP_SECONDS);
+        int total = 0;
+        int updated;
+        do {
+            updated = repo.revokeIssuedBeforeEpoch(Instant.now(), since, chunkSize);
+            total += updated;
+        } while (updated >= chunkSize);
+        lastSweep = started;
+        if (total > 0) log.info("token_epoch_sweep revoked={}", total);
+    }
+}
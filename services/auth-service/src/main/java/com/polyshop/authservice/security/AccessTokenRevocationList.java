@@ -0,0 +1,143 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.domain.enums.TokenType;
+import com.polyshop.authservice.repository.AuthTokenRepository;
+import com.polyshop.authservice.repository.AuthTokenRepository.RevokedTokenView;
+import com.polyshop.authservice.util.BloomFilter;
+import com.polyshop.authservice.util.HashUtil;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class AccessTokenRevocationList {
+
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    private final AuthTokenRepository repo;
+    private final int maxEntries;
+    private final double falsePositiveRate;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    // keyed by hex so lookups only build a string after a Bloom filter hit
+    private final ConcurrentHashMap<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile boolean saturated;
+    private volatile Instant lastSync = Instant.EPOCH;
+    // a lock rather than synchronized: revoke runs on request threads, which may be virtual
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public AccessTokenRevocationList(
+            AuthTokenRepository repo,
+            @Value("${auth.token.revocation.max-entries:1000000}") int maxEntries,
+            @Value("${auth.token.revocation.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.repo = repo;
+        this.maxEntries = maxEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(maxEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void load() {
+        reload();
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    public boolean isRevoked(byte[] tokenHash) {
+        if (!filter.mightContain(tokenHash)) return false;
+        Instant exp = revoked.get(HashUtil.toHex(tokenHash));
+        return exp != null && exp.isAfter(Instant.now());
+    }
+
+    public void revoke(byte[] tokenHash, Instant expiresAt) {
+        lock.lock();
+        try {
+            if (saturated || expiresAt == null || !expiresAt.isAfter(Instant.now())) return;
+            String key = HashUtil.toHex(tokenHash);
+            if (revoked.size() >= maxEntries && !revoked.containsKey(key)) {
+                purge();
+                if (revoked.size() >= maxEntries) {
+                    log.warn("access token revocation list full ({} entries), falling back to database checks", maxEntries);
+                    saturated = true;
+                    revoked.clear();
+                    return;
+                }
+            }
+            filter.put(tokenHash);
+            revoked.put(key, expiresAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.revocation.sync-ms:5000}")
+    public void sync() {
+        // saturated means every check goes to the database; purge decides when to try the list again
+        if (saturated) return;
+        Instant started = Instant.now();
+        List<RevokedTokenView> changed = repo.findRevokedSince(TokenType.ACCESS, started, lastSync.minusSeconds(SYNC_OVERLAP_SECONDS));
+        for (RevokedTokenView v : changed) {
+            revoke(v.getTokenHash(), v.getExpiresAt());
+        }
+        lastSync = started;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.revocation.purge-ms:60000}")
+    public void purge() {
+        if (saturated) {
+            // a count each purge interval, and the full load only once the rows fit again
+            if (repo.countRevoked(TokenType.ACCESS, Instant.now()) < maxEntries) reload();
+            return;
+        }
+        lock.lock();
+        try {
+            Instant now = Instant.now();
+            revoked.values().removeIf(exp -> !exp.isAfter(now));
+            BloomFilter rebuilt = new BloomFilter(maxEntries, falsePositiveRate);
+            revoked.keySet().forEach(h -> rebuilt.put(HexFormat.of().parseHex(h)));
+            filter = rebuilt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reload() {
+        Instant started = Instant.now();
+        // query outside the lock so revoke() never waits on the database
+        List<RevokedTokenView> all = repo.findRevokedSince(TokenType.ACCESS, started, Instant.EPOCH);
+        lock.lock();
+        try {
+            revoked.clear();
+            if (all.size() >= maxEntries) {
+                log.warn("{} revoked access tokens exceed revocation list capacity {}, falling back to database checks", all.size(), maxEntries);
+                saturated = true;
+                filter = new BloomFilter(maxEntries, falsePositiveRate);
+                lastSync = started;
+                return;
+            }
+            BloomFilter rebuilt = new BloomFilter(maxEntries, falsePositiveRate);
+            for (RevokedTokenView v : all) {
+                rebuilt.put(v.getTokenHash());
+                revoked.put(HashUtil.toHex(v.getTokenHash()), v.getExpiresAt());
+            }
+            filter = rebuilt;
+            saturated = false;
+            lastSync = started;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
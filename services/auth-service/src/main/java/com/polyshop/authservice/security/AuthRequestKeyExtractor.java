@@ -0,0 +1,45 @@
+package com.polyshop.authservice.security;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class AuthRequestKeyExtractor {
+
+    private static final int EMAIL = 1;
+    private static final int PHONE = 2;
+    private static final int LOGIN = 4;
+    private static final int ALL = EMAIL | PHONE | LOGIN;
+
+    private final ObjectMapper objectMapper;
+
+    public record Keys(String email, String phone, String usernameOrEmailOrPhone) {
+        public static final Keys EMPTY = new Keys(null, null, null);
+    }
+
+    public Keys extract(byte[] body) {
+        if (body == null || body.length == 0) return Keys.EMPTY;
+        String email = null;
+        String phone = null;
+        String login = null;
+        int found = 0;
+        try (JsonParser p = objectMapper.getFactory().createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return Keys.EMPTY;
+            while (found != ALL && p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                if (p.nextToken() == null) break;
+                switch (name) {
+                    case "email" -> { email = p.getValueAsString(); found |= EMAIL; }
+                    case "phone" -> { phone = p.getValueAsString(); found |= PHONE; }
+                    case "usernameOrEmailOrPhone" -> { login = p.getValueAsString(); found |= LOGIN; }
+                    default -> p.skipChildren();
+                }
+            }
+        } catch (Exception ignored) {}
+        return new Keys(email, phone, login);
+    }
+}
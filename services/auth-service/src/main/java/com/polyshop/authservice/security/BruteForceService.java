@@ -2,32 +2,139 @@ package com.polyshop.authservice.security;
 
 import com.polyshop.authservice.domain.Ban;
 import com.polyshop.authservice.repository.BanRepository;
+import com.polyshop.authservice.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class BruteForceService {
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
     private final BanRepository repo;
-    public BruteForceService(BanRepository repo) { this.repo = repo; }
+    private final int expectedBans;
+    private final long tombstoneRetentionSeconds;
+    private final ConcurrentHashMap<String, Instant> active = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile Instant lastSync = Instant.EPOCH;
+    private final ReentrantLock lock = new ReentrantLock();
 
-    public boolean isBanned(String key) {
-        var o = repo.findByKey(key);
-        if (o.isEmpty()) return false;
-        Ban b = o.get();
-        if (b.getUntil().isBefore(Instant.now())) {
-            repo.delete(b);
-            return false;
+    public BruteForceService(
+            BanRepository repo,
+            @Value("${auth.bans.expected-entries:100000}") int expectedBans,
+            @Value("${auth.bans.tombstone-retention-seconds:3600}") long tombstoneRetentionSeconds
+    ) {
+        this.repo = repo;
+        this.expectedBans = expectedBans;
+        this.tombstoneRetentionSeconds = tombstoneRetentionSeconds;
+        this.filter = new BloomFilter(expectedBans, 0.01);
+    }
+
+    @PostConstruct
+    public void load() {
+        Instant started = Instant.now();
+        List<Ban> bans = repo.findAllByUntilAfter(started);
+        lock.lock();
+        try {
+            active.clear();
+            BloomFilter rebuilt = new BloomFilter(expectedBans, 0.01);
+            for (Ban b : bans) {
+                rebuilt.put(b.getKey());
+                active.put(b.getKey(), b.getUntil());
+            }
+            filter = rebuilt;
+            lastSync = started;
+        } finally {
+            lock.unlock();
         }
-        return true;
     }
 
+    public boolean isBanned(String key) {
+        if (!filter.mightContain(key)) return false;
+        Instant until = active.get(key);
+        if (until == null) return false;
+        if (until.isAfter(Instant.now())) return true;
+        active.remove(key, until);
+        return false;
+    }
+
+    @Transactional
     public void ban(String key, long seconds, String reason) {
         Ban b = repo.findByKey(key).orElse(new Ban());
         b.setKey(key);
         b.setUntil(Instant.now().plusSeconds(seconds));
         b.setReason(reason);
         repo.save(b);
+        Instant until = b.getUntil();
+        afterCommit(() -> apply(key, until));
+    }
+
+    @Transactional
+    public void unban(String key) {
+        repo.findByKey(key).ifPresent(b -> {
+            b.setUntil(Instant.now());
+            repo.save(b);
+        });
+        afterCommit(() -> active.remove(key));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.bans.sync-ms:5000}")
+    public void sync() {
+        Instant started = Instant.now();
+        for (Ban b : repo.findAllByUpdatedAtGreaterThanEqual(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS))) {
+            apply(b.getKey(), b.getUntil());
+        }
+        lastSync = started;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.bans.purge-ms:300000}")
+    public void purge() {
+        Instant now = Instant.now();
+        lock.lock();
+        try {
+            active.values().removeIf(until -> !until.isAfter(now));
+            BloomFilter rebuilt = new BloomFilter(expectedBans, 0.01);
+            active.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        } finally {
+            lock.unlock();
+        }
+        repo.deleteExpiredBefore(now.minusSeconds(tombstoneRetentionSeconds));
     }
 
-    public void unban(String key) { repo.deleteByKey(key); }
+    // the near-cache only ever reflects committed rows: a rolled-back ban must not block anyone
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void apply(String key, Instant until) {
+        lock.lock();
+        try {
+            if (until.isAfter(Instant.now())) {
+                filter.put(key);
+                active.put(key, until);
+            } else {
+                active.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 }
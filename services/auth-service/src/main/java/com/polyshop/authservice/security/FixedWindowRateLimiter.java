@@ -0,0 +1,29 @@
+package com.polyshop.authservice.security;
+
+public class FixedWindowRateLimiter extends PackedSlotRateLimiter {
+
+    public static final int MAX_COUNT = (1 << 12) - 1;
+
+    private static final int RESET_BITS = 28;
+    private static final long RESET_MASK = (1L << RESET_BITS) - 1;
+
+    public FixedWindowRateLimiter(int maxKeys, int shardCount) {
+        super(maxKeys, shardCount);
+    }
+
+    @Override
+    protected long expiresAt(long payload) {
+        return (payload & RESET_MASK) * 1000L;
+    }
+
+    @Override
+    protected long acquire(long payload, long now, int max, long windowMillis) {
+        if (payload == 0) {
+            long resetSeconds = (now + windowMillis + 999) / 1000;
+            return (1L << RESET_BITS) | (resetSeconds & RESET_MASK);
+        }
+        long count = payload >>> RESET_BITS;
+        if (count >= Math.min(max, MAX_COUNT)) return DENY;
+        return ((count + 1) << RESET_BITS) | (payload & RESET_MASK);
+    }
+}
@@ -0,0 +1,21 @@
+package com.polyshop.authservice.security;
+
+public class GcraRateLimiter extends PackedSlotRateLimiter {
+
+    public GcraRateLimiter(int maxKeys, int shardCount) {
+        super(maxKeys, shardCount);
+    }
+
+    @Override
+    protected long expiresAt(long payload) {
+        return payload;
+    }
+
+    @Override
+    protected long acquire(long payload, long now, int max, long windowMillis) {
+        long interval = Math.max(1, windowMillis / max);
+        long tat = Math.max(payload, now);
+        if (tat - now > windowMillis - interval) return DENY;
+        return tat + interval;
+    }
+}
@@ -0,0 +1,50 @@
+package com.polyshop.authservice.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+import java.security.spec.ECGenParameterSpec;
+
+public enum JwtAlgorithm {
+    RS256,
+    ES256,
+    EdDSA;
+
+    public SignatureAlgorithm signatureAlgorithm() {
+        return switch (this) {
+            case RS256 -> Jwts.SIG.RS256;
+            case ES256 -> Jwts.SIG.ES256;
+            case EdDSA -> Jwts.SIG.EdDSA;
+        };
+    }
+
+    public KeyPair generateKeyPair() {
+        try {
+            return switch (this) {
+                case RS256 -> JwtKeyUtils.generateRsaKeyPair();
+                case ES256 -> {
+                    KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+                    kpg.initialize(new ECGenParameterSpec("secp256r1"));
+                    yield kpg.generateKeyPair();
+                }
+                case EdDSA -> KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            };
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(name() + " key generation not available", e);
+        }
+    }
+
+    public static JwtAlgorithm forKey(Key key) {
+        if (key instanceof RSAKey) return RS256;
+        if (key instanceof ECKey ec && ec.getParams().getCurve().getField().getFieldSize() == 256) return ES256;
+        if (key instanceof EdECKey ed && "Ed25519".equals(ed.getParams().getName())) return EdDSA;
+        throw new IllegalArgumentException("unsupported JWT key type: " + key.getAlgorithm());
+    }
+}
@@ -1,7 +1,5 @@
 package com.polyshop.authservice.security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -34,18 +32,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (h != null && h.startsWith(bearer)) {
             String token = h.substring(bearer.length());
             try {
-                Jws<Claims> jws = jwtUtil.parseToken(token);
-                Claims body = jws.getBody();
-                String subject = body.getSubject();
-                String jti = body.get("jti", String.class);
-                if (jti == null || !authTokenService.isAccessTokenValid(jti)) {
+                VerifiedToken verified = jwtUtil.verify(token);
+                if (verified.jti() == null || !authTokenService.isAccessTokenValid(verified)) {
                     filterChain.doFilter(request, response);
                     return;
                 }
-                @SuppressWarnings("unchecked")
-                List<String> roles = body.get("roles", List.class);
-                List<SimpleGrantedAuthority> authorities = (roles == null) ? List.of() : roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
-                AbstractAuthenticationToken auth = new UsernamePasswordAuthenticationToken(subject, null, authorities);
+                List<SimpleGrantedAuthority> authorities = verified.roles().stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+                AbstractAuthenticationToken auth = new UsernamePasswordAuthenticationToken(verified.subject(), null, authorities);
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } catch (Exception ex) {
                 log.debug("jwt parse/auth error: {}", ex.getMessage());
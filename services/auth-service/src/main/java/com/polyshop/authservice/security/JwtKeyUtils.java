@@ -6,6 +6,8 @@ import java.util.Base64;
 
 public final class JwtKeyUtils {
 
+    private static final String[] KEY_ALGORITHMS = {"RSA", "EC", "Ed25519"};
+
     private JwtKeyUtils() {}
 
     public static KeyPair generateRsaKeyPair() {
@@ -26,17 +28,16 @@ public final class JwtKeyUtils {
                     .replaceAll("-----END (.*)-----", "")
                     .replaceAll("\\s", "");
             byte[] keyBytes = Base64.getDecoder().decode(cleaned);
-            try {
-                PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
-                KeyFactory kf = KeyFactory.getInstance("RSA");
-                return kf.generatePrivate(spec);
-            } catch (Exception inner) {
-                byte[] pkcs1 = keyBytes;
-                byte[] pkcs8Header = new byte[] {
-                        0x30, (byte)0x82
-                };
-                throw new RuntimeException("Failed to parse private key PEM (ensure PKCS#8 format)", inner);
+            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
+            Exception last = null;
+            for (String algorithm : KEY_ALGORITHMS) {
+                try {
+                    return KeyFactory.getInstance(algorithm).generatePrivate(spec);
+                } catch (InvalidKeySpecException inner) {
+                    last = inner;
+                }
             }
+            throw new RuntimeException("Failed to parse private key PEM (ensure PKCS#8 RSA, EC P-256 or Ed25519)", last);
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -53,10 +54,17 @@ public final class JwtKeyUtils {
                     .replaceAll("\\s", "");
             byte[] keyBytes = Base64.getDecoder().decode(cleaned);
             X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-            KeyFactory kf = KeyFactory.getInstance("RSA");
-            return kf.generatePublic(spec);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("RSA algorithm not available", e);
+            Exception last = null;
+            for (String algorithm : KEY_ALGORITHMS) {
+                try {
+                    return KeyFactory.getInstance(algorithm).generatePublic(spec);
+                } catch (InvalidKeySpecException inner) {
+                    last = inner;
+                }
+            }
+            throw new RuntimeException("Failed to parse public key PEM (ensure X.509 RSA, EC P-256 or Ed25519)", last);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse public key PEM", e);
         }
@@ -5,17 +5,22 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.KeyPair;
-import java.security.PrivateKey;
+import java.security.PublicKey;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @RequiredArgsConstructor
 public class JwtUtil {
 
+    // iat is whole seconds; token epochs need to tell apart tokens minted either side of a
+    // revocation in the same second
+    static final String ISSUED_AT_MILLIS = "iat_ms";
+
     private final KeyProvider keyProvider;
 
     @Value("${auth.jwt.expires-in:900}")
@@ -24,12 +29,18 @@ public class JwtUtil {
     @Value("${auth.jwt.issuer:polyshop-auth}")
     private String issuer;
 
+    @Value("${auth.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
 
-    public String generateAccessToken(String subject, List<String> roles, String jti) {
-        KeyPair kp = keyProvider.getActiveKeyPair();
-        PrivateKey privateKey = kp.getPrivate();
+    private volatile Verifier verifier;
+    private final ConcurrentHashMap<String, CachedToken> verifiedCache = new ConcurrentHashMap<>();
+
+    private record Verifier(Map<String, PublicKey> keys, JwtParser parser) {}
 
-        String kid = keyProvider.getActiveKid();
+    private record CachedToken(String token, VerifiedToken verified) {}
+
+    public String generateAccessToken(String subject, List<String> roles, String jti) {
+        KeyProvider.SigningKey key = keyProvider.getActiveKey();
         String finalJti = jti == null ? UUID.randomUUID().toString() : jti;
 
         Instant now = Instant.now();
@@ -37,39 +48,84 @@ public class JwtUtil {
         Date exp = Date.from(now.plusSeconds(expiresSeconds));
 
         return Jwts.builder()
-                .setHeaderParam("kid", kid)
-                .setSubject(subject)
-                .setIssuer(issuer)
-                .setIssuedAt(issuedAt)
-                .setExpiration(exp)
-                .setId(finalJti)
+                .header().keyId(key.kid()).and()
+                .subject(subject)
+                .issuer(issuer)
+                .issuedAt(issuedAt)
+                .expiration(exp)
+                .id(finalJti)
+                .claim(ISSUED_AT_MILLIS, now.toEpochMilli())
                 .claim("roles", roles)
-                .signWith(privateKey, SignatureAlgorithm.RS256)
+                .signWith(key.keyPair().getPrivate(), key.algorithm().signatureAlgorithm())
                 .compact();
     }
 
     public Jws<Claims> parseToken(String token) {
-        MultiKeyResolver resolver = new MultiKeyResolver(keyProvider);
+        return currentVerifier().parser().parseSignedClaims(token);
+    }
+
+    public VerifiedToken verify(String token) {
+        currentVerifier();
+        int dot = token.lastIndexOf('.');
+        String signature = dot < 0 ? token : token.substring(dot + 1);
+        CachedToken cached = verifiedCache.get(signature);
+        if (cached != null && cached.token().equals(token)) {
+            if (cached.verified().expiresAt().isAfter(Instant.now())) return cached.verified();
+            verifiedCache.remove(signature, cached);
+        }
 
-        return Jwts.parserBuilder()
-                .setSigningKeyResolver(resolver)
-                .build()
-                .parseClaimsJws(token);
+        Jws<Claims> jws = parseToken(token);
+        Claims body = jws.getPayload();
+        Object roles = body.get("roles");
+        VerifiedToken verified = new VerifiedToken(
+                jws.getHeader().getKeyId(),
+                body.getSubject(),
+                body.getId(),
+                roles instanceof List<?> l ? l.stream().map(Object::toString).toList() : List.of(),
+                issuedAt(body),
+                body.getExpiration().toInstant()
+        );
+        cacheVerified(signature, new CachedToken(token, verified));
+        return verified;
+    }
+
+    private static Instant issuedAt(Claims body) {
+        if (body.get(ISSUED_AT_MILLIS) instanceof Number millis) return Instant.ofEpochMilli(millis.longValue());
+        return body.getIssuedAt() == null ? Instant.EPOCH : body.getIssuedAt().toInstant();
     }
 
     public String getSubject(String token) {
-        return parseToken(token).getBody().getSubject();
+        return verify(token).subject();
     }
 
     public List<String> getRoles(String token) {
-        Object roles = parseToken(token).getBody().get("roles");
-        if (roles instanceof List<?>) {
-            return ((List<?>) roles).stream().map(Object::toString).toList();
-        }
-        return List.of();
+        return verify(token).roles();
     }
 
     public String getJti(String token) {
-        return parseToken(token).getBody().getId();
+        return verify(token).jti();
+    }
+
+    private Verifier currentVerifier() {
+        Map<String, PublicKey> keys = keyProvider.getAllPublicKeys();
+        Verifier v = verifier;
+        if (v == null || v.keys() != keys) {
+            v = new Verifier(keys, Jwts.parser()
+                    .keyLocator(new MultiKeyResolver(keys))
+                    .build());
+            verifier = v;
+            verifiedCache.values().removeIf(c -> !keys.containsKey(c.verified().kid()));
+        }
+        return v;
+    }
+
+    private void cacheVerified(String signature, CachedToken entry) {
+        if (verifiedCacheSize <= 0) return;
+        if (verifiedCache.size() >= verifiedCacheSize) {
+            Instant now = Instant.now();
+            verifiedCache.values().removeIf(c -> !c.verified().expiresAt().isAfter(now));
+            if (verifiedCache.size() >= verifiedCacheSize) verifiedCache.clear();
+        }
+        verifiedCache.put(signature, entry);
     }
 }
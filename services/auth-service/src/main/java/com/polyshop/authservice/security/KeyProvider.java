@@ -1,5 +1,7 @@
 package com.polyshop.authservice.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -9,19 +11,44 @@ import java.nio.file.*;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class KeyProvider {
 
-    private final Map<String, KeyPair> keyStore = new ConcurrentHashMap<>();
-    private volatile String activeKid;
+    public record SigningKey(String kid, KeyPair keyPair, JwtAlgorithm algorithm) {}
+
+    private record KeyEntry(KeyPair keyPair, boolean generated, Instant retiredAt) {
+        KeyEntry retire(Instant at) {
+            return new KeyEntry(keyPair, generated, at);
+        }
+    }
+
+    private final Map<String, KeyEntry> keyStore = new ConcurrentHashMap<>();
+    private final JwtAlgorithm algorithm;
+    private final Duration publishAhead;
+    private final Duration retention;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile Map<String, PublicKey> publicKeys = Map.of();
+    private volatile SigningKey active;
+    private String pendingKid;
+    private Instant pendingActivation;
 
     public KeyProvider(
             @Value("${auth.jwt.key-dir:}") String keyDir,
-            @Value("${auth.jwt.allow-dev-keys:true}") boolean allowDevKeys
+            @Value("${auth.jwt.allow-dev-keys:true}") boolean allowDevKeys,
+            @Value("${auth.jwt.algorithm:RS256}") JwtAlgorithm algorithm,
+            @Value("${auth.jwt.jwks-max-age-seconds:300}") long jwksMaxAgeSeconds,
+            @Value("${auth.jwt.expires-in:900}") long accessTtlSeconds,
+            @Value("${auth.jwt.clock-skew-seconds:60}") long clockSkewSeconds
     ) {
+        this.algorithm = algorithm;
+        // a new key must sit in the published JWKS for a full cache lifetime before it signs anything
+        this.publishAhead = Duration.ofSeconds(jwksMaxAgeSeconds + clockSkewSeconds);
+        this.retention = Duration.ofSeconds(accessTtlSeconds + clockSkewSeconds);
         if (keyDir != null && !keyDir.isBlank()) {
             try (DirectoryStream<Path> stream = Files.newDirectoryStream(Path.of(keyDir), "*.pem")) {
                 for (Path pemFile : stream) {
@@ -35,12 +62,18 @@ public class KeyProvider {
                 throw new IllegalStateException("No JWT keys found. Provide key directory.");
             }
 
-            KeyPair kp = JwtKeyUtils.generateRsaKeyPair();
+            KeyPair kp = algorithm.generateKeyPair();
             String kid = UUID.randomUUID().toString();
-            keyStore.put(kid, kp);
-            activeKid = kid;
+            keyStore.put(kid, new KeyEntry(kp, true, null));
+            publishPublicKeys();
+            activate(kid, kp);
         } else {
-            this.activeKid = keyStore.keySet().iterator().next();
+            publishPublicKeys();
+            Map.Entry<String, KeyEntry> first = keyStore.entrySet().stream()
+                    .filter(e -> JwtAlgorithm.forKey(e.getValue().keyPair().getPublic()) == algorithm)
+                    .findFirst()
+                    .orElse(keyStore.entrySet().iterator().next());
+            activate(first.getKey(), first.getValue().keyPair());
         }
     }
 
@@ -60,33 +93,72 @@ public class KeyProvider {
             PublicKey publicKey = JwtKeyUtils.parsePublicKeyPem(publicPem);
 
             if (privateKey != null && publicKey != null) {
-                keyStore.put(kid, new KeyPair(publicKey, privateKey));
+                keyStore.put(kid, new KeyEntry(new KeyPair(publicKey, privateKey), false, null));
             }
 
         } catch (Exception ignored) {}
     }
 
+    public SigningKey getActiveKey() {
+        return active;
+    }
+
     public KeyPair getActiveKeyPair() {
-        return keyStore.get(activeKid);
+        return active.keyPair();
     }
 
     public String getActiveKid() {
-        return activeKid;
+        return active.kid();
     }
 
     public Map<String, PublicKey> getAllPublicKeys() {
-        Map<String, PublicKey> out = new LinkedHashMap<>();
-        keyStore.forEach((kid, kp) -> out.put(kid, kp.getPublic()));
-        return out;
+        return publicKeys;
     }
 
-    @Scheduled(fixedDelayString = "${auth.jwt.rotate-ms:86400000}")
-    public void rotate() {
+    @Scheduled(fixedDelayString = "${auth.jwt.rotate-ms:86400000}", initialDelayString = "${auth.jwt.rotate-ms:86400000}")
+    public synchronized void rotate() {
         try {
-            KeyPair kp = JwtKeyUtils.generateRsaKeyPair();
+            KeyPair kp = algorithm.generateKeyPair();
             String kid = UUID.randomUUID().toString();
-            keyStore.put(kid, kp);
-            activeKid = kid;
+            // a still-pending key never signed anything, so a newer one simply replaces it
+            if (pendingKid != null) keyStore.remove(pendingKid);
+            keyStore.put(kid, new KeyEntry(kp, true, null));
+            publishPublicKeys();
+            pendingKid = kid;
+            pendingActivation = Instant.now().plus(publishAhead);
+            log.info("jwt key {} published, signing from {}", kid, pendingActivation);
         } catch (Exception ignored) {}
     }
+
+    @Scheduled(fixedDelayString = "${auth.jwt.key-lifecycle-ms:60000}")
+    public synchronized void maintainKeys() {
+        Instant now = Instant.now();
+        if (pendingKid != null && !now.isBefore(pendingActivation)) {
+            KeyEntry next = keyStore.get(pendingKid);
+            if (next != null) {
+                SigningKey previous = active;
+                keyStore.computeIfPresent(previous.kid(), (kid, e) -> e.retire(now));
+                activate(pendingKid, next.keyPair());
+                log.info("jwt key {} now signing, {} retired", pendingKid, previous.kid());
+            }
+            pendingKid = null;
+            pendingActivation = null;
+        }
+        boolean pruned = keyStore.entrySet().removeIf(e -> {
+            KeyEntry k = e.getValue();
+            // a retired key stays verifiable until every token it signed has expired
+            return k.generated() && k.retiredAt() != null && now.isAfter(k.retiredAt().plus(retention));
+        });
+        if (pruned) publishPublicKeys();
+    }
+
+    private void activate(String kid, KeyPair kp) {
+        active = new SigningKey(kid, kp, JwtAlgorithm.forKey(kp.getPublic()));
+    }
+
+    private void publishPublicKeys() {
+        Map<String, PublicKey> out = new LinkedHashMap<>();
+        keyStore.forEach((kid, k) -> out.put(kid, k.keyPair().getPublic()));
+        publicKeys = Collections.unmodifiableMap(out);
+    }
 }
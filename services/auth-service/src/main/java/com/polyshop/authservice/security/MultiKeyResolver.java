@@ -1,33 +1,37 @@
 package com.polyshop.authservice.security;
 
-import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.LocatorAdapter;
 
 import java.security.Key;
 import java.security.PublicKey;
 import java.util.Map;
 
-public class MultiKeyResolver extends SigningKeyResolverAdapter {
+public class MultiKeyResolver extends LocatorAdapter<Key> {
 
-    private final KeyProvider keyProvider;
+    private final Map<String, PublicKey> keys;
 
-    public MultiKeyResolver(KeyProvider keyProvider) {
-        this.keyProvider = keyProvider;
+    public MultiKeyResolver(Map<String, PublicKey> keys) {
+        this.keys = keys;
     }
 
     @Override
-    public Key resolveSigningKey(JwsHeader header, String claims) {
+    protected Key locate(JwsHeader header) {
         String kid = header.getKeyId();
         if (kid == null || kid.isBlank()) {
             throw new JwtException("Missing 'kid' in JWT header");
         }
 
-        Map<String, PublicKey> keys = keyProvider.getAllPublicKeys();
         PublicKey pk = keys.get(kid);
         if (pk == null) {
             throw new JwtException("Unknown 'kid' in JWT header: " + kid);
         }
+        // the key decides the algorithm; a header naming anything else is rejected
+        String expected = JwtAlgorithm.forKey(pk).name();
+        if (!expected.equals(header.getAlgorithm())) {
+            throw new JwtException("JWT 'alg' " + header.getAlgorithm() + " does not match key " + kid + " (" + expected + ")");
+        }
         return pk;
     }
 }
@@ -0,0 +1,104 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.util.HashUtil;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rate limiter state held in fixed-size open-addressed shards. Each slot is one packed long:
+ * a 24-bit key fingerprint in the high bits and a 40-bit algorithm payload in the low bits,
+ * so a decision is a single CAS and the footprint is fixed at 8 bytes per slot. Slots whose
+ * payload has expired carry no state and are reused; when a probe run is full the slot
+ * closest to expiry is evicted.
+ */
+public abstract class PackedSlotRateLimiter {
+
+    protected static final int PAYLOAD_BITS = 40;
+    protected static final long PAYLOAD_MASK = (1L << PAYLOAD_BITS) - 1;
+    protected static final long DENY = -1;
+
+    private static final int PROBES = 8;
+    private static final int SHARD_SHIFT = 20;
+
+    private final AtomicLongArray[] shards;
+    private final int shardMask;
+    private final int slotMask;
+    private final long baseNanos = System.nanoTime();
+
+    protected PackedSlotRateLimiter(int maxKeys, int shardCount) {
+        int shardsPow2 = Integer.highestOneBit(Math.max(1, Math.min(shardCount, 64)));
+        int perShard = Integer.highestOneBit(Math.max(PROBES, Math.min(maxKeys / shardsPow2, 1 << SHARD_SHIFT)));
+        this.shards = new AtomicLongArray[shardsPow2];
+        for (int i = 0; i < shardsPow2; i++) shards[i] = new AtomicLongArray(perShard);
+        this.shardMask = shardsPow2 - 1;
+        this.slotMask = perShard - 1;
+    }
+
+    /** Millisecond timestamp (relative to construction) after which {@code payload} holds no state. */
+    protected abstract long expiresAt(long payload);
+
+    /** Next payload after admitting one request, or {@link #DENY}. {@code payload} is 0 for a fresh key. */
+    protected abstract long acquire(long payload, long now, int max, long windowMillis);
+
+    public boolean tryAcquire(String key, int max, long windowMillis) {
+        if (max <= 0) return false;
+        long now = nowMillis();
+
+        long h = HashUtil.hash64(key);
+        long fingerprint = ((h >>> PAYLOAD_BITS) & 0xFFFFFF) | 1;
+        AtomicLongArray shard = shards[(int) (h >>> SHARD_SHIFT) & shardMask];
+        int start = (int) h & slotMask;
+
+        while (true) {
+            int target = -1;
+            long targetState = 0;
+            long oldest = Long.MAX_VALUE;
+            for (int i = 0; i < PROBES; i++) {
+                int idx = (start + i) & slotMask;
+                long state = shard.get(idx);
+                if (state == 0 || (state >>> PAYLOAD_BITS) == fingerprint) {
+                    target = idx;
+                    targetState = state;
+                    break;
+                }
+                long exp = expiresAt(state & PAYLOAD_MASK);
+                if (exp <= now && oldest > 0) {
+                    target = idx;
+                    targetState = state;
+                    oldest = 0;
+                } else if (exp < oldest) {
+                    target = idx;
+                    targetState = state;
+                    oldest = exp;
+                }
+            }
+
+            boolean owned = targetState != 0 && (targetState >>> PAYLOAD_BITS) == fingerprint;
+            long payload = owned ? targetState & PAYLOAD_MASK : 0;
+            if (owned && expiresAt(payload) <= now) payload = 0;
+            long next = acquire(payload, now, max, windowMillis);
+            if (next == DENY) return false;
+            if (shard.compareAndSet(target, targetState, (fingerprint << PAYLOAD_BITS) | (next & PAYLOAD_MASK))) return true;
+        }
+    }
+
+    public long capacity() {
+        return (long) shards.length * (slotMask + 1);
+    }
+
+    public long size() {
+        long now = nowMillis();
+        long n = 0;
+        for (AtomicLongArray shard : shards) {
+            for (int i = 0; i < shard.length(); i++) {
+                long state = shard.get(i);
+                if (state != 0 && expiresAt(state & PAYLOAD_MASK) > now) n++;
+            }
+        }
+        return n;
+    }
+
+    private long nowMillis() {
+        return (System.nanoTime() - baseNanos) / 1_000_000L + 1;
+    }
+}
@@ -0,0 +1,3 @@
+package com.polyshop.authservice.security;
+
+public record PasswordEncodingSettings(String encodingId, int bcryptStrength) {}
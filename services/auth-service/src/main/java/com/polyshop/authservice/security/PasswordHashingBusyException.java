@@ -0,0 +1,7 @@
+package com.polyshop.authservice.security;
+
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException() {
+        super("password_hashing_busy");
+    }
+}
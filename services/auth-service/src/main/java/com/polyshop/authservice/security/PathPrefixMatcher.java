@@ -0,0 +1,57 @@
+package com.polyshop.authservice.security;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public final class PathPrefixMatcher<T> {
+
+    private static final class Node<T> {
+        char[] labels = new char[0];
+        @SuppressWarnings("unchecked")
+        Node<T>[] children = new Node[0];
+        T value;
+
+        Node<T> child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node<T> childOrCreate(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) return children[i];
+            int at = -i - 1;
+            char[] l = new char[labels.length + 1];
+            @SuppressWarnings("unchecked")
+            Node<T>[] ch = new Node[children.length + 1];
+            System.arraycopy(labels, 0, l, 0, at);
+            System.arraycopy(children, 0, ch, 0, at);
+            l[at] = c;
+            ch[at] = new Node<>();
+            System.arraycopy(labels, at, l, at + 1, labels.length - at);
+            System.arraycopy(children, at, ch, at + 1, children.length - at);
+            labels = l;
+            children = ch;
+            return ch[at];
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+
+    public PathPrefixMatcher(Map<String, T> prefixes) {
+        prefixes.forEach((prefix, value) -> {
+            Node<T> n = root;
+            for (int i = 0; i < prefix.length(); i++) n = n.childOrCreate(prefix.charAt(i));
+            n.value = value;
+        });
+    }
+
+    public T longestMatch(String path) {
+        Node<T> n = root;
+        T best = n.value;
+        for (int i = 0; i < path.length() && n != null; i++) {
+            n = n.child(path.charAt(i));
+            if (n != null && n.value != null) best = n.value;
+        }
+        return best;
+    }
+}
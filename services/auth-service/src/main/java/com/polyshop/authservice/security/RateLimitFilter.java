@@ -1,7 +1,6 @@
 package com.polyshop.authservice.security;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.authservice.security.RateLimitPolicy.Dimension;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletInputStream;
@@ -9,8 +8,10 @@ import jakarta.servlet.ServletRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -22,12 +23,27 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 
 @Component
-@RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
 
     private final RateLimitService rateLimitService;
-    private final ObjectMapper objectMapper;
+    private final RateLimitPolicyService policyService;
+    private final AuthRequestKeyExtractor keyExtractor;
     private final BruteForceService bruteForceService;
+    private final int maxBodyBytes;
+
+    public RateLimitFilter(
+            RateLimitService rateLimitService,
+            RateLimitPolicyService policyService,
+            AuthRequestKeyExtractor keyExtractor,
+            BruteForceService bruteForceService,
+            @Value("${auth.ratelimit.max-body-bytes:16384}") int maxBodyBytes
+    ) {
+        this.rateLimitService = rateLimitService;
+        this.policyService = policyService;
+        this.keyExtractor = keyExtractor;
+        this.bruteForceService = bruteForceService;
+        this.maxBodyBytes = maxBodyBytes;
+    }
 
     private static class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
         private final byte[] cachedBody;
@@ -47,6 +63,11 @@ public class RateLimitFilter extends OncePerRequestFilter {
                     return bais.read();
                 }
 
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return bais.read(b, off, len);
+                }
+
                 @Override
                 public boolean isFinished() {
                     return bais.available() == 0;
@@ -62,6 +83,16 @@ public class RateLimitFilter extends OncePerRequestFilter {
             };
         }
 
+        @Override
+        public int getContentLength() {
+            return cachedBody.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return cachedBody.length;
+        }
+
         @Override
         public BufferedReader getReader() {
             return new BufferedReader(
@@ -77,22 +108,8 @@ public class RateLimitFilter extends OncePerRequestFilter {
             jakarta.servlet.FilterChain filterChain
     ) throws ServletException, IOException {
 
-        String path = request.getRequestURI();
-
-        boolean protectedPath =
-                path.startsWith("/api/v1/auth/request-") ||
-                        path.startsWith("/api/v1/auth/register") ||
-                        path.startsWith("/api/v1/auth/login") ||
-                        path.startsWith("/api/v1/auth/refresh") ||
-                        path.startsWith("/api/v1/auth/request-password-reset") ||
-                        path.startsWith("/api/v1/auth/confirm-password-reset") ||
-                        path.startsWith("/api/v1/auth/request-email-verify") ||
-                        path.startsWith("/api/v1/auth/request-phone-otp") ||
-                        path.startsWith("/api/v1/auth/verify-email") ||
-                        path.startsWith("/api/v1/auth/verify-phone") ||
-                        path.startsWith("/api/v1/auth/restore-account");
-
-        if (!protectedPath) {
+        RateLimitPolicy policy = policyService.match(request.getRequestURI());
+        if (policy == null) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -100,87 +117,72 @@ public class RateLimitFilter extends OncePerRequestFilter {
         String ip = extractClientIp(request);
 
         if (bruteForceService.isBanned("IP:" + ip)) {
-            response.setStatus(403);
-            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            response.getWriter().write("{\"error\":\"banned\"}");
-            return;
-        }
-
-        boolean ok = rateLimitService.allow("IP:" + ip, 30, 60);
-        if (!ok) {
-            response.setStatus(429);
-            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            response.getWriter().write("{\"error\":\"rate_limited\"}");
+            reject(response, 403, "banned");
             return;
         }
 
-        String method = request.getMethod();
-        String contentType = request.getContentType();
-        String email = null;
-        String phone = null;
-        String usernameOrEmailOrPhone = null;
-
-        if ("POST".equalsIgnoreCase(method)
-                && contentType != null
-                && contentType.contains(MediaType.APPLICATION_JSON_VALUE)) {
-
-            byte[] bodyBytes = readRequestBody(request);
-            HttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request, bodyBytes);
-
-            String json = new String(bodyBytes, StandardCharsets.UTF_8);
-
-            if (!json.isBlank()) {
-                try {
-                    JsonNode node = objectMapper.readTree(json);
-                    if (node != null) {
-                        if (node.has("email"))
-                            email = node.get("email").asText(null);
-                        if (node.has("usernameOrEmailOrPhone"))
-                            usernameOrEmailOrPhone = node.get("usernameOrEmailOrPhone").asText(null);
-                        if (node.has("phone"))
-                            phone = node.get("phone").asText(null);
-                    }
-                } catch (Exception ignored) {}
-            }
-
-            if (phone != null && !phone.isBlank()) {
-                boolean okPhone = rateLimitService.allow("PHONE:" + phone, 5, 3600);
-                if (!okPhone) {
-                    response.setStatus(429);
-                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-                    response.getWriter().write("{\"error\":\"rate_limited_phone\"}");
+        boolean jsonPost = "POST".equalsIgnoreCase(request.getMethod())
+                && request.getContentType() != null
+                && request.getContentType().contains(MediaType.APPLICATION_JSON_VALUE);
+        HttpServletRequest forwarded = request;
+        AuthRequestKeyExtractor.Keys keys = AuthRequestKeyExtractor.Keys.EMPTY;
+        boolean bodyRead = false;
+
+        for (RateLimitPolicy.Limit limit : policy.limits()) {
+            Dimension dimension = limit.dimension();
+            if (!bodyRead && jsonPost && (dimension == Dimension.EMAIL || dimension == Dimension.PHONE)) {
+                byte[] bodyBytes = readRequestBody(request);
+                if (bodyBytes == null) {
+                    reject(response, 413, "payload_too_large");
                     return;
                 }
+                forwarded = new CachedBodyHttpServletRequest(request, bodyBytes);
+                keys = keyExtractor.extract(bodyBytes);
+                bodyRead = true;
             }
 
-            if ((email == null || email.isBlank())
-                    && usernameOrEmailOrPhone != null
-                    && !usernameOrEmailOrPhone.isBlank()
-                    && usernameOrEmailOrPhone.contains("@")) {
+            String value = dimensionValue(dimension, ip, keys);
+            if (value == null || value.isBlank()) continue;
 
-                email = usernameOrEmailOrPhone;
+            String key = policy.name() + ":" + dimension + ":" + value;
+            if (!rateLimitService.allow(key, limit.max(), limit.windowSeconds(), limit.algorithm())) {
+                reject(response, 429, dimension == Dimension.IP ? "rate_limited" : "rate_limited_" + dimension.name().toLowerCase());
+                return;
             }
+        }
 
-            if (email != null && !email.isBlank()) {
-                boolean okEmail = rateLimitService.allow("EMAIL:" + email.toLowerCase(), 5, 3600);
-                if (!okEmail) {
-                    response.setStatus(429);
-                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-                    response.getWriter().write("{\"error\":\"rate_limited_email\"}");
-                    return;
-                }
-            }
+        filterChain.doFilter(forwarded, response);
+    }
 
-            filterChain.doFilter(cachedRequest, response);
-            return;
-        }
+    private String dimensionValue(Dimension dimension, String ip, AuthRequestKeyExtractor.Keys keys) {
+        return switch (dimension) {
+            case IP -> ip;
+            case PHONE -> keys.phone();
+            case EMAIL -> {
+                String email = keys.email();
+                String login = keys.usernameOrEmailOrPhone();
+                if ((email == null || email.isBlank()) && login != null && login.contains("@")) email = login;
+                yield email == null ? null : email.toLowerCase();
+            }
+            case USER -> {
+                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+                yield auth == null || !auth.isAuthenticated() ? null : auth.getName();
+            }
+        };
+    }
 
-        filterChain.doFilter(request, response);
+    private void reject(HttpServletResponse response, int status, String error) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
     }
 
     private byte[] readRequestBody(ServletRequest request) throws IOException {
+        long declared = request.getContentLengthLong();
+        if (declared > maxBodyBytes) return null;
         InputStream is = request.getInputStream();
-        return is.readAllBytes();
+        byte[] body = is.readNBytes(maxBodyBytes + 1);
+        return body.length > maxBodyBytes ? null : body;
     }
 
     private String extractClientIp(HttpServletRequest request) {
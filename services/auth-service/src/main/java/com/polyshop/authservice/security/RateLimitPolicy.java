@@ -0,0 +1,25 @@
+package com.polyshop.authservice.security;
+
+import java.util.List;
+
+public record RateLimitPolicy(String name, List<String> paths, List<Limit> limits) {
+
+    public enum Dimension { IP, EMAIL, PHONE, USER }
+
+    public enum Algorithm { GCRA, FIXED_WINDOW }
+
+    public record Limit(Dimension dimension, int max, int windowSeconds, Algorithm algorithm) {}
+
+    public void validate() {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("rate limit policy name required");
+        if (paths == null || paths.isEmpty()) throw new IllegalArgumentException("rate limit policy " + name + " has no paths");
+        if (limits == null || limits.isEmpty()) throw new IllegalArgumentException("rate limit policy " + name + " has no limits");
+        for (Limit l : limits) {
+            if (l.dimension() == null) throw new IllegalArgumentException("rate limit policy " + name + " has a limit without dimension");
+            if (l.max() <= 0 || l.windowSeconds() <= 0) throw new IllegalArgumentException("rate limit policy " + name + " needs positive max and windowSeconds");
+            if (l.algorithm() == Algorithm.FIXED_WINDOW && l.max() > FixedWindowRateLimiter.MAX_COUNT) {
+                throw new IllegalArgumentException("rate limit policy " + name + " max exceeds " + FixedWindowRateLimiter.MAX_COUNT + " for FIXED_WINDOW");
+            }
+        }
+    }
+}
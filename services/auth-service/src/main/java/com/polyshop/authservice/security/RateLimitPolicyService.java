@@ -0,0 +1,50 @@
+package com.polyshop.authservice.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class RateLimitPolicyService {
+
+    private record Compiled(List<RateLimitPolicy> policies, PathPrefixMatcher<RateLimitPolicy> matcher) {}
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile Compiled compiled;
+
+    public RateLimitPolicyService(Environment environment) {
+        replace(Binder.get(environment)
+                .bind("auth.ratelimit.policies", Bindable.listOf(RateLimitPolicy.class))
+                .orElse(List.of()));
+    }
+
+    public RateLimitPolicy match(String path) {
+        return compiled.matcher().longestMatch(path);
+    }
+
+    public List<RateLimitPolicy> getPolicies() {
+        return compiled.policies();
+    }
+
+    public synchronized void replace(List<RateLimitPolicy> policies) {
+        Map<String, RateLimitPolicy> byPrefix = new LinkedHashMap<>();
+        for (RateLimitPolicy p : policies) {
+            p.validate();
+            for (String path : p.paths()) {
+                RateLimitPolicy previous = byPrefix.put(path, p);
+                if (previous != null && previous != p) {
+                    throw new IllegalArgumentException("path " + path + " is claimed by policies " + previous.name() + " and " + p.name());
+                }
+            }
+        }
+        compiled = new Compiled(List.copyOf(policies), new PathPrefixMatcher<>(byPrefix));
+        log.info("rate limit policies loaded: {}", policies.stream().map(RateLimitPolicy::name).toList());
+    }
+}
@@ -1,21 +1,30 @@
 package com.polyshop.authservice.security;
 
+import com.polyshop.authservice.security.RateLimitPolicy.Algorithm;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import java.time.Instant;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class RateLimitService {
-    private record Bucket(AtomicInteger count, long resetAt){}
-    private final ConcurrentHashMap<String, Bucket> ipMap = new ConcurrentHashMap<>();
+    private final GcraRateLimiter gcra;
+    private final FixedWindowRateLimiter fixedWindow;
+
+    public RateLimitService(
+            @Value("${auth.ratelimit.max-keys:1048576}") int maxKeys,
+            @Value("${auth.ratelimit.shards:16}") int shards
+    ) {
+        this.gcra = new GcraRateLimiter(maxKeys, shards);
+        this.fixedWindow = new FixedWindowRateLimiter(maxKeys, shards);
+    }
+
     public boolean allow(String key, int max, int windowSeconds) {
-        long now = Instant.now().getEpochSecond();
-        var b = ipMap.compute(key, (k, old) -> {
-            if (old == null || old.resetAt() <= now) return new Bucket(new AtomicInteger(1), now + windowSeconds);
-            old.count().incrementAndGet();
-            return old;
-        });
-        return b.count().get() <= max;
+        return allow(key, max, windowSeconds, Algorithm.GCRA);
+    }
+
+    public boolean allow(String key, int max, int windowSeconds, Algorithm algorithm) {
+        return switch (algorithm == null ? Algorithm.GCRA : algorithm) {
+            case GCRA -> gcra.tryAcquire(key, max, windowSeconds * 1000L);
+            case FIXED_WINDOW -> fixedWindow.tryAcquire(key, max, windowSeconds * 1000L);
+        };
     }
 }
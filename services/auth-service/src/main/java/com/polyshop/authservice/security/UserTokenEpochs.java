@@ -0,0 +1,75 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.repository.UserRepository;
+import com.polyshop.authservice.repository.UserRepository.TokenEpochView;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user "access tokens valid after" watermarks, keyed by JWT subject. Only epochs younger
+ * than the access token lifetime are kept: anything older cannot invalidate a live token.
+ */
+@Component
+public class UserTokenEpochs {
+
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    private final UserRepository repo;
+    private final long accessTtlSeconds;
+    private final ConcurrentHashMap<String, Instant> epochs = new ConcurrentHashMap<>();
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public UserTokenEpochs(UserRepository repo, @Value("${auth.jwt.expires-in:900}") long accessTtlSeconds) {
+        this.repo = repo;
+        this.accessTtlSeconds = accessTtlSeconds;
+    }
+
+    @PostConstruct
+    public void load() {
+        Instant started = Instant.now();
+        epochs.clear();
+        merge(started.minusSeconds(accessTtlSeconds));
+        lastSync = started;
+    }
+
+    public boolean isRevoked(String subject, Instant issuedAt) {
+        if (subject == null) return true;
+        Instant epoch = epochs.get(subject);
+        // issuedAt is the iat_ms claim, or the whole-second iat of older tokens: the earliest the
+        // token can have been minted. An older token is revoked when iat <= floor(epoch); a token
+        // minted after the epoch in the same request, as restore-account does, is not
+        return epoch != null && issuedAt.isBefore(epoch);
+    }
+
+    public void advance(String subject, Instant at) {
+        epochs.merge(subject, at.truncatedTo(ChronoUnit.MILLIS), (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.epoch.sync-ms:5000}")
+    public void sync() {
+        Instant started = Instant.now();
+        merge(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS));
+        lastSync = started;
+        Instant horizon = started.minusSeconds(accessTtlSeconds);
+        epochs.values().removeIf(epoch -> epoch.isBefore(horizon));
+    }
+
+    private void merge(Instant since) {
+        for (TokenEpochView v : repo.findTokenEpochsSince(since)) {
+            Instant epoch = latest(v.getTokensValidAfter(), v.getAccessTokensValidAfter());
+            if (epoch != null) advance(v.getEmail(), epoch);
+        }
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,13 @@
+package com.polyshop.authservice.security;
+
+import java.time.Instant;
+import java.util.List;
+
+public record VerifiedToken(
+        String kid,
+        String subject,
+        String jti,
+        List<String> roles,
+        Instant issuedAt,
+        Instant expiresAt
+) {}
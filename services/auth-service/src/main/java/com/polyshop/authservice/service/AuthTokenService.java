@@ -3,6 +3,7 @@ package com.polyshop.authservice.service;
 import com.polyshop.authservice.domain.AuthToken;
 import com.polyshop.authservice.domain.enums.TokenType;
 import com.polyshop.authservice.domain.User;
+import com.polyshop.authservice.security.VerifiedToken;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -22,6 +23,7 @@ public interface AuthTokenService {
     List<AuthToken> findAllValidRefreshTokensForUser(Long userId, long nowOffsetSeconds);
     void createAccessTokenEntry(User user, String jti, long ttlSeconds);
     boolean isAccessTokenValid(String jti);
+    boolean isAccessTokenValid(VerifiedToken token);
     void revokeAccessTokenByJti(String jti);
     void revokeAllAccessTokensForUser(Long userId);
 
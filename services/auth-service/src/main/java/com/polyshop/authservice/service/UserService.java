@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface UserService {
     Optional<User> findByEmail(String email);
@@ -17,6 +18,7 @@ public interface UserService {
     Page<User> searchUsers(Specification<User> spec, Pageable pageable);
     User register(String username, String email, String phone, String rawPassword, String fullName, boolean asAdmin);
     User authenticate(String usernameOrEmailOrPhone, String rawPassword);
+    CompletableFuture<User> authenticateAsync(String usernameOrEmailOrPhone, String rawPassword);
     void changePassword(Long userId, String currentRawPassword, String newRawPassword);
     void revokeAllTokensForUser(Long userId);
     User enableUser(Long userId);
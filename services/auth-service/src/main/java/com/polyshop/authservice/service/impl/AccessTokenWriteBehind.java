@@ -0,0 +1,129 @@
+package com.polyshop.authservice.service.impl;
+
+import com.polyshop.authservice.domain.AuthToken;
+import com.polyshop.authservice.repository.AuthTokenRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class AccessTokenWriteBehind {
+
+    public enum DurabilityMode { SYNC, BATCHED }
+
+    private final AuthTokenRepository repo;
+    private final TransactionTemplate tx;
+    private final DurabilityMode mode;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<AuthToken> queue;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    public AccessTokenWriteBehind(
+            AuthTokenRepository repo,
+            PlatformTransactionManager transactionManager,
+            @Value("${auth.token.write-behind.access-mode:BATCHED}") DurabilityMode mode,
+            @Value("${auth.token.write-behind.batch-size:50}") int batchSize,
+            @Value("${auth.token.write-behind.flush-interval-ms:20}") long flushIntervalMs,
+            @Value("${auth.token.write-behind.queue-capacity:10000}") int queueCapacity
+    ) {
+        this.repo = repo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mode != DurabilityMode.BATCHED) return;
+        running = true;
+        Thread t = new Thread(this::run, "access-token-write-behind");
+        t.setDaemon(true);
+        flusher = t;
+        t.start();
+    }
+
+    public void write(AuthToken token) {
+        if (!running || !queue.offer(token)) {
+            repo.save(token);
+            return;
+        }
+        if (queue.size() >= batchSize) LockSupport.unpark(flusher);
+    }
+
+    /**
+     * Persists everything queued so far before returning; callers that query access rows
+     * (bulk revocation) flush first so they never miss an entry that is still buffered.
+     */
+    public void flush() {
+        if (mode != DurabilityMode.BATCHED) return;
+        flushLock.lock();
+        try {
+            List<AuthToken> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                persist(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (queue.size() < batchSize) LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("access token write-behind flush failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void persist(List<AuthToken> batch) {
+        try {
+            tx.executeWithoutResult(s -> repo.saveAll(batch));
+        } catch (Exception e) {
+            log.warn("batched insert of {} access tokens failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (AuthToken t : batch) {
+                try {
+                    t.setId(null);
+                    tx.executeWithoutResult(s -> repo.save(t));
+                } catch (Exception inner) {
+                    log.error("dropping access token entry after failed insert: {}", inner.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread t = flusher;
+        if (t != null) {
+            LockSupport.unpark(t);
+            t.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        flush();
+    }
+}
@@ -4,17 +4,21 @@ import com.polyshop.authservice.domain.AuthToken;
 import com.polyshop.authservice.domain.enums.TokenType;
 import com.polyshop.authservice.domain.User;
 import com.polyshop.authservice.repository.AuthTokenRepository;
+import com.polyshop.authservice.repository.UserRepository;
 import com.polyshop.authservice.service.AuthTokenService;
 import com.polyshop.authservice.spec.AuthTokenSpecs;
+import com.polyshop.authservice.security.AccessTokenRevocationList;
 import com.polyshop.authservice.security.JwtUtil;
+import com.polyshop.authservice.security.UserTokenEpochs;
+import com.polyshop.authservice.security.VerifiedToken;
 import com.polyshop.authservice.util.HashUtil;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.codec.binary.Hex;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.security.SecureRandom;
 import java.time.Instant;
@@ -27,7 +31,11 @@ import java.util.Optional;
 public class AuthTokenServiceImpl implements AuthTokenService {
 
     private final AuthTokenRepository authTokenRepository;
+    private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final AccessTokenRevocationList revocationList;
+    private final AccessTokenWriteBehind accessTokenWriteBehind;
+    private final UserTokenEpochs tokenEpochs;
     private final SecureRandom secureRandom = new SecureRandom();
 
     @Value("${AUTH_REFRESH_EXPIRES_IN:2592000}")
@@ -44,8 +52,8 @@ public class AuthTokenServiceImpl implements AuthTokenService {
     public String createToken(User user, TokenType type, long ttlSeconds) {
         byte[] bytes = new byte[48];
         secureRandom.nextBytes(bytes);
-        String token = Hex.encodeHexString(bytes);
-        String tokenHash = HashUtil.sha256Hex(token);
+        String token = HashUtil.toHex(bytes);
+        byte[] tokenHash = HashUtil.sha256(token);
         AuthToken t = new AuthToken();
         t.setTokenHash(tokenHash);
         t.setUser(user);
@@ -73,12 +81,14 @@ public class AuthTokenServiceImpl implements AuthTokenService {
 
     @Override
     public AuthToken validateToken(String token, TokenType expectedType) {
-        String hash = HashUtil.sha256Hex(token);
+        byte[] hash = HashUtil.sha256(token);
         Optional<AuthToken> opt;
         if (expectedType == null) opt = authTokenRepository.findByTokenHash(hash);
         else opt = authTokenRepository.findByTokenHashAndType(hash, expectedType);
         AuthToken t = opt.orElseThrow(() -> new IllegalArgumentException("invalid token"));
         if (t.isRevoked()) throw new IllegalArgumentException("token revoked");
+        Instant epoch = t.getUser().getTokensValidAfter();
+        if (epoch != null && t.getCreatedAt().isBefore(epoch)) throw new IllegalArgumentException("token revoked");
         if (t.getExpiresAt().isBefore(Instant.now())) {
             t.setRevoked(true);
             authTokenRepository.save(t);
@@ -98,21 +108,19 @@ public class AuthTokenServiceImpl implements AuthTokenService {
 
     @Override
     public void revokeToken(String token) {
-        String hash = HashUtil.sha256Hex(token);
+        byte[] hash = HashUtil.sha256(token);
         Optional<AuthToken> opt = authTokenRepository.findByTokenHash(hash);
-        opt.ifPresent(t -> {
-            t.setRevoked(true);
-            authTokenRepository.save(t);
-        });
+        opt.ifPresent(this::markRevoked);
     }
 
     @Override
     public void revokeAllForUser(Long userId) {
-        List<AuthToken> list = authTokenRepository.findAllByUserId(userId);
-        for (AuthToken t : list) {
-            t.setRevoked(true);
-            authTokenRepository.save(t);
-        }
+        userRepository.findById(userId).ifPresent(u -> {
+            Instant at = Instant.now();
+            u.setTokensValidAfter(at);
+            userRepository.save(u);
+            tokenEpochs.advance(u.getEmail(), at);
+        });
     }
 
     @Override
@@ -135,51 +143,69 @@ public class AuthTokenServiceImpl implements AuthTokenService {
                 AuthTokenSpecs.hasType(TokenType.REFRESH)
                         .and(AuthTokenSpecs.belongsToUser(userId))
                         .and(AuthTokenSpecs.notRevoked())
+                        .and(AuthTokenSpecs.issuedAfterUserEpoch())
                         .and(AuthTokenSpecs.expiresAfter(Instant.now().minusSeconds(nowOffsetSeconds)));
         return authTokenRepository.findAll(spec);
     }
 
     @Override
     public void createAccessTokenEntry(User user, String jti, long ttlSeconds) {
-        String hash = HashUtil.sha256Hex(jti);
+        byte[] hash = HashUtil.sha256(jti);
         AuthToken t = new AuthToken();
         t.setTokenHash(hash);
         t.setUser(user);
         t.setType(TokenType.ACCESS);
-        t.setExpiresAt(Instant.now().plusSeconds(ttlSeconds));
+        Instant now = Instant.now();
+        t.setCreatedAt(now);
+        t.setExpiresAt(now.plusSeconds(ttlSeconds));
         t.setRevoked(false);
-        authTokenRepository.save(t);
+        accessTokenWriteBehind.write(t);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean isAccessTokenValid(String jti) {
         if (jti == null) return false;
-        String hash = HashUtil.sha256Hex(jti);
+        byte[] hash = HashUtil.sha256(jti);
+        if (!revocationList.isSaturated()) return !revocationList.isRevoked(hash);
         Optional<AuthToken> opt = authTokenRepository.findByTokenHashAndType(hash, TokenType.ACCESS);
-        if (opt.isEmpty()) return false;
+        // the row may still be queued in the write-behind buffer; signature and exp were already checked
+        if (opt.isEmpty()) return true;
         AuthToken t = opt.get();
         if (t.isRevoked()) return false;
         return t.getExpiresAt().isAfter(Instant.now());
     }
 
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean isAccessTokenValid(VerifiedToken token) {
+        if (tokenEpochs.isRevoked(token.subject(), token.issuedAt())) return false;
+        return isAccessTokenValid(token.jti());
+    }
+
     @Override
     public void revokeAccessTokenByJti(String jti) {
-        String hash = HashUtil.sha256Hex(jti);
+        accessTokenWriteBehind.flush();
+        byte[] hash = HashUtil.sha256(jti);
         Optional<AuthToken> opt = authTokenRepository.findByTokenHashAndType(hash, TokenType.ACCESS);
-        opt.ifPresent(t -> {
-            t.setRevoked(true);
-            authTokenRepository.save(t);
-        });
+        opt.ifPresent(this::markRevoked);
     }
 
     @Override
     public void revokeAllAccessTokensForUser(Long userId) {
-        List<AuthToken> list = authTokenRepository.findAllByUserId(userId);
-        for (AuthToken t : list) {
-            if (t.getType() == TokenType.ACCESS) {
-                t.setRevoked(true);
-                authTokenRepository.save(t);
-            }
+        userRepository.findById(userId).ifPresent(u -> {
+            Instant at = Instant.now();
+            u.setAccessTokensValidAfter(at);
+            userRepository.save(u);
+            tokenEpochs.advance(u.getEmail(), at);
+        });
+    }
+
+    private void markRevoked(AuthToken t) {
+        t.setRevoked(true);
+        authTokenRepository.save(t);
+        if (t.getType() == TokenType.ACCESS) {
+            revocationList.revoke(t.getTokenHash(), t.getExpiresAt());
         }
     }
 }
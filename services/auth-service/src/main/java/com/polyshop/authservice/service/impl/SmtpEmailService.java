@@ -1,6 +1,7 @@
 package com.polyshop.authservice.service.impl;
 
 import com.polyshop.authservice.service.EmailService;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.text.StringSubstitutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,16 +13,32 @@ import org.springframework.util.StreamUtils;
 import jakarta.mail.internet.MimeMessage;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class SmtpEmailService implements EmailService {
     private final JavaMailSender mailSender;
     private final String from;
+    private final ExecutorService sender;
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     public SmtpEmailService(JavaMailSender mailSender, org.springframework.core.env.Environment env) {
         this.mailSender = mailSender;
         this.from = env.getProperty("spring.mail.from", "no-reply@polyshop.example");
+        int threads = env.getProperty("auth.mail.send-threads", Integer.class, 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "mail-send-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
     }
 
     @Override
@@ -33,7 +50,12 @@ public class SmtpEmailService implements EmailService {
             helper.setTo(to);
             helper.setSubject(subject);
             helper.setText(htmlBody, true);
-            mailSender.send(msg);
+            if (Thread.currentThread().isVirtual()) {
+                // Jakarta Mail's transport methods are synchronized, so the SMTP exchange would pin the carrier
+                sender.submit(() -> mailSender.send(msg)).get();
+            } else {
+                mailSender.send(msg);
+            }
             log.info("Email sent to {}", to);
         } catch (Exception e) {
             log.error("email send failed to {}: {}", to, e.getMessage(), e);
@@ -6,36 +6,55 @@ import com.polyshop.authservice.domain.enums.Status;
 import com.polyshop.authservice.domain.enums.TokenType;
 import com.polyshop.authservice.repository.RoleRepository;
 import com.polyshop.authservice.repository.UserRepository;
+import com.polyshop.authservice.security.PasswordHasher;
+import com.polyshop.authservice.security.PasswordHashingBusyException;
 import com.polyshop.authservice.service.AuditService;
 import com.polyshop.authservice.service.AuthTokenService;
 import com.polyshop.authservice.service.EmailService;
 import com.polyshop.authservice.service.UserService;
 import com.polyshop.authservice.spec.UserSpecs;
-import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Transactional
-@RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final AuthTokenService authTokenService;
     private final EmailService emailService; // injected directly
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
     private final int MAX_FAILED_ATTEMPTS = 5;
     private final long LOCK_DURATION_SECONDS = 60 * 15;
     private final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(getClass());
     private final AuditService auditService;
+    // login bookkeeping commits on its own: the async path runs after the caller's transaction
+    // has ended, and a failed attempt must stick even though the login then throws
+    private final TransactionTemplate loginTx;
+
+    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, AuthTokenService authTokenService,
+                           EmailService emailService, PasswordHasher passwordHasher, AuditService auditService,
+                           PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.authTokenService = authTokenService;
+        this.emailService = emailService;
+        this.passwordHasher = passwordHasher;
+        this.auditService = auditService;
+        this.loginTx = new TransactionTemplate(transactionManager);
+        this.loginTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     @Override
     public Optional<User> findByEmail(String email) {
@@ -83,7 +102,7 @@ public class UserServiceImpl implements UserService {
         u.setEmail(normalizedEmail);
         u.setPhone(phone.trim());
         u.setFullName(fullName);
-        u.setPasswordHash(passwordEncoder.encode(rawPassword));
+        u.setPasswordHash(passwordHasher.encode(rawPassword));
         u.setStatus(Status.ACTIVE);
 
         Role userRole = roleRepository.findByName("ROLE_USER")
@@ -102,6 +121,18 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User authenticate(String usernameOrEmailOrPhone, String rawPassword) {
+        User user = findLoginCandidate(usernameOrEmailOrPhone);
+        return recordLoginAttempt(user, usernameOrEmailOrPhone, rawPassword, passwordHasher.matches(rawPassword, user.getPasswordHash()));
+    }
+
+    @Override
+    public CompletableFuture<User> authenticateAsync(String usernameOrEmailOrPhone, String rawPassword) {
+        User user = findLoginCandidate(usernameOrEmailOrPhone);
+        return passwordHasher.matchesAsync(rawPassword, user.getPasswordHash())
+                .thenApply(matches -> recordLoginAttempt(user, usernameOrEmailOrPhone, rawPassword, matches));
+    }
+
+    private User findLoginCandidate(String usernameOrEmailOrPhone) {
         Optional<User> maybeUser = Optional.empty();
 
         // heuristic: if contains '@' treat as email, if all digits treat as phone, otherwise username
@@ -123,32 +154,50 @@ public class UserServiceImpl implements UserService {
         if (user.getLockedUntil() != null && user.getLockedUntil().isAfter(Instant.now())) {
             throw new IllegalStateException("Account locked until " + user.getLockedUntil());
         }
-        boolean matches = passwordEncoder.matches(rawPassword, user.getPasswordHash());
-        if (matches) {
-            log.info("login_success userId={}", user.getId());
-            user.setFailedLoginAttempts(0);
-            user.setLockedUntil(null);
-            userRepository.save(user);
-            return user;
-        } else {
+        return user;
+    }
+
+    private User recordLoginAttempt(User user, String usernameOrEmailOrPhone, String rawPassword, boolean matches) {
+        Instant now = Instant.now();
+        if (!matches) {
             log.warn("login_failure usernameOrEmailOrPhone={}", usernameOrEmailOrPhone);
-            int attempts = user.getFailedLoginAttempts() + 1;
-            user.setFailedLoginAttempts(attempts);
-            if (attempts >= MAX_FAILED_ATTEMPTS) {
-                user.setLockedUntil(Instant.now().plusSeconds(LOCK_DURATION_SECONDS));
-            }
-            userRepository.save(user);
+            loginTx.executeWithoutResult(s -> userRepository.recordFailedLogin(
+                    user.getId(), MAX_FAILED_ATTEMPTS, now.plusSeconds(LOCK_DURATION_SECONDS), now));
             throw new IllegalArgumentException("invalid credentials");
         }
+        log.info("login_success userId={}", user.getId());
+        User current = loginTx.execute(s -> {
+            userRepository.resetFailedLogins(user.getId(), now);
+            return userRepository.findById(user.getId()).orElseThrow(() -> new IllegalArgumentException("invalid credentials"));
+        });
+        if (passwordHasher.needsRehash(user.getPasswordHash())) rehashInBackground(user.getId(), user.getPasswordHash(), rawPassword);
+        return current;
+    }
+
+    // the reply does not wait for the new hash; a busy pool just leaves it for the next login
+    private void rehashInBackground(Long userId, String verifiedHash, String rawPassword) {
+        try {
+            passwordHasher.encodeAsync(rawPassword)
+                    .thenAccept(newHash -> {
+                        Integer replaced = loginTx.execute(s -> userRepository.replacePasswordHash(userId, verifiedHash, newHash, Instant.now()));
+                        if (replaced != null && replaced > 0) log.info("password_rehashed userId={}", userId);
+                    })
+                    .exceptionally(ex -> {
+                        log.warn("password rehash failed for userId={}: {}", userId, ex.getMessage());
+                        return null;
+                    });
+        } catch (PasswordHashingBusyException ex) {
+            log.debug("password rehash deferred for userId={}: hashing pool busy", userId);
+        }
     }
 
     @Override
     public void changePassword(Long userId, String currentRawPassword, String newRawPassword) {
         User u = userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("unknown user"));
-        if (!passwordEncoder.matches(currentRawPassword, u.getPasswordHash())) {
+        if (!passwordHasher.matches(currentRawPassword, u.getPasswordHash())) {
             throw new IllegalArgumentException("current password is invalid");
         }
-        u.setPasswordHash(passwordEncoder.encode(newRawPassword));
+        u.setPasswordHash(passwordHasher.encode(newRawPassword));
         userRepository.save(u);
         authTokenService.revokeAllForUser(u.getId());
     }
@@ -194,7 +243,7 @@ public class UserServiceImpl implements UserService {
     public void confirmPasswordReset(String token, String newPassword) {
         var consumed = authTokenService.validateAndConsume(token, TokenType.PASSWORD_RESET);
         User u = consumed.getUser();
-        u.setPasswordHash(passwordEncoder.encode(newPassword));
+        u.setPasswordHash(passwordHasher.encode(newPassword));
         u.setFailedLoginAttempts(0);
         u.setLockedUntil(null);
         userRepository.save(u);
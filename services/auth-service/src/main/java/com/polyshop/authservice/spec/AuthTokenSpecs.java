@@ -18,6 +18,12 @@ public class AuthTokenSpecs {
     public static Specification<AuthToken> expiresAfter(Instant now) {
         return (root, query, builder) -> builder.greaterThan(root.get("expiresAt"), now);
     }
+    public static Specification<AuthToken> issuedAfterUserEpoch() {
+        return (root, query, builder) -> {
+            var epoch = root.get("user").<Instant>get("tokensValidAfter");
+            return builder.or(builder.isNull(epoch), builder.greaterThanOrEqualTo(root.<Instant>get("createdAt"), epoch));
+        };
+    }
     public static Specification<AuthToken> expiresBefore(Instant now) {
         return (root, query, builder) -> builder.lessThan(root.get("expiresAt"), now);
     }
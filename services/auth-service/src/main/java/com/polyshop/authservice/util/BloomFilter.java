@@ -0,0 +1,66 @@
+package com.polyshop.authservice.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class BloomFilter {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    public void put(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % numBits;
+            int idx = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long cur;
+            while (((cur = words.get(idx)) & mask) == 0) {
+                if (words.compareAndSet(idx, cur, cur | mask)) break;
+            }
+            combined += h2;
+        }
+    }
+
+    public boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % numBits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            combined += h2;
+        }
+        return true;
+    }
+
+    public void put(CharSequence key) {
+        long h = HashUtil.hash64(key);
+        put(h, HashUtil.mix64(h) | 1L);
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long h = HashUtil.hash64(key);
+        return mightContain(h, HashUtil.mix64(h) | 1L);
+    }
+
+    public void put(byte[] digest) {
+        put((long) LONGS.get(digest, 0), (long) LONGS.get(digest, 8) | 1L);
+    }
+
+    public boolean mightContain(byte[] digest) {
+        return mightContain((long) LONGS.get(digest, 0), (long) LONGS.get(digest, 8) | 1L);
+    }
+}
@@ -3,20 +3,71 @@ package com.polyshop.authservice.util;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public final class HashUtil {
     private HashUtil(){}
-    public static String sha256Hex(String input) {
+
+    public static final int SHA256_BYTES = 32;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // a small shared pool rather than a ThreadLocal: with virtual threads every request is a new
+    // thread, and a digest is only held while hashing, so one per carrier is enough
+    private static final BlockingQueue<MessageDigest> SHA256 =
+            new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+    public static long hash64(CharSequence input) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < input.length(); i++) {
+            h ^= input.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static byte[] sha256(String input) {
+        return sha256(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] sha256(byte[] input) {
+        MessageDigest md = SHA256.poll();
+        if (md == null) md = newSha256();
+        // digest() resets the instance, so it can go straight back to the pool
+        byte[] out = md.digest(input);
+        SHA256.offer(md);
+        return out;
+    }
+
+    private static MessageDigest newSha256() {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] b = md.digest(input.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(b.length * 2);
-            for (byte bb : b) {
-                sb.append(String.format("%02x", bb));
-            }
-            return sb.toString();
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String sha256Hex(String input) {
+        return toHex(sha256(input));
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            out[j++] = HEX[v >>> 4];
+            out[j++] = HEX[v & 0x0f];
         }
+        return new String(out);
     }
 }
@@ -0,0 +1,57 @@
+package com.polyshop.authservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.authservice.security.JwtAlgorithm;
+import com.polyshop.authservice.security.KeyProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final KeyProvider keys = new KeyProvider("", true, JwtAlgorithm.ES256, 300, 900, 60);
+    private final JwksController controller = new JwksController(keys, objectMapper, 300);
+
+    @Test
+    void servesTheKeysWithAnEtagAndMaxAge() throws Exception {
+        ResponseEntity<byte[]> response = controller.jwks(null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).startsWith("\"").endsWith("\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("max-age=300").contains("public");
+        JsonNode jwk = objectMapper.readTree(response.getBody()).get("keys").get(0);
+        assertThat(jwk.get("kid").asText()).isEqualTo(keys.getActiveKid());
+        assertThat(jwk.get("kty").asText()).isEqualTo("EC");
+        assertThat(jwk.get("crv").asText()).isEqualTo("P-256");
+    }
+
+    @Test
+    void matchingEtagGetsNotModified() {
+        String etag = controller.jwks(null).getHeaders().getETag();
+
+        for (String ifNoneMatch : new String[]{etag, "W/" + etag, "\"other\", " + etag, "*"}) {
+            ResponseEntity<byte[]> response = controller.jwks(ifNoneMatch);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(response.getBody()).isNull();
+            assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+        }
+        assertThat(controller.jwks("\"other\"").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void documentIsReusedUntilTheKeysChange() {
+        ResponseEntity<byte[]> first = controller.jwks(null);
+        assertThat(controller.jwks(null).getBody()).isSameAs(first.getBody());
+
+        keys.rotate();
+
+        ResponseEntity<byte[]> rotated = controller.jwks(first.getHeaders().getETag());
+        assertThat(rotated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rotated.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+        assertThat(new String(rotated.getBody())).contains(keys.getActiveKid());
+    }
+}
@@ -0,0 +1,147 @@
+package com.polyshop.authservice.schedule;
+
+import com.polyshop.authservice.repository.AuthTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AuthTokenPartitionManagerTest {
+
+    private static EmbeddedPostgres pg;
+    private static DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private AuthTokenPartitionManager manager;
+
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        pg = EmbeddedPostgres.builder().start();
+        dataSource = pg.getPostgresDatabase();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        pg.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        createTable();
+        manager = new AuthTokenPartitionManager(dataSource, jdbc, new DataSourceTransactionManager(dataSource), true, 5, 0);
+        manager.init();
+    }
+
+    @Test
+    void convertsAndPremakesDailyPartitions() {
+        assertThat(manager.isActive()).isTrue();
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        assertThat(partitionExists(today.plus(5, ChronoUnit.DAYS))).isTrue();
+    }
+
+    @Test
+    void splitsSpilledDayOutOfDefaultAndKeepsGoing() {
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        Instant spilledDay = today.plus(8, ChronoUnit.DAYS);
+        insert(spilledDay.plus(3, ChronoUnit.HOURS));
+        insert(spilledDay.plus(20, ChronoUnit.HOURS));
+        assertThat(countIn("auth_tokens_default")).isEqualTo(2);
+
+        manager.maintain(Instant.now().plus(5, ChronoUnit.DAYS));
+
+        assertThat(partitionExists(spilledDay)).isTrue();
+        assertThat(countIn(partitionName(spilledDay))).isEqualTo(2);
+        assertThat(countIn("auth_tokens_default")).isZero();
+        // days after the spilled one are still created
+        assertThat(partitionExists(today.plus(10, ChronoUnit.DAYS))).isTrue();
+        assertThat(jdbc.queryForObject("select count(*) from auth_tokens", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    void cleanupLeavesExpiredRowsToThePartitionDrop() {
+        Instant now = Instant.now();
+        Instant today = now.truncatedTo(ChronoUnit.DAYS);
+        Instant longAgo = now.minus(3, ChronoUnit.DAYS);
+        createTable();
+        // rows from before the conversion end up in the legacy partition, which ends 4 days ago
+        insert(now.minus(5, ChronoUnit.DAYS), false, longAgo);
+        AuthTokenPartitionManager partitions = new AuthTokenPartitionManager(dataSource, jdbc,
+                new DataSourceTransactionManager(dataSource), true, 5, 86_400);
+        partitions.init();
+
+        insert(today.minus(3, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS), false, longAgo);
+        // expired past the retention cutoff, but its day (yesterday) is not droppable yet
+        long expiredInLiveDay = insert(today.minus(1, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS), false, longAgo);
+        insert(now.plus(1, ChronoUnit.DAYS), true, longAgo);
+        insert(now.plus(30, ChronoUnit.DAYS), true, longAgo);
+        long live = insert(now.plus(1, ChronoUnit.HOURS), false, now);
+        assertThat(countIn("auth_tokens_default")).isEqualTo(1);
+
+        AuthTokenRepository repo = mock(AuthTokenRepository.class);
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbc);
+        doAnswer(inv -> named.update("delete from auth_tokens where id in (:ids)", Map.of("ids", inv.getArgument(0))))
+                .when(repo).deleteAllByIdInBatch(anyIterable());
+        new TokenCleanupScheduler(repo, partitions, new SimpleMeterRegistry(), 86_400, 1, 0).cleanup();
+
+        assertThat(jdbc.queryForList("select id from auth_tokens order by id", Long.class))
+                .containsExactly(expiredInLiveDay, live);
+        assertThat(partitionExists(today.minus(3, ChronoUnit.DAYS))).isFalse();
+        assertThat(partitionExists(today.minus(1, ChronoUnit.DAYS))).isTrue();
+        verify(repo, never()).findPurgeableIds(anyLong(), any(), any(), any());
+        // one chunk per purgeable row: only the revoked and the default-partition rows went row by row
+        verify(repo, times(2)).deleteAllByIdInBatch(anyIterable());
+    }
+
+    private void createTable() {
+        jdbc.execute("drop table if exists auth_tokens cascade");
+        // ids come from a sequence, as Hibernate's do: the parent copies the default, not an identity
+        jdbc.execute("drop sequence if exists auth_tokens_seq");
+        jdbc.execute("create sequence auth_tokens_seq");
+        jdbc.execute("create table auth_tokens (id bigint primary key default nextval('auth_tokens_seq'), " +
+                "token_type varchar(20), expires_at timestamptz not null, revoked boolean not null default false, " +
+                "updated_at timestamptz not null default now())");
+    }
+
+    private void insert(Instant expiresAt) {
+        insert(expiresAt, false, Instant.now());
+    }
+
+    private long insert(Instant expiresAt, boolean revoked, Instant updatedAt) {
+        return jdbc.queryForObject("insert into auth_tokens (token_type, expires_at, revoked, updated_at) values ('ACCESS', ?, ?, ?) returning id",
+                Long.class, Timestamp.from(expiresAt), revoked, Timestamp.from(updatedAt));
+    }
+
+    private long countIn(String table) {
+        Long n = jdbc.queryForObject("select count(*) from only " + table, Long.class);
+        return n == null ? 0 : n;
+    }
+
+    private boolean partitionExists(Instant day) {
+        return jdbc.queryForObject("select to_regclass(?) is not null", Boolean.class, partitionName(day));
+    }
+
+    private static String partitionName(Instant day) {
+        return "auth_tokens_p" + day.toString().substring(0, 10).replace("-", "");
+    }
+}
@@ -0,0 +1,90 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.domain.enums.TokenType;
+import com.polyshop.authservice.repository.AuthTokenRepository;
+import com.polyshop.authservice.repository.AuthTokenRepository.RevokedTokenView;
+import com.polyshop.authservice.util.HashUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessTokenRevocationListTest {
+
+    private final AuthTokenRepository repo = mock(AuthTokenRepository.class);
+
+    @Test
+    void syncPicksUpRevocationsFromOtherInstances() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(repo, 100, 0.01);
+        list.load();
+        byte[] hash = HashUtil.sha256("token-1");
+        when(repo.findRevokedSince(eq(TokenType.ACCESS), any(), any())).thenReturn(List.of(view(hash)));
+
+        list.sync();
+
+        assertThat(list.isRevoked(hash)).isTrue();
+        assertThat(list.isRevoked(HashUtil.sha256("token-2"))).isFalse();
+    }
+
+    @Test
+    void saturatedListStopsQueryingUntilTheRowsFitAgain() {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(repo, 2, 0.01);
+        List<RevokedTokenView> three = List.of(view(HashUtil.sha256("a")), view(HashUtil.sha256("b")), view(HashUtil.sha256("c")));
+        when(repo.findRevokedSince(eq(TokenType.ACCESS), any(), any())).thenReturn(three);
+        list.load();
+        assertThat(list.isSaturated()).isTrue();
+
+        for (int i = 0; i < 10; i++) list.sync();
+        verify(repo, times(1)).findRevokedSince(eq(TokenType.ACCESS), any(), any());
+
+        when(repo.countRevoked(eq(TokenType.ACCESS), any())).thenReturn(3L);
+        list.purge();
+        verify(repo, times(1)).findRevokedSince(eq(TokenType.ACCESS), any(), any());
+        assertThat(list.isSaturated()).isTrue();
+
+        byte[] left = HashUtil.sha256("c");
+        when(repo.countRevoked(eq(TokenType.ACCESS), any())).thenReturn(1L);
+        when(repo.findRevokedSince(eq(TokenType.ACCESS), any(), eq(Instant.EPOCH))).thenReturn(List.of(view(left)));
+        list.purge();
+        assertThat(list.isSaturated()).isFalse();
+        assertThat(list.isRevoked(left)).isTrue();
+    }
+
+    @Test
+    void purgeDropsExpiredEntries() throws Exception {
+        AccessTokenRevocationList list = new AccessTokenRevocationList(repo, 100, 0.01);
+        byte[] hash = HashUtil.sha256("token-1");
+        list.revoke(hash, Instant.now().plusMillis(50));
+        assertThat(list.isRevoked(hash)).isTrue();
+
+        Thread.sleep(100);
+        list.purge();
+
+        assertThat(list.isRevoked(hash)).isFalse();
+        verify(repo, never()).countRevoked(any(), any());
+    }
+
+    private static RevokedTokenView view(byte[] hash) {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        return new RevokedTokenView() {
+            @Override
+            public byte[] getTokenHash() {
+                return hash;
+            }
+
+            @Override
+            public Instant getExpiresAt() {
+                return expiresAt;
+            }
+        };
+    }
+}
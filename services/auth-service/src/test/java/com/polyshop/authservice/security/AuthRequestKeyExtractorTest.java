@@ -0,0 +1,52 @@
+package com.polyshop.authservice.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.authservice.security.AuthRequestKeyExtractor.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthRequestKeyExtractorTest {
+
+    private final AuthRequestKeyExtractor extractor = new AuthRequestKeyExtractor(new ObjectMapper());
+
+    @Test
+    void readsTheKeyFieldsAndSkipsTheRest() {
+        Keys keys = extract("{\"password\":\"secret\",\"profile\":{\"email\":\"nested@example.com\",\"tags\":[1,2]},"
+                + "\"email\":\"alice@example.com\",\"phone\":\"+15550100\",\"usernameOrEmailOrPhone\":\"alice\"}");
+
+        assertThat(keys).isEqualTo(new Keys("alice@example.com", "+15550100", "alice"));
+    }
+
+    @Test
+    void missingFieldsAreNull() {
+        assertThat(extract("{\"email\":\"alice@example.com\"}")).isEqualTo(new Keys("alice@example.com", null, null));
+        assertThat(extract("{}")).isEqualTo(new Keys(null, null, null));
+    }
+
+    @Test
+    void notAnObjectGivesNoKeys() {
+        assertThat(extract("[\"alice@example.com\"]")).isSameAs(Keys.EMPTY);
+        assertThat(extractor.extract(new byte[0])).isSameAs(Keys.EMPTY);
+        assertThat(extractor.extract(null)).isSameAs(Keys.EMPTY);
+    }
+
+    @Test
+    void malformedJsonKeepsWhatWasReadBeforeTheError() {
+        assertThat(extract("{\"email\":\"alice@example.com\",\"phone\":")).isEqualTo(new Keys("alice@example.com", null, null));
+    }
+
+    @Test
+    void stopsOnceEveryKeyIsFound() {
+        // the trailing garbage is never parsed
+        Keys keys = extract("{\"email\":\"a@example.com\",\"phone\":\"1\",\"usernameOrEmailOrPhone\":\"a\",!!!");
+
+        assertThat(keys).isEqualTo(new Keys("a@example.com", "1", "a"));
+    }
+
+    private Keys extract(String json) {
+        return extractor.extract(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.domain.Ban;
+import com.polyshop.authservice.repository.BanRepository;
+import com.polyshop.authservice.util.BloomFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BruteForceServiceTest {
+
+    private final BanRepository repo = mock(BanRepository.class);
+    private final BruteForceService service = new BruteForceService(repo, 1000, 3600);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void keyMissingFromTheFilterIsNotBanned() {
+        when(repo.findAllByUntilAfter(any())).thenReturn(List.of(ban("ip:1", Instant.now().plusSeconds(60))));
+        service.load();
+
+        assertThat(service.isBanned("ip:1")).isTrue();
+        // the common case is answered by the filter alone
+        assertThat(filter().mightContain("ip:2")).isFalse();
+        assertThat(service.isBanned("ip:2")).isFalse();
+    }
+
+    @Test
+    void filterHitWithoutAnActiveEntryIsNotBanned() {
+        when(repo.findAllByUntilAfter(any())).thenReturn(List.of(ban("ip:1", Instant.now().plusSeconds(60))));
+        when(repo.findByKey("ip:1")).thenReturn(Optional.of(ban("ip:1", Instant.now().plusSeconds(60))));
+        service.load();
+
+        service.unban("ip:1");
+
+        // bits are never cleared outside a purge, so the map has the last word
+        assertThat(filter().mightContain("ip:1")).isTrue();
+        assertThat(service.isBanned("ip:1")).isFalse();
+    }
+
+    @Test
+    void syncPicksUpRowsUpdatedSinceTheLastPass() {
+        when(repo.findAllByUntilAfter(any())).thenReturn(List.of());
+        Instant beforeLoad = Instant.now();
+        service.load();
+        when(repo.findAllByUpdatedAtGreaterThanEqual(any()))
+                .thenReturn(List.of(ban("ip:9", Instant.now().plusSeconds(60))))
+                .thenReturn(List.of());
+
+        Instant beforeSync = Instant.now();
+        service.sync();
+        assertThat(service.isBanned("ip:9")).isTrue();
+        service.sync();
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(repo, times(2)).findAllByUpdatedAtGreaterThanEqual(since.capture());
+        // each pass reaches back from the previous one's start by the overlap, not to the beginning
+        assertThat(since.getAllValues().get(0)).isBetween(beforeLoad.minusSeconds(30), beforeSync.minusSeconds(30));
+        assertThat(since.getAllValues().get(1)).isAfterOrEqualTo(beforeSync.minusSeconds(30));
+        // a row that stops changing is not re-applied, but stays banned
+        assertThat(service.isBanned("ip:9")).isTrue();
+    }
+
+    @Test
+    void tombstoneFromAnotherReplicaLiftsTheBan() {
+        when(repo.findAllByUntilAfter(any())).thenReturn(List.of(ban("user:7", Instant.now().plusSeconds(600))));
+        service.load();
+        assertThat(service.isBanned("user:7")).isTrue();
+
+        // unban elsewhere keeps the row with until=now so replicas can see it go
+        when(repo.findAllByUpdatedAtGreaterThanEqual(any())).thenReturn(List.of(ban("user:7", Instant.now())));
+        service.sync();
+
+        assertThat(service.isBanned("user:7")).isFalse();
+    }
+
+    @Test
+    void banReachesTheNearCacheOnlyOnCommit() {
+        when(repo.findByKey(anyString())).thenReturn(Optional.empty());
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.ban("ip:3", 60, "test");
+        assertThat(service.isBanned("ip:3")).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(service.isBanned("ip:3")).isTrue();
+    }
+
+    @Test
+    void rolledBackBanNeverReachesTheNearCache() {
+        when(repo.findByKey(anyString())).thenReturn(Optional.empty());
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.ban("ip:4", 60, "test");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(service.isBanned("ip:4")).isFalse();
+    }
+
+    private BloomFilter filter() {
+        return (BloomFilter) ReflectionTestUtils.getField(service, "filter");
+    }
+
+    private static Ban ban(String key, Instant until) {
+        Ban b = new Ban();
+        b.setKey(key);
+        b.setUntil(until);
+        b.setUpdatedAt(Instant.now());
+        return b;
+    }
+}
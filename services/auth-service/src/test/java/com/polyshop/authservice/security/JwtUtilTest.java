@@ -0,0 +1,128 @@
+package com.polyshop.authservice.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static JwtUtil jwt(KeyProvider keys, long expiresSeconds) {
+        JwtUtil jwt = new JwtUtil(keys);
+        ReflectionTestUtils.setField(jwt, "expiresSeconds", expiresSeconds);
+        ReflectionTestUtils.setField(jwt, "issuer", "polyshop-auth");
+        ReflectionTestUtils.setField(jwt, "verifiedCacheSize", 100);
+        return jwt;
+    }
+
+    private static KeyProvider keys(JwtAlgorithm algorithm) {
+        return new KeyProvider("", true, algorithm, 300, 900, 60);
+    }
+
+    @Test
+    void es256TokenRoundTrips() {
+        assertRoundTrip(JwtAlgorithm.ES256);
+    }
+
+    @Test
+    void eddsaTokenRoundTrips() {
+        assertRoundTrip(JwtAlgorithm.EdDSA);
+    }
+
+    private static void assertRoundTrip(JwtAlgorithm algorithm) {
+        KeyProvider keys = keys(algorithm);
+        JwtUtil jwt = jwt(keys, 900);
+
+        String token = jwt.generateAccessToken("42", List.of("ROLE_USER"), "jti-1");
+
+        assertThat(jwt.parseToken(token).getHeader().getAlgorithm()).isEqualTo(algorithm.name());
+        VerifiedToken verified = jwt.verify(token);
+        assertThat(verified.kid()).isEqualTo(keys.getActiveKid());
+        assertThat(verified.subject()).isEqualTo("42");
+        assertThat(verified.jti()).isEqualTo("jti-1");
+        assertThat(verified.roles()).containsExactly("ROLE_USER");
+        assertThat(verified.expiresAt()).isAfter(Instant.now());
+    }
+
+    @Test
+    void headerAlgorithmMustMatchTheKeyForTheKid() {
+        KeyProvider keys = keys(JwtAlgorithm.EdDSA);
+        JwtUtil jwt = jwt(keys, 900);
+        // a validly signed token that claims the EdDSA kid but names another algorithm
+        KeyPair other = JwtAlgorithm.ES256.generateKeyPair();
+        String forged = Jwts.builder()
+                .header().keyId(keys.getActiveKid()).and()
+                .subject("42")
+                .expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(other.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+
+        assertThatThrownBy(() -> jwt.verify(forged))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("does not match key");
+    }
+
+    @Test
+    void rsaSignatureUnderAnEcKidIsRejected() {
+        KeyProvider keys = keys(JwtAlgorithm.ES256);
+        JwtUtil jwt = jwt(keys, 900);
+        String forged = Jwts.builder()
+                .header().keyId(keys.getActiveKid()).and()
+                .subject("42")
+                .expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(JwtAlgorithm.RS256.generateKeyPair().getPrivate(), Jwts.SIG.RS256)
+                .compact();
+
+        assertThatThrownBy(() -> jwt.verify(forged))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("does not match key");
+    }
+
+    @Test
+    void repeatVerificationIsServedFromTheCache() {
+        JwtUtil jwt = jwt(keys(JwtAlgorithm.ES256), 900);
+        String token = jwt.generateAccessToken("42", List.of("ROLE_USER"), null);
+
+        assertThat(jwt.verify(token)).isSameAs(jwt.verify(token));
+    }
+
+    @Test
+    void cachedSignatureWithAnotherBodyIsNotServed() {
+        JwtUtil jwt = jwt(keys(JwtAlgorithm.ES256), 900);
+        String token = jwt.generateAccessToken("42", List.of("ROLE_USER"), null);
+        jwt.verify(token);
+
+        // same header and signature, payload swapped for an admin claim
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("ROLE_USER", "ROLE_ADMIN");
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+        assertThatThrownBy(() -> jwt.verify(tampered)).isInstanceOf(JwtException.class);
+        assertThat(jwt.verify(token).roles()).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void cachedEntryDoesNotOutliveExp() throws Exception {
+        JwtUtil jwt = jwt(keys(JwtAlgorithm.ES256), 1);
+        String token = jwt.generateAccessToken("42", List.of("ROLE_USER"), null);
+        VerifiedToken verified = jwt.verify(token);
+
+        // the entry is still cached, but exp has passed
+        Thread.sleep(Math.max(0, verified.expiresAt().toEpochMilli() - System.currentTimeMillis()) + 50);
+
+        assertThatThrownBy(() -> jwt.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+}
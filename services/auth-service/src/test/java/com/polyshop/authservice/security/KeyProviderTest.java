@@ -0,0 +1,69 @@
+package com.polyshop.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyProviderTest {
+
+    @Test
+    void rotatedKeyIsPublishedBeforeItSigns() {
+        KeyProvider keys = new KeyProvider("", true, JwtAlgorithm.ES256, 300, 900, 60);
+        String first = keys.getActiveKid();
+
+        keys.rotate();
+        keys.maintainKeys();
+
+        // published now, but clients may hold the old JWKS for max-age plus skew
+        assertThat(keys.getAllPublicKeys()).hasSize(2).containsKey(first);
+        assertThat(keys.getActiveKid()).isEqualTo(first);
+    }
+
+    @Test
+    void retiredKeyIsPrunedOnceItsTokensHaveExpired() throws Exception {
+        KeyProvider keys = new KeyProvider("", true, JwtAlgorithm.ES256, 0, 0, 0);
+        String first = keys.getActiveKid();
+
+        keys.rotate();
+        keys.maintainKeys();
+        String second = keys.getActiveKid();
+        assertThat(second).isNotEqualTo(first);
+        assertThat(keys.getActiveKey().algorithm()).isEqualTo(JwtAlgorithm.ES256);
+        // retired just now: still verifiable
+        assertThat(keys.getAllPublicKeys()).containsKeys(first, second);
+
+        Thread.sleep(5);
+        keys.maintainKeys();
+        assertThat(keys.getAllPublicKeys()).containsOnlyKeys(second);
+    }
+
+    @Test
+    void aNewerRotationReplacesAPendingKey() {
+        KeyProvider keys = new KeyProvider("", true, JwtAlgorithm.ES256, 300, 900, 60);
+
+        keys.rotate();
+        keys.rotate();
+
+        // the first pending key never signed anything, so it is not kept
+        assertThat(keys.getAllPublicKeys()).hasSize(2);
+    }
+
+    @Test
+    void publishedMapChangesIdentityOnlyWhenKeysChange() {
+        KeyProvider keys = new KeyProvider("", true, JwtAlgorithm.ES256, 300, 900, 60);
+        var before = keys.getAllPublicKeys();
+
+        keys.maintainKeys();
+        assertThat(keys.getAllPublicKeys()).isSameAs(before);
+
+        keys.rotate();
+        assertThat(keys.getAllPublicKeys()).isNotSameAs(before);
+    }
+
+    @Test
+    void refusesToStartWithoutKeysUnlessDevKeysAreAllowed() {
+        assertThatThrownBy(() -> new KeyProvider("", false, JwtAlgorithm.ES256, 300, 900, 60))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
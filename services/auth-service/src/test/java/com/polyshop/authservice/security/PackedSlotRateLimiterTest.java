@@ -0,0 +1,93 @@
+package com.polyshop.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackedSlotRateLimiterTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void gcraAllowsTheBurstThenOneRequestPerInterval() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(1024, 4);
+        for (int i = 0; i < 2; i++) assertThat(limiter.tryAcquire("ip:1", 2, 400)).isTrue();
+        assertThat(limiter.tryAcquire("ip:1", 2, 400)).isFalse();
+
+        // one emission interval later exactly one more request fits
+        Thread.sleep(250);
+        assertThat(limiter.tryAcquire("ip:1", 2, 400)).isTrue();
+        assertThat(limiter.tryAcquire("ip:1", 2, 400)).isFalse();
+    }
+
+    @Test
+    void fixedWindowCountsUpToMaxAndResetsAfterTheWindow() throws Exception {
+        FixedWindowRateLimiter limiter = new FixedWindowRateLimiter(1024, 4);
+        for (int i = 0; i < 3; i++) assertThat(limiter.tryAcquire("email:a", 3, 1000)).isTrue();
+        assertThat(limiter.tryAcquire("email:a", 3, 1000)).isFalse();
+
+        // resets are kept in whole seconds, rounded up
+        Thread.sleep(2100);
+        assertThat(limiter.tryAcquire("email:a", 3, 1000)).isTrue();
+    }
+
+    @Test
+    void keysAreIndependent() {
+        GcraRateLimiter limiter = new GcraRateLimiter(1024, 4);
+        assertThat(limiter.tryAcquire("ip:1", 1, MINUTE)).isTrue();
+        assertThat(limiter.tryAcquire("ip:1", 1, MINUTE)).isFalse();
+        assertThat(limiter.tryAcquire("ip:2", 1, MINUTE)).isTrue();
+    }
+
+    @Test
+    void zeroMaxDeniesEverything() {
+        assertThat(new GcraRateLimiter(1024, 4).tryAcquire("ip:1", 0, MINUTE)).isFalse();
+        assertThat(new FixedWindowRateLimiter(1024, 4).tryAcquire("ip:1", 0, MINUTE)).isFalse();
+    }
+
+    @Test
+    void concurrentCallersNeverExceedMax() throws Exception {
+        for (PackedSlotRateLimiter limiter : new PackedSlotRateLimiter[]{
+                new GcraRateLimiter(1024, 4), new FixedWindowRateLimiter(1024, 4)}) {
+            AtomicInteger allowed = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("login:alice", 50, MINUTE)) allowed.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(allowed).hasValue(50);
+        }
+    }
+
+    @Test
+    void footprintStaysFixedUnderKeyChurn() {
+        GcraRateLimiter limiter = new GcraRateLimiter(64, 1);
+        assertThat(limiter.capacity()).isEqualTo(64);
+
+        // far more live keys than slots: the closest to expiry is evicted, nothing grows
+        for (int i = 0; i < 10_000; i++) assertThat(limiter.tryAcquire("ip:" + i, 5, MINUTE)).isTrue();
+
+        assertThat(limiter.capacity()).isEqualTo(64);
+        assertThat(limiter.size()).isBetween(1L, 64L);
+    }
+
+    @Test
+    void expiredSlotsAreNotCounted() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(1024, 4);
+        for (int i = 0; i < 10; i++) limiter.tryAcquire("ip:" + i, 1, 50);
+        assertThat(limiter.size()).isEqualTo(10);
+
+        Thread.sleep(100);
+        assertThat(limiter.size()).isZero();
+    }
+}
@@ -0,0 +1,153 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.config.GlobalExceptionHandler;
+import com.polyshop.authservice.config.PasswordEncodingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void shutdown() {
+        if (hasher != null) hasher.shutdown();
+    }
+
+    private PasswordHasher hasher(String encodingId, int strength) {
+        PasswordEncodingSettings settings = new PasswordEncodingSettings(encodingId, strength);
+        hasher = new PasswordHasher(new PasswordEncodingConfig().passwordEncoder(settings), settings,
+                new SimpleMeterRegistry(), 1, 1, 5000);
+        return hasher;
+    }
+
+    /** One worker and one queue slot, with every encode parked until {@code release} opens. */
+    private PasswordHasher blockingHasher(CountDownLatch started, CountDownLatch release, SimpleMeterRegistry registry, long timeoutMs) {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "{bcrypt}hash";
+        });
+        hasher = new PasswordHasher(encoder, new PasswordEncodingSettings("bcrypt", 4), registry, 1, 1, timeoutMs);
+        return hasher;
+    }
+
+    private static String bcrypt(int strength) {
+        return "{bcrypt}" + new BCryptPasswordEncoder(strength).encode("secret");
+    }
+
+    @Test
+    void hashFromALowerStrengthIsUpgraded() {
+        PasswordHasher hasher = hasher("bcrypt", 6);
+
+        assertThat(hasher.needsRehash(bcrypt(4))).isTrue();
+        assertThat(hasher.needsRehash(bcrypt(5))).isTrue();
+    }
+
+    @Test
+    void hashAtTheConfiguredStrengthIsKept() {
+        PasswordHasher hasher = hasher("bcrypt", 6);
+
+        assertThat(hasher.needsRehash(bcrypt(6))).isFalse();
+        // what the hasher writes itself must never be flagged on the next login
+        assertThat(hasher.needsRehash(hasher.encode("secret"))).isFalse();
+    }
+
+    @Test
+    void strongerHashIsNeverDowngraded() {
+        PasswordHasher hasher = hasher("bcrypt", 4);
+
+        assertThat(hasher.needsRehash(bcrypt(6))).isFalse();
+    }
+
+    @Test
+    void otherEncodingIdsAreRehashedToTheConfiguredOne() {
+        PasswordHasher hasher = hasher("bcrypt", 4);
+
+        assertThat(hasher.needsRehash("{pbkdf2}" + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode("secret"))).isTrue();
+        assertThat(hasher.needsRehash("{noop}secret")).isTrue();
+        // legacy rows without an id prefix and rows that do not parse as bcrypt
+        assertThat(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(hasher.needsRehash("{bcrypt}not-a-hash")).isTrue();
+        assertThat(hasher.needsRehash("{bcrypt}$2a$xx$abcdefghijklmnopqrstuv")).isTrue();
+        assertThat(hasher.needsRehash(null)).isTrue();
+    }
+
+    @Test
+    void nonBcryptEncodingIdDefersToTheEncoder() {
+        PasswordHasher hasher = hasher("pbkdf2", 4);
+
+        assertThat(hasher.needsRehash("{pbkdf2}" + Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8().encode("secret"))).isFalse();
+        assertThat(hasher.needsRehash(bcrypt(4))).isTrue();
+    }
+
+    @Test
+    void calibrationNeverOverridesTheConfiguredStrength() {
+        PasswordEncodingConfig config = new PasswordEncodingConfig();
+
+        // a 1 ms target would pick the minimum on any host; the fleet-wide setting still wins
+        assertThat(config.passwordEncodingSettings("bcrypt", 6, true, 1, 4, 5).bcryptStrength()).isEqualTo(6);
+        assertThatThrownBy(() -> config.passwordEncodingSettings("bcrypt", 3, false, 100, 4, 5))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void saturatedPoolRejectsInsteadOfQueueing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = blockingHasher(started, release, registry, 5000);
+
+        CompletableFuture<String> running = hasher.encodeAsync("a");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = hasher.encodeAsync("b");
+
+        // the worker is busy and the single queue slot is taken: the third caller is turned away at once
+        assertThatThrownBy(() -> hasher.encodeAsync("c")).isInstanceOf(PasswordHashingBusyException.class);
+        assertThatThrownBy(() -> hasher.matchesAsync("c", "{bcrypt}hash")).isInstanceOf(PasswordHashingBusyException.class);
+        assertThat(registry.get("auth.password.hash.rejected").counter().count()).isEqualTo(2);
+        assertThat(registry.get("auth.password.hash.queue.depth").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("{bcrypt}hash");
+        assertThat(queued.orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("{bcrypt}hash");
+        // capacity is back once the backlog drains
+        assertThat(hasher.encodeAsync("d").orTimeout(5, TimeUnit.SECONDS).join()).isEqualTo("{bcrypt}hash");
+    }
+
+    @Test
+    void callerGivesUpAfterTheTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher hasher = blockingHasher(new CountDownLatch(1), release, new SimpleMeterRegistry(), 50);
+
+        try {
+            assertThatThrownBy(() -> hasher.encode("a")).isInstanceOf(PasswordHashingBusyException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void rejectionIsAnsweredWithServiceUnavailable() {
+        ResponseEntity<?> response = new GlobalExceptionHandler().handleHashingBusy(new PasswordHashingBusyException());
+
+        assertThat(response.getStatusCode().value()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+    }
+}
@@ -0,0 +1,54 @@
+package com.polyshop.authservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathPrefixMatcherTest {
+
+    @Test
+    void longestPrefixWins() {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        prefixes.put("/api/v1/auth/", "auth");
+        prefixes.put("/api/v1/auth/login", "login");
+        prefixes.put("/api/v1/admin", "admin");
+        PathPrefixMatcher<String> matcher = new PathPrefixMatcher<>(prefixes);
+
+        assertThat(matcher.longestMatch("/api/v1/auth/login")).isEqualTo("login");
+        assertThat(matcher.longestMatch("/api/v1/auth/login/otp")).isEqualTo("login");
+        assertThat(matcher.longestMatch("/api/v1/auth/register")).isEqualTo("auth");
+        assertThat(matcher.longestMatch("/api/v1/admin/rate-limits")).isEqualTo("admin");
+    }
+
+    @Test
+    void noMatchIsNull() {
+        PathPrefixMatcher<String> matcher = new PathPrefixMatcher<>(Map.of("/api/v1/auth/login", "login"));
+
+        assertThat(matcher.longestMatch("/api/v1/auth/log")).isNull();
+        assertThat(matcher.longestMatch("/api/v1/users")).isNull();
+        assertThat(matcher.longestMatch("")).isNull();
+    }
+
+    @Test
+    void emptyPrefixMatchesEverything() {
+        PathPrefixMatcher<String> matcher = new PathPrefixMatcher<>(Map.of("", "default", "/api/v1/auth/", "auth"));
+
+        assertThat(matcher.longestMatch("/health")).isEqualTo("default");
+        assertThat(matcher.longestMatch("/api/v1/auth/login")).isEqualTo("auth");
+    }
+
+    @Test
+    void insertionOrderDoesNotMatter() {
+        // children are kept sorted for binary search, so insert out of order
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        for (char c = 'z'; c >= 'a'; c--) prefixes.put("/" + c, String.valueOf(c));
+        PathPrefixMatcher<String> matcher = new PathPrefixMatcher<>(prefixes);
+
+        for (char c = 'a'; c <= 'z'; c++) {
+            assertThat(matcher.longestMatch("/" + c + "/x")).isEqualTo(String.valueOf(c));
+        }
+    }
+}
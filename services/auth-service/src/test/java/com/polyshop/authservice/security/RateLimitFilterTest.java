@@ -0,0 +1,99 @@
+package com.polyshop.authservice.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polyshop.authservice.security.RateLimitPolicy.Dimension;
+import com.polyshop.authservice.security.RateLimitPolicy.Limit;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    private static final int MAX_BODY_BYTES = 256;
+
+    private final RateLimitPolicyService policies = new RateLimitPolicyService(new MockEnvironment());
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimitService(1024, 4), policies,
+            new AuthRequestKeyExtractor(new ObjectMapper()), mock(BruteForceService.class), MAX_BODY_BYTES);
+
+    @Test
+    void bodyKeyedLimitSeesTheEmailAndTheControllerStillGetsTheBody() throws Exception {
+        policies.replace(List.of(new RateLimitPolicy("login", List.of("/api/v1/auth/login"),
+                List.of(new Limit(Dimension.EMAIL, 1, 60, null)))));
+        String body = "{\"email\":\"Alice@Example.com\",\"password\":\"secret\"}";
+
+        MockFilterChain first = new MockFilterChain();
+        filter.doFilter(post(body, "10.0.0.1"), new MockHttpServletResponse(), first);
+        assertThat(first.getRequest().getInputStream().readAllBytes()).isEqualTo(body.getBytes(StandardCharsets.UTF_8));
+        assertThat(first.getRequest().getContentLength()).isEqualTo(body.length());
+
+        // another address, same email in a different case: the email limit still applies
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(post("{\"email\":\"alice@example.com\"}", "10.0.0.2"), second, new MockFilterChain());
+        assertThat(second.getStatus()).isEqualTo(429);
+        assertThat(second.getContentAsString()).contains("rate_limited_email");
+    }
+
+    @Test
+    void bodyOverTheCapIsRejected() throws Exception {
+        policies.replace(List.of(new RateLimitPolicy("login", List.of("/api/v1/auth/login"),
+                List.of(new Limit(Dimension.EMAIL, 5, 60, null)))));
+        String big = "{\"email\":\"alice@example.com\",\"pad\":\"" + "x".repeat(MAX_BODY_BYTES) + "\"}";
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(post(big, "10.0.0.1"), response, chain);
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+
+        // without a declared length (chunked) the read itself stops at the cap
+        HttpServletRequest chunked = new HttpServletRequestWrapper(post(big, "10.0.0.1")) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        MockHttpServletResponse chunkedResponse = new MockHttpServletResponse();
+        filter.doFilter(chunked, chunkedResponse, new MockFilterChain());
+        assertThat(chunkedResponse.getStatus()).isEqualTo(413);
+    }
+
+    @Test
+    void ipOnlyPolicyLeavesTheBodyUnread() throws Exception {
+        policies.replace(List.of(new RateLimitPolicy("auth", List.of("/api/v1/auth/"),
+                List.of(new Limit(Dimension.IP, 5, 60, null)))));
+        MockHttpServletRequest request = post("{\"email\":\"alice@example.com\"}", "10.0.0.1");
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    void pathsWithoutAPolicyPassThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/me");
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    private static MockHttpServletRequest post(String body, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
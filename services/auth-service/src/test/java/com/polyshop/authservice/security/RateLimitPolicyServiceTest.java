@@ -0,0 +1,69 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.security.RateLimitPolicy.Algorithm;
+import com.polyshop.authservice.security.RateLimitPolicy.Dimension;
+import com.polyshop.authservice.security.RateLimitPolicy.Limit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitPolicyServiceTest {
+
+    @Test
+    void bindsPoliciesFromConfiguration() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("auth.ratelimit.policies[0].name", "auth")
+                .withProperty("auth.ratelimit.policies[0].paths[0]", "/api/v1/auth/login")
+                .withProperty("auth.ratelimit.policies[0].limits[0].dimension", "IP")
+                .withProperty("auth.ratelimit.policies[0].limits[0].max", "30")
+                .withProperty("auth.ratelimit.policies[0].limits[0].window-seconds", "60");
+
+        RateLimitPolicyService service = new RateLimitPolicyService(env);
+
+        RateLimitPolicy policy = service.match("/api/v1/auth/login");
+        assertThat(policy.name()).isEqualTo("auth");
+        assertThat(policy.limits()).containsExactly(new Limit(Dimension.IP, 30, 60, null));
+        assertThat(service.match("/api/v1/users/me")).isNull();
+    }
+
+    @Test
+    void replaceSwapsPoliciesAtRuntime() {
+        RateLimitPolicyService service = new RateLimitPolicyService(new MockEnvironment());
+        assertThat(service.match("/api/v1/auth/login")).isNull();
+
+        service.replace(List.of(
+                policy("auth", List.of("/api/v1/auth/"), new Limit(Dimension.IP, 30, 60, Algorithm.GCRA)),
+                policy("login", List.of("/api/v1/auth/login"), new Limit(Dimension.EMAIL, 5, 3600, Algorithm.FIXED_WINDOW))));
+
+        assertThat(service.match("/api/v1/auth/login").name()).isEqualTo("login");
+        assertThat(service.match("/api/v1/auth/register").name()).isEqualTo("auth");
+        assertThat(service.getPolicies()).extracting(RateLimitPolicy::name).containsExactly("auth", "login");
+    }
+
+    @Test
+    void invalidReplacementKeepsThePreviousPolicies() {
+        RateLimitPolicyService service = new RateLimitPolicyService(new MockEnvironment());
+        service.replace(List.of(policy("auth", List.of("/api/v1/auth/"), new Limit(Dimension.IP, 30, 60, null))));
+
+        assertThatThrownBy(() -> service.replace(List.of(
+                policy("a", List.of("/api/v1/auth/login"), new Limit(Dimension.IP, 1, 1, null)),
+                policy("b", List.of("/api/v1/auth/login"), new Limit(Dimension.IP, 1, 1, null)))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("claimed by policies a and b");
+        assertThatThrownBy(() -> service.replace(List.of(policy("bad", List.of("/x"), new Limit(Dimension.IP, 0, 60, null)))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.replace(List.of(
+                policy("big", List.of("/x"), new Limit(Dimension.IP, FixedWindowRateLimiter.MAX_COUNT + 1, 60, Algorithm.FIXED_WINDOW)))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(service.match("/api/v1/auth/login").name()).isEqualTo("auth");
+    }
+
+    private static RateLimitPolicy policy(String name, List<String> paths, Limit limit) {
+        return new RateLimitPolicy(name, paths, List.of(limit));
+    }
+}
@@ -0,0 +1,126 @@
+package com.polyshop.authservice.security;
+
+import com.polyshop.authservice.repository.UserRepository;
+import com.polyshop.authservice.repository.UserRepository.TokenEpochView;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserTokenEpochsTest {
+
+    private static final String ALICE = "alice@example.com";
+
+    private final UserRepository repo = mock(UserRepository.class);
+    private final UserTokenEpochs epochs = new UserTokenEpochs(repo, 900);
+
+    @Test
+    void secondPrecisionIatIsRevokedOnlyUpToTheEpochsOwnSecond() {
+        Instant epochSecond = Instant.ofEpochSecond(Instant.now().getEpochSecond() - 60);
+        epochs.advance(ALICE, epochSecond.plusMillis(300));
+
+        // iat of the epoch's own second may have been minted 300ms before it
+        assertThat(epochs.isRevoked(ALICE, epochSecond)).isTrue();
+        assertThat(epochs.isRevoked(ALICE, epochSecond.minusSeconds(1))).isTrue();
+        // the next second was certainly minted after it
+        assertThat(epochs.isRevoked(ALICE, epochSecond.plusSeconds(1))).isFalse();
+    }
+
+    @Test
+    void millisecondIatSeparatesTokensWithinTheEpochsSecond() {
+        Instant epochSecond = Instant.ofEpochSecond(Instant.now().getEpochSecond() - 60);
+        epochs.advance(ALICE, epochSecond.plusNanos(300_400_000));
+
+        assertThat(epochs.isRevoked(ALICE, epochSecond.plusMillis(299))).isTrue();
+        // the epoch is kept to the millisecond, like iat_ms, so the same millisecond is not before it
+        assertThat(epochs.isRevoked(ALICE, epochSecond.plusMillis(300))).isFalse();
+        assertThat(epochs.isRevoked(ALICE, epochSecond.plusMillis(301))).isFalse();
+    }
+
+    @Test
+    void wholeSecondEpochKeepsTokensFromItsOwnSecond() {
+        Instant epoch = Instant.ofEpochSecond(Instant.now().getEpochSecond() - 60);
+        epochs.advance(ALICE, epoch);
+
+        assertThat(epochs.isRevoked(ALICE, epoch.minusSeconds(1))).isTrue();
+        assertThat(epochs.isRevoked(ALICE, epoch)).isFalse();
+    }
+
+    @Test
+    void tokenMintedByTheRevokingRequestSurvivesItsEpoch() throws Exception {
+        KeyProvider keys = new KeyProvider("", true, JwtAlgorithm.ES256, 300, 900, 60);
+        JwtUtil jwt = new JwtUtil(keys);
+        ReflectionTestUtils.setField(jwt, "expiresSeconds", 900L);
+        ReflectionTestUtils.setField(jwt, "issuer", "polyshop-auth");
+        ReflectionTestUtils.setField(jwt, "verifiedCacheSize", 100);
+        String before = jwt.generateAccessToken(ALICE, List.of("ROLE_USER"), null);
+        Thread.sleep(2);
+
+        // restore-account: revokeAllTokensForUser advances the epoch, then the same request
+        // mints the new access token, usually within the same second
+        epochs.advance(ALICE, Instant.now());
+        String restored = jwt.generateAccessToken(ALICE, List.of("ROLE_USER"), null);
+
+        VerifiedToken fresh = jwt.verify(restored);
+        assertThat(epochs.isRevoked(fresh.subject(), fresh.issuedAt())).isFalse();
+        VerifiedToken old = jwt.verify(before);
+        assertThat(epochs.isRevoked(old.subject(), old.issuedAt())).isTrue();
+    }
+
+    @Test
+    void otherUsersAreUnaffectedAndMissingSubjectIsRejected() {
+        epochs.advance(ALICE, Instant.now());
+
+        assertThat(epochs.isRevoked("bob@example.com", Instant.now().minusSeconds(60))).isFalse();
+        assertThat(epochs.isRevoked(null, Instant.now())).isTrue();
+    }
+
+    @Test
+    void epochsOnlyMoveForward() {
+        Instant later = Instant.ofEpochSecond(Instant.now().getEpochSecond() - 10);
+        epochs.advance(ALICE, later);
+        epochs.advance(ALICE, later.minusSeconds(30));
+
+        assertThat(epochs.isRevoked(ALICE, later.minusSeconds(5))).isTrue();
+    }
+
+    @Test
+    void syncMergesEpochsFromOtherInstancesAndDropsOldOnes() {
+        Instant recent = Instant.ofEpochSecond(Instant.now().getEpochSecond() - 10);
+        Instant old = Instant.now().minusSeconds(3600);
+        when(repo.findTokenEpochsSince(any())).thenReturn(List.of(
+                view(ALICE, old, recent),
+                view("bob@example.com", old, null)));
+
+        epochs.sync();
+
+        assertThat(epochs.isRevoked(ALICE, recent.minusMillis(1))).isTrue();
+        // older than any live access token, so not kept
+        assertThat(epochs.isRevoked("bob@example.com", old.minusSeconds(1))).isFalse();
+    }
+
+    private static TokenEpochView view(String email, Instant tokensValidAfter, Instant accessTokensValidAfter) {
+        return new TokenEpochView() {
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public Instant getTokensValidAfter() {
+                return tokensValidAfter;
+            }
+
+            @Override
+            public Instant getAccessTokensValidAfter() {
+                return accessTokensValidAfter;
+            }
+        };
+    }
+}
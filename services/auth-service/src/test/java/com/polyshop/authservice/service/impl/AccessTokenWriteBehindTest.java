@@ -0,0 +1,136 @@
+package com.polyshop.authservice.service.impl;
+
+import com.polyshop.authservice.domain.AuthToken;
+import com.polyshop.authservice.repository.AuthTokenRepository;
+import com.polyshop.authservice.service.impl.AccessTokenWriteBehind.DurabilityMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AccessTokenWriteBehindTest {
+
+    private final AuthTokenRepository repo = mock(AuthTokenRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<List<AuthToken>> batches = new CopyOnWriteArrayList<>();
+    private AccessTokenWriteBehind writeBehind;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (writeBehind != null) writeBehind.stop();
+    }
+
+    @Test
+    void syncModeSavesOnTheCallingThread() {
+        writeBehind = new AccessTokenWriteBehind(repo, transactionManager, DurabilityMode.SYNC, 50, 20, 100);
+        writeBehind.start();
+        AuthToken token = token(1L);
+
+        writeBehind.write(token);
+
+        verify(repo).save(token);
+        verify(repo, never()).saveAll(anyList());
+    }
+
+    @Test
+    void flushPersistsEverythingQueuedInBatches() {
+        recordBatches();
+        // an interval long enough that only the explicit flush writes
+        writeBehind = new AccessTokenWriteBehind(repo, transactionManager, DurabilityMode.BATCHED, 1000, 60_000, 100);
+        writeBehind.start();
+        for (long i = 1; i <= 5; i++) writeBehind.write(token(i));
+
+        writeBehind.flush();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(AuthToken::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        verify(repo, never()).save(any(AuthToken.class));
+    }
+
+    @Test
+    void fullBatchWakesTheFlusher() throws Exception {
+        recordBatches();
+        writeBehind = new AccessTokenWriteBehind(repo, transactionManager, DurabilityMode.BATCHED, 3, 60_000, 100);
+        writeBehind.start();
+        for (long i = 1; i <= 3; i++) writeBehind.write(token(i));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (batches.isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(3);
+    }
+
+    @Test
+    void fullQueueFallsBackToADirectSave() {
+        writeBehind = new AccessTokenWriteBehind(repo, transactionManager, DurabilityMode.BATCHED, 1000, 60_000, 2);
+        writeBehind.start();
+        AuthToken overflow = token(3L);
+
+        writeBehind.write(token(1L));
+        writeBehind.write(token(2L));
+        writeBehind.write(overflow);
+
+        verify(repo, times(1)).save(overflow);
+    }
+
+    @Test
+    void failedBatchIsRetriedOneByOne() {
+        doAnswer(inv -> {
+            throw new IllegalStateException("duplicate key");
+        }).when(repo).saveAll(anyList());
+        writeBehind = new AccessTokenWriteBehind(repo, transactionManager, DurabilityMode.BATCHED, 1000, 60_000, 100);
+        writeBehind.start();
+        AuthToken first = token(1L);
+        AuthToken second = token(2L);
+        writeBehind.write(first);
+        writeBehind.write(second);
+
+        writeBehind.flush();
+
+        verify(repo).save(first);
+        verify(repo).save(second);
+        // the failed batch may have assigned ids; clearing them makes the retry an insert, not a merge
+        assertThat(first.getId()).isNull();
+        assertThat(second.getId()).isNull();
+    }
+
+    @Test
+    void stopFlushesWhatIsLeft() throws Exception {
+        recordBatches();
+        writeBehind = new AccessTokenWriteBehind(repo, transactionManager, DurabilityMode.BATCHED, 1000, 60_000, 100);
+        writeBehind.start();
+        writeBehind.write(token(1L));
+
+        writeBehind.stop();
+        writeBehind = null;
+
+        assertThat(batches).extracting(List::size).containsExactly(1);
+    }
+
+    private void recordBatches() {
+        doAnswer(inv -> {
+            List<AuthToken> batch = inv.getArgument(0);
+            batches.add(new ArrayList<>(batch));
+            return batch;
+        }).when(repo).saveAll(anyList());
+    }
+
+    private static AuthToken token(long id) {
+        AuthToken token = new AuthToken();
+        token.setId(id);
+        return token;
+    }
+}
@@ -0,0 +1,128 @@
+package com.polyshop.authservice.service.impl;
+
+import com.polyshop.authservice.domain.User;
+import com.polyshop.authservice.domain.enums.Status;
+import com.polyshop.authservice.repository.UserRepository;
+import com.polyshop.authservice.security.PasswordHasher;
+import com.polyshop.authservice.service.AuditService;
+import com.polyshop.authservice.service.AuthTokenService;
+import com.polyshop.authservice.service.EmailService;
+import com.polyshop.authservice.service.UserService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// the attempts run on their own threads and must see committed rows
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserServiceImpl.class, UserServiceImplLoginTest.EmbeddedDatabase.class})
+class UserServiceImplLoginTest {
+
+    private static final int ATTEMPTS = 16;
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class EmbeddedDatabase {
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.builder().start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres pg) {
+            return pg.getPostgresDatabase();
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @MockitoBean
+    private PasswordHasher passwordHasher;
+    @MockitoBean
+    private AuthTokenService authTokenService;
+    @MockitoBean
+    private EmailService emailService;
+    @MockitoBean
+    private AuditService auditService;
+
+    @Test
+    void concurrentFailedLoginsAreAllCounted() throws Exception {
+        User user = userRepository.save(user("racer"));
+        // every attempt loads the user before any of them writes, as a real burst against bcrypt would
+        CountDownLatch allChecking = new CountDownLatch(ATTEMPTS);
+        when(passwordHasher.matches(any(), any())).thenAnswer(inv -> {
+            allChecking.countDown();
+            allChecking.await(10, TimeUnit.SECONDS);
+            return false;
+        });
+
+        List<Future<Throwable>> outcomes = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(ATTEMPTS);
+        try {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                outcomes.add(pool.submit(() -> {
+                    try {
+                        userService.authenticate("racer", "wrong");
+                        return null;
+                    } catch (RuntimeException ex) {
+                        return ex;
+                    }
+                }));
+            }
+            for (Future<Throwable> outcome : outcomes) {
+                assertThat(outcome.get(30, TimeUnit.SECONDS))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("invalid credentials");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // each failure is its own committed increment, so none is lost to a stale read of the counter
+        User after = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(after.getFailedLoginAttempts()).isEqualTo(ATTEMPTS);
+        assertThat(after.getLockedUntil()).isNotNull();
+        assertThatThrownBy(() -> userService.authenticate("racer", "wrong"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Account locked");
+    }
+
+    private static User user(String username) {
+        User u = new User();
+        u.setUsername(username);
+        u.setEmail(username + "@example.com");
+        u.setPhone("555" + username.length());
+        u.setFullName(username);
+        u.setPasswordHash("{bcrypt}$2a$10$something");
+        u.setStatus(Status.ACTIVE);
+        return u;
+    }
+}
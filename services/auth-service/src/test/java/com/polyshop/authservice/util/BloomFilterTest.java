@@ -0,0 +1,67 @@
+package com.polyshop.authservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverForgetsWhatWasPut() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put(HashUtil.sha256("token-" + i));
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(HashUtil.sha256("token-" + i))).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put(HashUtil.sha256("token-" + i));
+
+        int hits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(HashUtil.sha256("other-" + i))) hits++;
+        }
+        // 1% expected; twice that means the sizing or the double hashing is off
+        assertThat(hits).isLessThan(2_000);
+    }
+
+    @Test
+    void stringKeysUseTheirOwnHashing() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        filter.put("alice@example.com");
+
+        assertThat(filter.mightContain("alice@example.com")).isTrue();
+        assertThat(filter.mightContain("bob@example.com")).isFalse();
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        BloomFilter filter = new BloomFilter(80_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) filter.put(HashUtil.sha256(thread + "-" + i));
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        List<String> missing = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                if (!filter.mightContain(HashUtil.sha256(t + "-" + i))) missing.add(t + "-" + i);
+            }
+        }
+        assertThat(missing).isEmpty();
+    }
+}